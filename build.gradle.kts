@@ -4,6 +4,9 @@ plugins {
     `java-library`
     `maven-publish`
     signing
+
+    // 0.7.x supports Gradle 7.0 and newer, so it works with the 7.3 wrapper
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "fi.evident.raudikko"
@@ -20,6 +23,8 @@ dependencies {
     testImplementation("org.puimula.voikko:libvoikko:4.1.1")
     testImplementation(platform("org.junit:junit-bom:5.7.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+
+    jmhCompileOnly("org.jetbrains:annotations:20.1.0")
 }
 
 java {
@@ -49,6 +54,44 @@ tasks.test {
     useJUnitPlatform()
 }
 
+val morphologySnapshot by tasks.registering(JavaExec::class) {
+    description = "Converts the bundled VFST morphology to a precompiled snapshot."
+
+    val input = file("src/main/resources/morpho/5/mor-morpho/mor.vfst")
+    val outputDir = layout.buildDirectory.dir("generated/resources/snapshot")
+
+    inputs.file(input)
+    outputs.dir(outputDir)
+
+    // Run using only the compiled classes to avoid depending on processResources, which depends on this task
+    classpath = sourceSets.main.get().output.classesDirs
+    mainClass.set("fi.evident.raudikko.internal.fst.SnapshotCompiler")
+    args(input.path, outputDir.get().file("morpho/5/mor-morpho/mor.snapshot").asFile.path)
+}
+
+// The snapshot roughly doubles the size of the jar, so it's only bundled when building with -PbundleSnapshot
+if (hasProperty("bundleSnapshot")) {
+    tasks.processResources {
+        from(morphologySnapshot)
+    }
+}
+
+sourceSets.named("jmh") {
+    // Benchmarks are driven by the same word lists as the tests
+    resources.srcDir("src/test/resources")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+
+    // Report allocation rates along with throughput
+    profilers.add("gc")
+
+    // Run a subset of benchmarks with e.g. -PjmhIncludes=PostProcessing
+    if (hasProperty("jmhIncludes"))
+        includes.add(property("jmhIncludes") as String)
+}
+
 publishing {
     publications {
         create<MavenPublication>("raudikko") {
@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.benchmark;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.Morphology;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the public analysis API. Run with {@code -prof gc} (enabled by default
+ * in the build) to see allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"OBJECT_GRAPH", "COMPACT"})
+    public Morphology.Engine engine;
+
+    @Param({"morpho-test", "synthetic"})
+    public String corpus;
+
+    private Analyzer analyzer;
+    private List<String> words;
+
+    @Setup
+    public void setup() throws Exception {
+        analyzer = Morphology.loadBundled(engine).newAnalyzer();
+        words = corpus.equals("synthetic") ? BenchmarkWords.syntheticCorpus(100_000) : BenchmarkWords.morphoTestWords();
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        for (var word : words)
+            blackhole.consume(analyzer.analyze(word));
+    }
+
+    @Benchmark
+    public void analyzeFirst(Blackhole blackhole) {
+        for (var word : words)
+            blackhole.consume(analyzer.analyze(word, 1));
+    }
+
+    @Benchmark
+    public void analyzeAll(Blackhole blackhole) {
+        for (List<Analysis> analyses : analyzer.analyzeAll(words))
+            blackhole.consume(analyses);
+    }
+
+    @Benchmark
+    public void baseForms(Blackhole blackhole) {
+        for (var word : words)
+            blackhole.consume(analyzer.baseForms(word));
+    }
+}
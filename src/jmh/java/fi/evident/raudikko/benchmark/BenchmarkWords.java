@@ -0,0 +1,105 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Word lists used by the benchmarks.
+ */
+public final class BenchmarkWords {
+
+    private BenchmarkWords() {
+    }
+
+    /**
+     * Returns the words of {@code morpho-test.txt}: a small set of words covering many kinds of inflections.
+     */
+    public static @NotNull List<String> morphoTestWords() throws IOException {
+        var words = new ArrayList<String>();
+        for (var line : readLines("morpho-test.txt"))
+            if (line.startsWith("word:"))
+                words.add(line.substring("word:".length()));
+        return words;
+    }
+
+    /**
+     * Returns a synthetic corpus of given size. The words are drawn from the test word lists
+     * following Zipf's law, so that the corpus repeats words like natural text does.
+     */
+    public static @NotNull List<String> syntheticCorpus(int size) throws IOException {
+        var vocabulary = new LinkedHashSet<String>();
+        vocabulary.addAll(morphoTestWords());
+        vocabulary.addAll(readLines("rautatie-unhyphenated.txt"));
+
+        var words = new ArrayList<>(vocabulary);
+        var random = new Random(42);
+
+        // Cumulative weights 1/1, 1/2, 1/3, ... for picking words by rank
+        var cumulative = new double[words.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+
+        var corpus = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            corpus.add(words.get(index >= 0 ? index : Math.min(-index - 1, words.size() - 1)));
+        }
+        return corpus;
+    }
+
+    private static @NotNull List<String> readLines(@NotNull String path) throws IOException {
+        try (var in = BenchmarkWords.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) throw new FileNotFoundException("Could not find " + path);
+
+            return new BufferedReader(new InputStreamReader(in, UTF_8)).lines()
+                .filter(it -> !it.isEmpty() && !it.startsWith("#"))
+                .toList();
+        }
+    }
+}
@@ -30,36 +30,29 @@
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
 
-package fi.evident.raudikko.internal.utils;
+package fi.evident.raudikko.benchmark;
 
-import org.jetbrains.annotations.Nullable;
+import fi.evident.raudikko.Morphology;
+import org.openjdk.jmh.annotations.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-public final class CharMap<T> {
-
-    private final Object[] low = new Object[256];
-    private @Nullable Map<Character, T> high = null;
-
-    public void put(char key, T value) {
-        if (key < low.length)
-            low[key] = value;
-        else {
-            if (high == null)
-                high = new HashMap<>();
-
-            high.put(key, value);
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    public @Nullable T get(char key) {
-        if (key < low.length)
-            return (T) low[key];
-        else if (high != null)
-            return high.get(key);
-        else
-            return null;
+/**
+ * Measures how long it takes to load the bundled morphology with each engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({"OBJECT_GRAPH", "COMPACT"})
+    public Morphology.Engine engine;
+
+    @Benchmark
+    public Morphology loadBundled() {
+        return Morphology.loadBundled(engine);
     }
 }
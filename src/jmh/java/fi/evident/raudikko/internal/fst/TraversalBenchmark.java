@@ -0,0 +1,146 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.benchmark.BenchmarkWords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Measures raw traversal of the morphology without any post-processing of the outputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraversalBenchmark {
+
+    @Param({"object-graph", "compact", "mapped"})
+    public String engine;
+
+    /** Whether wide states use direct-indexed transition tables. Has no effect on the mapped engine. */
+    @Param({"tables", "search"})
+    public String transitionLookup;
+
+    private Transducer transducer;
+    private List<String> words;
+    private final List<Symbol> inputBuffer = new ArrayList<>(2000);
+    private final Symbol[] output = new Symbol[2000];
+    private final TraversalStack stack = new TraversalStack(2000);
+    private short[] flags;
+    private Blackhole blackhole;
+    private final TransducerCallback callback = depth -> {
+        blackhole.consume(depth);
+        return true;
+    };
+    private Path mappedFile;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws IOException {
+        this.blackhole = blackhole;
+
+        transducer = switch (engine) {
+            case "object-graph" -> {
+                try (var in = openMorphology()) {
+                    yield UnweightedVfstLoader.load(in);
+                }
+            }
+            case "compact" -> {
+                try (var in = openMorphology()) {
+                    yield UnweightedVfstLoader.loadCompact(in);
+                }
+            }
+            case "mapped" -> {
+                // The morphology might be inside a jar, so copy it to a file that can be mapped
+                mappedFile = Files.createTempFile("mor", ".vfst");
+                try (var in = openMorphology()) {
+                    Files.copy(in, mappedFile, REPLACE_EXISTING);
+                }
+                yield UnweightedVfstLoader.loadMapped(mappedFile);
+            }
+            default -> throw new IllegalArgumentException("unknown engine: " + engine);
+        };
+
+        if (transitionLookup.equals("search")) {
+            if (transducer instanceof UnweightedTransducer unweighted)
+                unweighted.buildTransitionTables(Integer.MAX_VALUE);
+            else if (transducer instanceof CompactTransducer compact)
+                transducer = compact.withTransitionTables(Integer.MAX_VALUE);
+        }
+
+        flags = new short[transducer.flagDiacriticFeatureCount];
+        words = BenchmarkWords.syntheticCorpus(100_000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (mappedFile != null)
+            Files.deleteIfExists(mappedFile);
+    }
+
+    @Benchmark
+    public void transduce() {
+        for (var word : words)
+            transducer.transduce(word, inputBuffer, flags, output, stack, callback);
+    }
+
+    private static InputStream openMorphology() throws FileNotFoundException {
+        var in = Transducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst");
+        if (in == null) throw new FileNotFoundException("could not load morphology");
+        return in;
+    }
+}
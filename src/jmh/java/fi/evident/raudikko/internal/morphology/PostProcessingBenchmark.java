@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.benchmark.BenchmarkWords;
+import fi.evident.raudikko.internal.fst.Symbol;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static fi.evident.raudikko.internal.morphology.BaseForm.parseBaseform;
+import static fi.evident.raudikko.internal.morphology.BaseFormParts.parseBaseFormParts;
+import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
+
+/**
+ * Measures each post-processing stage of the analyzer separately. The transducer outputs of
+ * the corpus are collected beforehand, so that the stages are measured without traversal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessingBenchmark {
+
+    /** All outputs of the transducer, including the ones that don't pass validation */
+    private final List<Output> outputs = new ArrayList<>();
+
+    /** Outputs that pass validation */
+    private final List<Output> validOutputs = new ArrayList<>();
+
+    private final SymbolBuffer buffer = new SymbolBuffer(2000);
+    private final WordParser wordParser = new WordParser();
+    private final BasicAttributes attributes = new BasicAttributes();
+
+    private record Output(Symbol[] symbols, int wordLength) {
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Transducer transducer;
+        try (var in = Transducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (in == null) throw new FileNotFoundException("could not load morphology");
+            transducer = UnweightedVfstLoader.loadCompact(in);
+        }
+
+        var outputStack = new Symbol[2000];
+        var flags = new short[transducer.flagDiacriticFeatureCount];
+        var stack = new TraversalStack(2000);
+        var inputBuffer = new ArrayList<Symbol>();
+
+        for (var word : BenchmarkWords.syntheticCorpus(20_000)) {
+            transducer.transduce(word, inputBuffer, flags, outputStack, stack, depth -> {
+                outputs.add(new Output(Arrays.copyOf(outputStack, depth), word.length()));
+                return true;
+            });
+        }
+
+        for (var output : outputs)
+            if (buffer.resetIfValid(output.symbols, output.symbols.length))
+                validOutputs.add(output);
+    }
+
+    @Benchmark
+    public void tokenization(Blackhole blackhole) {
+        for (var output : outputs) {
+            reset(output);
+            blackhole.consume(buffer);
+        }
+    }
+
+    @Benchmark
+    public void tokenizationWithValidation(Blackhole blackhole) {
+        for (var output : outputs)
+            blackhole.consume(buffer.resetIfValid(output.symbols, output.symbols.length));
+    }
+
+    @Benchmark
+    public void structure(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            blackhole.consume(parseStructure(buffer, output.wordLength));
+        }
+    }
+
+    @Benchmark
+    public void baseForm(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            var structure = parseStructure(buffer, output.wordLength);
+            blackhole.consume(parseBaseform(buffer, structure));
+        }
+    }
+
+    @Benchmark
+    public void baseFormParts(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            blackhole.consume(parseBaseFormParts(buffer, wordParser));
+        }
+    }
+
+    @Benchmark
+    public void wordParsing(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            blackhole.consume(wordParser.parseWord(buffer));
+        }
+    }
+
+    @Benchmark
+    public void basicAttributes(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            attributes.parse(buffer);
+            blackhole.consume(attributes.getWordClass());
+        }
+    }
+
+    @Benchmark
+    public void fstOutput(Blackhole blackhole) {
+        for (var output : validOutputs) {
+            reset(output);
+            blackhole.consume(buffer.fullContents());
+        }
+    }
+
+    private void reset(Output output) {
+        buffer.reset(output.symbols, output.symbols.length);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.benchmark.BenchmarkWords;
+import fi.evident.raudikko.internal.fst.Symbol;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TransducerCallback;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares validating complete transducer outputs to validating them incrementally during traversal.
+ * Besides throughput, reports per operation how many outputs reached the callback, how many of them
+ * were valid and how many transitions were pruned by the validator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationPruningBenchmark {
+
+    @Param({"after-traversal", "during-traversal"})
+    public String validation;
+
+    private Transducer transducer;
+    private List<String> words;
+    private final List<Symbol> inputBuffer = new ArrayList<>(2000);
+    private final Symbol[] output = new Symbol[2000];
+    private final TraversalStack stack = new TraversalStack(2000);
+    private final SymbolBuffer buffer = new SymbolBuffer(2000);
+    private short[] flags;
+    private Counters counters;
+    private final TransducerCallback callback = depth -> {
+        counters.outputs++;
+        if (buffer.resetIfValid(output, depth))
+            counters.validOutputs++;
+        return true;
+    };
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long outputs;
+        public long validOutputs;
+        public long prunedTransitions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputs = 0;
+            validOutputs = 0;
+            prunedTransitions = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        try (var in = Transducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (in == null) throw new FileNotFoundException("could not load morphology");
+            transducer = UnweightedVfstLoader.loadCompact(in);
+        }
+
+        flags = new short[transducer.flagDiacriticFeatureCount];
+        words = BenchmarkWords.syntheticCorpus(20_000);
+    }
+
+    @Benchmark
+    public void transduce(Counters counters) {
+        this.counters = counters;
+        var filter = validation.equals("during-traversal") ? Validator.FILTER : null;
+        long prunedBefore = stack.getPrunedTransitions();
+
+        for (var word : words)
+            transducer.transduce(word, inputBuffer, flags, output, stack, filter, callback);
+
+        counters.prunedTransitions += stack.getPrunedTransitions() - prunedBefore;
+    }
+}
@@ -33,6 +33,8 @@
 package fi.evident.raudikko;
 
 import fi.evident.raudikko.analysis.*;
+import fi.evident.raudikko.internal.morphology.AnalysisAccess;
+import fi.evident.raudikko.internal.morphology.LazyAnalysisFields;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -40,13 +42,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static fi.evident.raudikko.internal.morphology.LazyAnalysisFields.*;
+import static java.util.Objects.requireNonNull;
+
 /**
  * Result of analyzing a word.
  * <p>
  * Note that some of the properties are named in English and some are in Finnish.
  * This is for naming compatibility with Voikko.
  */
-public final class Analysis implements Cloneable {
+public final class Analysis implements AnalysisView, Cloneable {
 
     private @Nullable String baseForm;
     private @Nullable WordClass wordClass;
@@ -68,12 +73,31 @@ public final class Analysis implements Cloneable {
     private @Nullable Mood requireFollowingVerb;
     private @Nullable List<String> baseFormParts;
     private @Nullable Word word;
+    private boolean frozen = false;
+
+    // Properties that have not been computed yet, and the fields to compute them from
+    private int pending = 0;
+    private @Nullable LazyAnalysisFields lazyFields;
+
+    static {
+        AnalysisAccess.register(new AnalysisAccess() {
+            @Override
+            protected void setLazyFields(@NotNull Analysis analysis, @NotNull LazyAnalysisFields fields, int properties) {
+                analysis.lazyFields = fields;
+                analysis.pending = properties;
+            }
+        });
+    }
 
     public @Nullable String getBaseForm() {
+        if (isPending(BASE_FORM))
+            baseForm = resolve(BASE_FORM).baseForm();
         return baseForm;
     }
 
     public void setBaseForm(@Nullable String baseForm) {
+        checkMutable();
+        pending &= ~BASE_FORM;
         this.baseForm = baseForm;
     }
 
@@ -82,6 +106,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setWordClass(@Nullable WordClass wordClass) {
+        checkMutable();
         this.wordClass = wordClass;
     }
 
@@ -90,6 +115,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setLocative(@Nullable Locative locative) {
+        checkMutable();
         this.locative = locative;
     }
 
@@ -98,6 +124,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setNumber(@Nullable GrammaticalNumber number) {
+        checkMutable();
         this.number = number;
     }
 
@@ -106,6 +133,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setComparison(@Nullable Comparison comparison) {
+        checkMutable();
         this.comparison = comparison;
     }
 
@@ -114,22 +142,31 @@ public final class Analysis implements Cloneable {
     }
 
     public void setFocus(@Nullable FocusParticle focus) {
+        checkMutable();
         this.focus = focus;
     }
 
     public @Nullable String getFstOutput() {
+        if (isPending(FST_OUTPUT))
+            fstOutput = resolve(FST_OUTPUT).fstOutput();
         return fstOutput;
     }
 
     public void setFstOutput(@Nullable String fstOutput) {
+        checkMutable();
+        pending &= ~FST_OUTPUT;
         this.fstOutput = fstOutput;
     }
 
     public @Nullable Structure getStructure() {
+        if (isPending(STRUCTURE))
+            structure = resolve(STRUCTURE).structure();
         return structure;
     }
 
     public void setStructure(@Nullable Structure structure) {
+        checkMutable();
+        pending &= ~STRUCTURE;
         this.structure = structure;
     }
 
@@ -138,6 +175,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setMood(@Nullable Mood mood) {
+        checkMutable();
         this.mood = mood;
     }
 
@@ -146,6 +184,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setParticiple(@Nullable Participle participle) {
+        checkMutable();
         this.participle = participle;
     }
 
@@ -154,6 +193,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setNegative(@Nullable Negative negative) {
+        checkMutable();
         this.negative = negative;
     }
 
@@ -162,6 +202,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setInterrogative(boolean interrogative) {
+        checkMutable();
         this.interrogative = interrogative;
     }
 
@@ -170,6 +211,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setPerson(@Nullable Person person) {
+        checkMutable();
         this.person = person;
     }
 
@@ -178,6 +220,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setPossessive(@Nullable Possessive possessive) {
+        checkMutable();
         this.possessive = possessive;
     }
 
@@ -186,6 +229,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setTense(@Nullable Tense tense) {
+        checkMutable();
         this.tense = tense;
     }
 
@@ -194,6 +238,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setMalagaVapaaJalkiosa(boolean malagaVapaaJalkiosa) {
+        checkMutable();
         this.malagaVapaaJalkiosa = malagaVapaaJalkiosa;
     }
 
@@ -202,6 +247,7 @@ public final class Analysis implements Cloneable {
     }
 
     public void setPossibleGeographicalName(boolean possibleGeographicalName) {
+        checkMutable();
         this.possibleGeographicalName = possibleGeographicalName;
     }
 
@@ -210,46 +256,101 @@ public final class Analysis implements Cloneable {
     }
 
     public void setRequireFollowingVerb(@Nullable Mood requireFollowingVerb) {
+        checkMutable();
         this.requireFollowingVerb = requireFollowingVerb;
     }
 
     public void setBaseFormParts(@Nullable List<String> baseFormParts) {
+        checkMutable();
+        pending &= ~BASE_FORM_PARTS;
         this.baseFormParts = baseFormParts;
     }
 
     public @Nullable List<String> getBaseFormParts() {
+        if (isPending(BASE_FORM_PARTS))
+            baseFormParts = resolve(BASE_FORM_PARTS).baseFormParts();
         return baseFormParts;
     }
 
     public void setWord(@Nullable Word word) {
+        checkMutable();
+        pending &= ~WORD;
         this.word = word;
     }
 
     public @Nullable Word getWord() {
+        if (isPending(WORD))
+            word = resolve(WORD).word();
         return word;
     }
 
+    /**
+     * Returns a mutable copy of this analysis.
+     */
     @Override
     public @NotNull Analysis clone() {
         try {
-            return (Analysis) super.clone();
+            var copy = (Analysis) super.clone();
+            copy.frozen = false;
+            return copy;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError(e);
         }
     }
 
+    /**
+     * Returns true if this analysis is read-only. Analyses shared between callers, for example
+     * by a caching analyzer, are read-only and throw {@link UnsupportedOperationException} if modified.
+     * Use {@link #clone()} to get a mutable copy.
+     */
+    public boolean isReadOnly() {
+        return frozen;
+    }
+
+    /**
+     * Makes this analysis read-only. Lazy properties are computed first, so that
+     * the analysis can be safely shared between threads.
+     */
+    void freeze() {
+        getBaseForm();
+        getStructure();
+        getFstOutput();
+        getWord();
+        if (getBaseFormParts() != null)
+            baseFormParts = List.copyOf(baseFormParts);
+        frozen = true;
+    }
+
+    private boolean isPending(int property) {
+        return (pending & property) != 0;
+    }
+
+    private @NotNull LazyAnalysisFields resolve(int property) {
+        var fields = requireNonNull(lazyFields);
+        pending &= ~property;
+        if (pending == 0)
+            lazyFields = null;
+        return fields;
+    }
+
+    private void checkMutable() {
+        if (frozen)
+            throw new UnsupportedOperationException("analysis is read-only");
+    }
+
     /**
      * Converts the results of the analysis in same kind of dictionary that Voikko returns.
      */
     public @NotNull Map<String, String> toVoikkoFormat() {
         Map<String, String> map = new HashMap<>();
 
-        putIfNotNull(map, "BASEFORM", baseForm);
+        putIfNotNull(map, "BASEFORM", getBaseForm());
         putIfNotNull(map, "CLASS", wordClass);
         putIfNotNull(map, "SIJAMUOTO", locative);
         putIfNotNull(map, "COMPARISON", comparison);
         putIfNotNull(map, "FOCUS", focus);
-        putIfNotNull(map, "FSTOUTPUT", fstOutput);
+        putIfNotNull(map, "FSTOUTPUT", getFstOutput());
+        var structure = getStructure();
         putIfNotNull(map, "STRUCTURE", structure != null ? structure.toString() : null);
         putIfNotNull(map, "NUMBER", number);
         putIfNotNull(map, "NEGATIVE", negative);
@@ -284,13 +385,13 @@ public final class Analysis implements Cloneable {
     @Override
     public String toString() {
         return "{" +
-                "baseForm='" + baseForm + '\'' +
+                "baseForm='" + getBaseForm() + '\'' +
                 ", wordClass='" + wordClass + '\'' +
                 ", sijamuoto='" + locative + '\'' +
                 ", comparison='" + comparison + '\'' +
                 ", focus='" + focus + '\'' +
-                ", fstOutput='" + fstOutput + '\'' +
-                ", structure='" + structure + '\'' +
+                ", fstOutput='" + getFstOutput() + '\'' +
+                ", structure='" + getStructure() + '\'' +
                 ", number='" + number + '\'' +
                 ", negative='" + negative + '\'' +
                 ", mood='" + mood + '\'' +
@@ -302,7 +403,7 @@ public final class Analysis implements Cloneable {
                 ", malagaVapaaJalkiosa=" + malagaVapaaJalkiosa +
                 ", possibleGeographicalName=" + possibleGeographicalName +
                 ", requireFollowingVerb='" + requireFollowingVerb + '\'' +
-                ", baseFormParts='" + baseFormParts + '\'' +
+                ", baseFormParts='" + getBaseFormParts() + '\'' +
                 '}';
     }
 }
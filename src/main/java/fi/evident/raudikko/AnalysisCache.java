@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import fi.evident.raudikko.internal.utils.BoundedCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Bounded cache of analysis results, used by analyzers created with
+ * {@link Morphology#newCachingAnalyzer(AnalysisCache)}.
+ * <p>
+ * Entries are keyed by the lower-cased word and the {@link AnalyzerConfiguration} of the analyzer,
+ * so a single cache may be shared by analyzers with different configurations, as long as they
+ * use the same {@link Morphology}. This class is thread-safe.
+ */
+public final class AnalysisCache {
+
+    private final @NotNull BoundedCache<Key, List<?>> cache;
+
+    /**
+     * Creates a new cache with given capacity using {@link EvictionPolicy#LRU}.
+     */
+    public AnalysisCache(int capacity) {
+        this(capacity, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates a new cache holding results for at most {@code capacity} words.
+     */
+    public AnalysisCache(int capacity, @NotNull EvictionPolicy policy) {
+        this.cache = new BoundedCache<>(capacity, switch (policy) {
+            case LRU -> BoundedCache.Policy.LRU;
+            case TINY_LFU -> BoundedCache.Policy.TINY_LFU;
+        });
+    }
+
+    /**
+     * Returns the number of lookups that found a cached result.
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached result.
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * Returns the number of entries evicted from the cache to make room for new ones.
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * Returns the number of entries currently in the cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all entries from the cache. Statistics are not reset.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    @Nullable List<?> get(@NotNull Key key) {
+        return cache.get(key);
+    }
+
+    void put(@NotNull Key key, @NotNull List<?> value) {
+        cache.put(key, value);
+    }
+
+    record Key(int configuration, @NotNull String word) {
+    }
+
+    /**
+     * Determines which entry is dropped when the cache is full.
+     */
+    public enum EvictionPolicy {
+
+        /**
+         * Evict the least recently used entry.
+         */
+        LRU,
+
+        /**
+         * Keep entries that are used most frequently, as estimated by a compact frequency sketch.
+         * New words are admitted to the bulk of the cache only if they are used more often than the
+         * entry they would replace, which protects the cache from one-off words. Usually gives a
+         * better hit rate than {@link #LRU} for natural language.
+         */
+        TINY_LFU
+    }
+}
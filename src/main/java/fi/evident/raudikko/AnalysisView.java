@@ -0,0 +1,92 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import fi.evident.raudikko.analysis.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read-only view of a single interpretation of a word.
+ * <p>
+ * {@link Analysis} is the materialized implementation of this interface. The views passed
+ * to an {@link AnalysisVisitor} are only valid during the call and must not be retained:
+ * use {@link Analyzer#analyze(CharSequence)} to get results that can be kept around.
+ *
+ * @see Analysis
+ */
+public interface AnalysisView {
+
+    /**
+     * Returns the base form of the word. If the view is only valid during a visit,
+     * so is the returned sequence.
+     */
+    @Nullable CharSequence getBaseForm();
+
+    @Nullable WordClass getWordClass();
+
+    @Nullable Locative getLocative();
+
+    @Nullable GrammaticalNumber getNumber();
+
+    @Nullable Comparison getComparison();
+
+    @Nullable FocusParticle getFocus();
+
+    /**
+     * Returns the raw output of the transducer. If the view is only valid during a visit,
+     * so is the returned sequence.
+     */
+    @Nullable CharSequence getFstOutput();
+
+    @Nullable Structure getStructure();
+
+    @Nullable Mood getMood();
+
+    @Nullable Participle getParticiple();
+
+    @Nullable Negative getNegative();
+
+    boolean isInterrogative();
+
+    @Nullable Person getPerson();
+
+    @Nullable Possessive getPossessive();
+
+    @Nullable Tense getTense();
+
+    boolean isMalagaVapaaJalkiosa();
+
+    boolean isPossibleGeographicalName();
+
+    @Nullable Mood getRequireFollowingVerb();
+}
@@ -35,7 +35,11 @@ package fi.evident.raudikko;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableList;
 
 /**
  * Interface implemented by morphological analyzer.
@@ -55,10 +59,74 @@ public interface Analyzer {
     /**
      * Analyze given word and return a list of possible interpretations.
      * <p>
-     * At most {@code maxResults} results are returned.
+     * At most {@code maxResults} results are returned. The results are the same as the first
+     * {@code maxResults} results returned by {@link #analyze(CharSequence)}, but the analysis stops
+     * as soon as enough results have been found, which is considerably faster for ambiguous words.
      */
     @NotNull List<Analysis> analyze(@NotNull CharSequence word, int maxResults);
 
+    /**
+     * Analyzes given word and passes each interpretation to given visitor, in the same order as
+     * {@link #analyze(CharSequence)} returns them, until the visitor returns {@code false}.
+     * <p>
+     * Implementations may pass views that are read directly from the internal state of the
+     * analyzer, in which case no objects are created for the interpretations. This is useful
+     * for high-volume callers that only need some of the attributes.
+     */
+    default void analyze(@NotNull CharSequence word, @NotNull AnalysisVisitor visitor) {
+        for (var analysis : analyze(word))
+            if (!visitor.visit(analysis))
+                break;
+    }
+
+    /**
+     * Analyzes given words and returns their analyses in the same order as the words.
+     * <p>
+     * Each distinct word is analyzed only once and all its occurrences share the same
+     * result list, which makes this considerably faster than analyzing the words one by
+     * one when the same words repeat, as they do in natural text.
+     * <p>
+     * Since the results are shared, the returned lists are unmodifiable and the analyses in them
+     * are read-only (see {@link Analysis#isReadOnly()}). Use {@link Analysis#clone()} to get a mutable
+     * copy. Lazy properties of the analyses are computed before returning.
+     */
+    default @NotNull List<List<Analysis>> analyzeAll(@NotNull List<? extends CharSequence> words) {
+        return analyzeAll(words, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Analyzes given words and returns their analyses in the same order as the words.
+     * <p>
+     * At most {@code maxResults} results are returned for each word.
+     *
+     * @see #analyzeAll(List)
+     */
+    default @NotNull List<List<Analysis>> analyzeAll(@NotNull List<? extends CharSequence> words, int maxResults) {
+        var resultsByWord = new HashMap<String, List<Analysis>>();
+        var results = new ArrayList<List<Analysis>>(words.size());
+
+        for (var word : words)
+            results.add(resultsByWord.computeIfAbsent(word.toString(), w -> {
+                var analyses = analyze(w, maxResults);
+                for (var analysis : analyses)
+                    analysis.freeze();
+                return unmodifiableList(analyses);
+            }));
+
+        return results;
+    }
+
+    /**
+     * Returns the estimated heap usage of the buffers this analyzer reuses between calls, in bytes,
+     * keyed by the name of the buffer. The sizes don't depend on the words analyzed.
+     * <p>
+     * Together with {@link Morphology#statistics()} this tells how much memory analyzers need
+     * besides their results. Analyzers without reusable buffers return an empty map.
+     */
+    default @NotNull Map<String, Long> getScratchBufferSizes() {
+        return Map.of();
+    }
+
     /**
      * Analyze given word and return a list of possible interpretations.
      */
@@ -32,6 +32,8 @@
 
 package fi.evident.raudikko;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * Default configuration includes sensible defaults (most of the analysis excluding expensive).
  * If this configuration is modified after constructing the analyzer the behaviour is undefined.
@@ -45,6 +47,26 @@ public final class AnalyzerConfiguration {
     private boolean includeFstOutput = true;
     private boolean includeBaseFormParts = true;
     private boolean includeWord = false;
+    private boolean lazy = false;
+    private boolean validateDuringTraversal = false;
+
+    public AnalyzerConfiguration() {
+    }
+
+    /**
+     * Creates a copy of given configuration.
+     */
+    public AnalyzerConfiguration(@NotNull AnalyzerConfiguration configuration) {
+        this.includeStructure = configuration.includeStructure;
+        this.includeBaseForm = configuration.includeBaseForm;
+        this.includeBasicAttributes = configuration.includeBasicAttributes;
+        this.includeOrganizationNameAnalysis = configuration.includeOrganizationNameAnalysis;
+        this.includeFstOutput = configuration.includeFstOutput;
+        this.includeBaseFormParts = configuration.includeBaseFormParts;
+        this.includeWord = configuration.includeWord;
+        this.lazy = configuration.lazy;
+        this.validateDuringTraversal = configuration.validateDuringTraversal;
+    }
 
     public boolean isIncludeStructure() {
         return includeStructure;
@@ -102,6 +124,49 @@ public final class AnalyzerConfiguration {
         this.includeWord = includeWord;
     }
 
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * If set, structure, base form, FST output, base form parts and word are not computed during
+     * the analysis, but when they are first accessed. This makes analysis considerably cheaper
+     * when only some of the results or properties are actually used, at the expense of keeping a
+     * copy of the transducer output in each analysis until all its properties have been computed.
+     * <p>
+     * Lazy analyses are not thread-safe until all properties have been accessed.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    public boolean isValidateDuringTraversal() {
+        return validateDuringTraversal;
+    }
+
+    /**
+     * If set, outputs are validated incrementally while the transducer is traversed, so that
+     * paths that can only produce invalid analyses are abandoned as soon as the output is known
+     * to be invalid. The analyses produced are the same either way.
+     */
+    public void setValidateDuringTraversal(boolean validateDuringTraversal) {
+        this.validateDuringTraversal = validateDuringTraversal;
+    }
+
+    /**
+     * Returns the current settings packed in a single value, used to tell apart cached
+     * analyses produced with different configurations.
+     */
+    int toBits() {
+        return (includeStructure ? 1 : 0)
+            | (includeBaseForm ? 1 << 1 : 0)
+            | (includeBasicAttributes ? 1 << 2 : 0)
+            | (includeOrganizationNameAnalysis ? 1 << 3 : 0)
+            | (includeFstOutput ? 1 << 4 : 0)
+            | (includeBaseFormParts ? 1 << 5 : 0)
+            | (includeWord ? 1 << 6 : 0);
+    }
+
     @Override
     public String toString() {
         return "AnalyzerConfiguration{" +
@@ -111,6 +176,8 @@ public final class AnalyzerConfiguration {
                 ", includeOrganizationNameAnalysis=" + includeOrganizationNameAnalysis +
                 ", includeFstOutput=" + includeFstOutput +
                 ", includeBaseFormParts=" + includeBaseFormParts +
+                ", lazy=" + lazy +
+                ", validateDuringTraversal=" + validateDuringTraversal +
                 '}';
     }
 }
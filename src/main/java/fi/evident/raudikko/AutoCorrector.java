@@ -0,0 +1,340 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import fi.evident.raudikko.internal.fst.Symbol;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TransducerCallback;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.internal.utils.StringUtils.isWordCharAt;
+import static java.lang.Character.isUpperCase;
+import static java.lang.Character.isWhitespace;
+import static java.lang.Character.toUpperCase;
+
+/**
+ * Replaces common misspellings with their corrections, using the autocorrection rules bundled
+ * with Voikko. For example, {@code "aiemin"} is corrected to {@code "aiemmin"} and
+ * {@code "ajan tasainen"} to {@code "ajantasainen"}.
+ * <p>
+ * Text is processed in a single pass from left to right. At each word, the longest phrase of
+ * at most {@value #MAX_PHRASE_WORDS} words that has a correction is replaced, words of the phrase
+ * being separated by any whitespace. Capitalization of the original is preserved: if the original
+ * starts with a capital letter, so does the correction, and all-caps originals produce all-caps
+ * corrections.
+ * <p>
+ * This class is thread-safe. Each call allocates a small amount of scratch space which is reused
+ * for all the words of the text.
+ */
+public final class AutoCorrector {
+
+    private final @NotNull Transducer transducer;
+
+    /** Longest phrase, in words, that is looked up */
+    static final int MAX_PHRASE_WORDS = 3;
+
+    private static final int MAX_OUTPUT_LENGTH = 200;
+    private static final @NotNull String BUNDLED_RULES = "/morpho/5/mor-morpho/autocorr.vfst";
+
+    private AutoCorrector(@NotNull Transducer transducer) {
+        this.transducer = transducer;
+    }
+
+    /**
+     * Loads the autocorrection rules bundled with the library.
+     */
+    public static @NotNull AutoCorrector loadBundled() {
+        var stream = AutoCorrector.class.getResourceAsStream(BUNDLED_RULES);
+        if (stream == null)
+            throw new IllegalStateException("Failed to find bundled autocorrection rules");
+
+        try (stream) {
+            return load(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load bundled autocorrection rules", e);
+        }
+    }
+
+    /**
+     * Loads autocorrection rules from given VFST-file.
+     */
+    public static @NotNull AutoCorrector load(@NotNull Path path) throws IOException {
+        try (var stream = Files.newInputStream(path)) {
+            return load(stream);
+        }
+    }
+
+    private static @NotNull AutoCorrector load(@NotNull InputStream stream) throws IOException {
+        return new AutoCorrector(UnweightedVfstLoader.loadCompact(stream));
+    }
+
+    /**
+     * Returns given text with all misspellings replaced by their corrections.
+     */
+    public @NotNull String correct(@NotNull CharSequence text) {
+        var sb = new StringBuilder(text.length());
+        try {
+            correct(text, sb);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder threw IOException", e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes given text to {@code out} with all misspellings replaced by their corrections.
+     * The text is written as it's processed, without buffering the whole result.
+     */
+    public void correct(@NotNull CharSequence text, @NotNull Appendable out) throws IOException {
+        var written = new int[]{0};
+        try {
+            scan(text, (start, end, replacement) -> {
+                try {
+                    out.append(text, written[0], start).append(replacement);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0] = end;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.append(text, written[0], text.length());
+    }
+
+    /**
+     * Returns the corrections for given text, in the order they appear in the text.
+     */
+    public @NotNull List<Correction> findCorrections(@NotNull CharSequence text) {
+        var corrections = new ArrayList<Correction>();
+        scan(text, (start, end, replacement) ->
+            corrections.add(new Correction(start, end, text.subSequence(start, end).toString(), replacement.toString())));
+        return corrections;
+    }
+
+    private void scan(@NotNull CharSequence text, @NotNull CorrectionConsumer consumer) {
+        var scratch = new Scratch(transducer);
+        var wordEnds = new int[MAX_PHRASE_WORDS];
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            if (!isWordCharAt(text, i)) {
+                i++;
+                continue;
+            }
+
+            // Find the ends of the words following this one, as long as they are separated by whitespace only
+            int words = 0;
+            int end = i;
+            while (words < MAX_PHRASE_WORDS) {
+                while (end < length && isWordCharAt(text, end))
+                    end++;
+                wordEnds[words++] = end;
+
+                int next = end;
+                while (next < length && isWhitespace(text.charAt(next)))
+                    next++;
+                if (next == end || next == length || !isWordCharAt(text, next))
+                    break;
+                end = next;
+            }
+
+            // Prefer the longest phrase that has a correction
+            int matchedEnd = -1;
+            for (int w = words; w > 0 && matchedEnd == -1; w--)
+                if (scratch.lookup(text, i, wordEnds[w - 1]))
+                    matchedEnd = wordEnds[w - 1];
+
+            if (matchedEnd != -1) {
+                var replacement = scratch.replacement;
+                restoreCase(text, i, matchedEnd, replacement);
+                if (!contentEquals(text, i, matchedEnd, replacement))
+                    consumer.accept(i, matchedEnd, replacement);
+                i = matchedEnd;
+            } else {
+                i = wordEnds[0];
+            }
+        }
+    }
+
+    private static void restoreCase(@NotNull CharSequence text, int start, int end, @NotNull StringBuilder replacement) {
+        if (replacement.isEmpty() || !isUpperCase(text.charAt(start)))
+            return;
+
+        boolean allCaps = end - start > 1;
+        for (int i = start; i < end && allCaps; i++)
+            allCaps = !Character.isLowerCase(text.charAt(i));
+
+        if (allCaps) {
+            for (int i = 0; i < replacement.length(); i++)
+                replacement.setCharAt(i, toUpperCase(replacement.charAt(i)));
+        } else {
+            replacement.setCharAt(0, toUpperCase(replacement.charAt(0)));
+        }
+    }
+
+    private static boolean contentEquals(@NotNull CharSequence text, int start, int end, @NotNull CharSequence s) {
+        if (end - start != s.length())
+            return false;
+        for (int i = 0; i < s.length(); i++)
+            if (text.charAt(start + i) != s.charAt(i))
+                return false;
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface CorrectionConsumer {
+        void accept(int start, int end, @NotNull CharSequence replacement);
+    }
+
+    /**
+     * Buffers used for looking up phrases, allocated once for each text.
+     */
+    private static final class Scratch {
+
+        private final @NotNull Transducer transducer;
+        private final @NotNull List<Symbol> inputBuffer = new ArrayList<>();
+        private final @NotNull Symbol[] output = new Symbol[MAX_OUTPUT_LENGTH];
+        private final @NotNull TraversalStack stack = new TraversalStack(MAX_OUTPUT_LENGTH);
+        private final short[] flags;
+        private final @NotNull StringBuilder phrase = new StringBuilder();
+        private final @NotNull StringBuilder replacement = new StringBuilder();
+        private final @NotNull TransducerCallback collector = this::collect;
+        private boolean found;
+
+        Scratch(@NotNull Transducer transducer) {
+            this.transducer = transducer;
+            this.flags = new short[transducer.flagDiacriticFeatureCount];
+        }
+
+        /**
+         * Looks up the correction for given range of text, normalizing whitespace between words
+         * to single spaces. If there is a correction, returns true and leaves it in {@link #replacement}.
+         */
+        boolean lookup(@NotNull CharSequence text, int start, int end) {
+            phrase.setLength(0);
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (!isWhitespace(c))
+                    phrase.append(c);
+                else if (phrase.charAt(phrase.length() - 1) != ' ')
+                    phrase.append(' ');
+            }
+
+            found = false;
+            transducer.transduce(phrase, inputBuffer, flags, output, stack, collector);
+            return found;
+        }
+
+        private boolean collect(int depth) {
+            replacement.setLength(0);
+            for (int i = 0; i < depth; i++)
+                if (!output[i].isDiacritic())
+                    replacement.append(output[i]);
+
+            found = true;
+            return false;
+        }
+    }
+
+    /**
+     * Correction of a misspelling found in a text.
+     */
+    public static final class Correction {
+
+        private final int startIndex;
+        private final int endIndex;
+        private final @NotNull String original;
+        private final @NotNull String replacement;
+
+        Correction(int startIndex, int endIndex, @NotNull String original, @NotNull String replacement) {
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.original = original;
+            this.replacement = replacement;
+        }
+
+        /**
+         * Returns the index of the first character of the misspelling in the text.
+         */
+        public int getStartIndex() {
+            return startIndex;
+        }
+
+        /**
+         * Returns the index following the last character of the misspelling in the text.
+         */
+        public int getEndIndex() {
+            return endIndex;
+        }
+
+        public @NotNull String getOriginal() {
+            return original;
+        }
+
+        public @NotNull String getReplacement() {
+            return replacement;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            return obj instanceof Correction c
+                && startIndex == c.startIndex
+                && endIndex == c.endIndex
+                && original.equals(c.original)
+                && replacement.equals(c.replacement);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * startIndex + endIndex) + replacement.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return original + " -> " + replacement + " [" + startIndex + ", " + endIndex + ")";
+        }
+    }
+}
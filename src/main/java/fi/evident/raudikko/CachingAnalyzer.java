@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Thread-safe {@link Analyzer} that looks up results from {@link AnalysisCache} before analyzing.
+ * <p>
+ * Since the transducer ignores case, results are cached by the lower-cased word. The cached
+ * analyses are read-only, so they can be returned to multiple callers without copying.
+ */
+final class CachingAnalyzer implements Analyzer {
+
+    private final @NotNull Analyzer delegate;
+    private final @NotNull AnalysisCache cache;
+    private final int configuration;
+
+    /**
+     * Base forms don't depend on configuration, so they are cached using a key that no configuration maps to.
+     */
+    private static final int BASE_FORMS = -1;
+
+    CachingAnalyzer(@NotNull Analyzer delegate, @NotNull AnalyzerConfiguration configuration, @NotNull AnalysisCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.configuration = configuration.toBits();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull List<Analysis> analyze(@NotNull CharSequence word, int maxResults) {
+        if (maxResults <= 0)
+            return List.of();
+
+        var key = new AnalysisCache.Key(configuration, lowerCase(word));
+
+        var analyses = (List<Analysis>) cache.get(key);
+        if (analyses == null) {
+            var results = delegate.analyze(word);
+            for (var analysis : results)
+                analysis.freeze();
+
+            analyses = List.copyOf(results);
+            cache.put(key, analyses);
+        }
+
+        return maxResults < analyses.size() ? analyses.subList(0, maxResults) : analyses;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull List<String> baseForms(@NotNull CharSequence word) {
+        var key = new AnalysisCache.Key(BASE_FORMS, lowerCase(word));
+
+        var baseForms = (List<String>) cache.get(key);
+        if (baseForms == null) {
+            baseForms = List.copyOf(delegate.baseForms(word));
+            cache.put(key, baseForms);
+        }
+
+        return baseForms;
+    }
+
+    @Override
+    public @NotNull Map<String, Long> getScratchBufferSizes() {
+        return delegate.getScratchBufferSizes();
+    }
+
+    /**
+     * Lower-cases the word character by character, exactly like the transducer does.
+     */
+    private static @NotNull String lowerCase(@NotNull CharSequence word) {
+        var chars = new char[word.length()];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = toLowerCase(word.charAt(i));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes large amounts of words using multiple threads.
+ * <p>
+ * Words are read in batches on the calling thread and the batches are analyzed in parallel using
+ * the executor given when creating this analyzer, each worker reusing analyzers from a shared pool.
+ * The results are passed to the consumer on the calling thread, so the consumer does not need to
+ * be thread-safe. The number of batches in progress is bounded, so arbitrarily large corpora can
+ * be processed in constant memory.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class CorpusAnalyzer {
+
+    private final @NotNull Analyzer analyzer;
+    private final @NotNull Executor executor;
+    private final int maxPendingBatches;
+
+    private static final int BATCH_SIZE = 1000;
+
+    CorpusAnalyzer(@NotNull Analyzer analyzer, @NotNull Executor executor, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("invalid parallelism: " + parallelism);
+
+        this.analyzer = analyzer;
+        this.executor = executor;
+        this.maxPendingBatches = 2 * parallelism;
+    }
+
+    /**
+     * Analyzes given words, passing each word and its analyses to the consumer. Occurrences of the
+     * same word may share the same unmodifiable list of read-only analyses, see {@link Analyzer#analyzeAll(List)}.
+     *
+     * @param preserveOrder if true, results are passed in the order of the words, otherwise in the order
+     *                      they are completed, which avoids waiting for slow batches
+     */
+    public void analyze(@NotNull Stream<? extends CharSequence> words,
+                        boolean preserveOrder,
+                        @NotNull BiConsumer<String, List<Analysis>> consumer) throws InterruptedException {
+        analyze(words.iterator(), preserveOrder, consumer);
+    }
+
+    /**
+     * Analyzes given words, passing each word and its analyses to the consumer. Occurrences of the
+     * same word may share the same unmodifiable list of read-only analyses, see {@link Analyzer#analyzeAll(List)}.
+     *
+     * @param preserveOrder if true, results are passed in the order of the words, otherwise in the order
+     *                      they are completed, which avoids waiting for slow batches
+     */
+    public void analyze(@NotNull Iterator<? extends CharSequence> words,
+                        boolean preserveOrder,
+                        @NotNull BiConsumer<String, List<Analysis>> consumer) throws InterruptedException {
+        var completionService = preserveOrder ? null : new ExecutorCompletionService<Batch>(executor);
+        var pending = new ArrayDeque<Future<Batch>>(maxPendingBatches);
+
+        try {
+            while (words.hasNext()) {
+                var batch = new Batch(nextBatch(words));
+
+                if (completionService != null) {
+                    pending.add(completionService.submit(() -> batch.analyze(analyzer)));
+                } else {
+                    var task = new FutureTask<>(() -> batch.analyze(analyzer));
+                    executor.execute(task);
+                    pending.add(task);
+                }
+
+                if (pending.size() >= maxPendingBatches)
+                    deliver(nextCompleted(pending, completionService), consumer);
+            }
+
+            while (!pending.isEmpty())
+                deliver(nextCompleted(pending, completionService), consumer);
+
+        } finally {
+            for (var future : pending)
+                future.cancel(true);
+        }
+    }
+
+    private static @NotNull List<String> nextBatch(@NotNull Iterator<? extends CharSequence> words) {
+        var batch = new ArrayList<String>(BATCH_SIZE);
+        while (batch.size() < BATCH_SIZE && words.hasNext())
+            batch.add(words.next().toString());
+        return batch;
+    }
+
+    private static @NotNull Batch nextCompleted(@NotNull ArrayDeque<Future<Batch>> pending,
+                                                @Nullable ExecutorCompletionService<Batch> completionService) throws InterruptedException {
+        Future<Batch> future;
+        if (completionService != null) {
+            future = completionService.take();
+            pending.remove(future);
+        } else {
+            future = pending.remove();
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException r)
+                throw r;
+            if (cause instanceof Error error)
+                throw error;
+            throw new IllegalStateException("analysis failed", cause);
+        }
+    }
+
+    private static void deliver(@NotNull Batch batch, @NotNull BiConsumer<String, List<Analysis>> consumer) {
+        var results = batch.results;
+        for (int i = 0; i < batch.words.size(); i++)
+            consumer.accept(batch.words.get(i), results.get(i));
+    }
+
+    private static final class Batch {
+        final @NotNull List<String> words;
+        List<List<Analysis>> results;
+
+        Batch(@NotNull List<String> words) {
+            this.words = words;
+        }
+
+        @NotNull Batch analyze(@NotNull Analyzer analyzer) {
+            results = analyzer.analyzeAll(words);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Generates the inflected forms of words, e.g. for expanding search queries.
+ * <p>
+ * The implementations of this instance are <em>not thread-safe</em> unless explicitly noted
+ * by the implementation.
+ */
+public interface Generator {
+
+    /**
+     * Returns all inflected forms of the word having given base form.
+     *
+     * @see #generate(CharSequence, Inflection)
+     */
+    default @NotNull List<String> generate(@NotNull CharSequence baseForm) {
+        return generate(baseForm, new Inflection());
+    }
+
+    /**
+     * Returns the inflected forms of the word having given base form and the attributes of given inflection,
+     * such as {@code "kissoissa"} for {@code "kissa"} in plural inessive.
+     * <p>
+     * Only the forms of the word itself are produced: compound words, derivations and forms with clitics
+     * like {@code -kin} are not included. The base form is matched ignoring case and the forms are written
+     * in their standard capitalization, so that the forms of {@code "helsinki"} include {@code "Helsingissä"}.
+     * Each form is included once, even if it has several matching analyses.
+     * <p>
+     * The work done for a single base form is bounded to protect against malformed morphologies. If the
+     * bound is reached, the forms found so far are returned.
+     */
+    @NotNull List<String> generate(@NotNull CharSequence baseForm, @NotNull Inflection inflection);
+}
@@ -0,0 +1,165 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import fi.evident.raudikko.analysis.Structure;
+import fi.evident.raudikko.internal.morphology.FinnishHyphenation;
+import fi.evident.raudikko.internal.utils.BoundedCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import static fi.evident.raudikko.internal.utils.StringUtils.isWordCharAt;
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Finds the points where words can be hyphenated.
+ * <p>
+ * Words are hyphenated at compound boundaries given by their analyses and between syllables
+ * within the parts of compounds. The hyphenation patterns of words are cached, so hyphenating
+ * the same words repeatedly, like when typesetting natural text, is cheap.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class Hyphenator {
+
+    private final @NotNull Analyzer analyzer;
+    private final @Nullable BoundedCache<String, String> cache;
+
+    Hyphenator(@NotNull Analyzer analyzer, int cacheCapacity) {
+        if (cacheCapacity < 0)
+            throw new IllegalArgumentException("invalid cache capacity: " + cacheCapacity);
+
+        this.analyzer = analyzer;
+        this.cache = cacheCapacity > 0 ? new BoundedCache<>(cacheCapacity, BoundedCache.Policy.TINY_LFU) : null;
+    }
+
+    /**
+     * Returns the hyphenation pattern of given word: a string as long as the word, containing for each
+     * character of the word
+     * <ul>
+     *     <li>{@code ' '} if the word can't be hyphenated before the character</li>
+     *     <li>{@code '-'} if the word can be hyphenated before the character by inserting a hyphen</li>
+     *     <li>{@code '='} if the word can be hyphenated by replacing the character with a hyphen,
+     *     which is the case for hyphens and apostrophes</li>
+     * </ul>
+     * The patterns are the same as the ones returned by Voikko.
+     */
+    public @NotNull String getHyphenationPattern(@NotNull CharSequence word) {
+        if (cache == null)
+            return computePattern(word);
+
+        // Patterns don't depend on case, since the transducer ignores it
+        var key = lowerCase(word);
+        var pattern = cache.get(key);
+        if (pattern == null) {
+            pattern = computePattern(word);
+            cache.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Returns given word with hyphens inserted at all hyphenation points, e.g. {@code "kis-sa"}.
+     */
+    public @NotNull String hyphenate(@NotNull CharSequence word) {
+        return hyphenate(word, "-", true);
+    }
+
+    /**
+     * Returns given word with separator inserted at all hyphenation points.
+     *
+     * @param allowContextChanges whether to include the hyphenation points where a character of the word is
+     *                            replaced by the separator, like the apostrophe of {@code "vaa'an"}. This makes
+     *                            sense only if the separator is always visible, unlike a soft hyphen.
+     */
+    public @NotNull String hyphenate(@NotNull CharSequence word, @NotNull String separator, boolean allowContextChanges) {
+        return FinnishHyphenation.insertHyphens(word, getHyphenationPattern(word), separator, allowContextChanges);
+    }
+
+    /**
+     * Returns given text, like a paragraph, with separator inserted at all hyphenation points of its words.
+     * Characters outside words are copied as they are. Points where a character would be replaced are
+     * skipped, so the text stays the same if the separators are removed. This is meant for inserting
+     * soft hyphens (U+00AD) to text before typesetting.
+     * <p>
+     * Each distinct word of the text is hyphenated only once.
+     */
+    public @NotNull String hyphenateText(@NotNull CharSequence text, @NotNull String separator) {
+        var result = new StringBuilder(text.length() + text.length() / 4);
+        var hyphenatedWords = new HashMap<String, String>();
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordCharAt(text, i)) {
+                result.append(text.charAt(i++));
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < length && isWordCharAt(text, end))
+                end++;
+
+            var word = text.subSequence(i, end).toString();
+            result.append(hyphenatedWords.computeIfAbsent(word, w -> hyphenate(w, separator, false)));
+            i = end;
+        }
+
+        return result.toString();
+    }
+
+    private @NotNull String computePattern(@NotNull CharSequence word) {
+        // Different analyses often share the same structure
+        var structures = new LinkedHashSet<Structure>();
+        for (var analysis : analyzer.analyze(word)) {
+            var structure = analysis.getStructure();
+            if (structure != null)
+                structures.add(structure);
+        }
+
+        return FinnishHyphenation.hyphenationPattern(word, structures);
+    }
+
+    /**
+     * Lower-cases the word character by character, exactly like the transducer does.
+     */
+    private static @NotNull String lowerCase(@NotNull CharSequence word) {
+        var chars = new char[word.length()];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = toLowerCase(word.charAt(i));
+        return new String(chars);
+    }
+}
@@ -32,22 +32,48 @@
 
 package fi.evident.raudikko;
 
+import fi.evident.raudikko.internal.fst.BaseFormIndex;
+import fi.evident.raudikko.internal.fst.CompactTransducer;
+import fi.evident.raudikko.internal.fst.CompactTransducerSnapshot;
+import fi.evident.raudikko.internal.fst.Transducer;
 import fi.evident.raudikko.internal.fst.UnweightedTransducer;
 import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
+import fi.evident.raudikko.internal.morphology.ConcurrentAnalyzer;
+import fi.evident.raudikko.internal.morphology.FinnishGenerator;
+import fi.evident.raudikko.internal.morphology.FinnishSpellChecker;
+import fi.evident.raudikko.internal.morphology.FinnishSuggester;
 import fi.evident.raudikko.internal.morphology.FinnishVfstAnalyzer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Represents morphology rules. This class is immutable and can be shared between threads.
+ * Represents morphology rules. The rules never change after loading and this class is thread-safe,
+ * so it can be shared between threads. The only state that changes is the index used for generation,
+ * which is built once when the first {@link Generator} is created and shared by all generators.
  */
 public final class Morphology {
 
-    private final @NotNull UnweightedTransducer transducer;
+    private final @NotNull Transducer transducer;
 
-    private Morphology(@NotNull UnweightedTransducer transducer) {
+    /** Index for generating inflected forms, built when the first generator is created */
+    private volatile @Nullable BaseFormIndex baseFormIndex;
+
+    private static final @NotNull String BUNDLED_MORPHOLOGY = "/morpho/5/mor-morpho/mor.vfst";
+    private static final @NotNull String BUNDLED_SNAPSHOT = "/morpho/5/mor-morpho/mor.snapshot";
+
+    private Morphology(@NotNull Transducer transducer) {
         this.transducer = transducer;
     }
 
@@ -55,17 +81,164 @@ public final class Morphology {
      * Loads the morphology rules bundles with the library.
      */
     public static @NotNull Morphology loadBundled() {
-        var stream = Morphology.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst");
+        return loadBundled(Engine.OBJECT_GRAPH);
+    }
+
+    /**
+     * Returns the bundled morphology shared by the whole process, loading it on first call.
+     * <p>
+     * Unlike {@link #loadBundled()}, which loads a new copy of the morphology each time, all callers
+     * get the same instance. If the shared morphology is still being loaded, waits for it to finish.
+     *
+     * @see #sharedAsync()
+     */
+    public static @NotNull Morphology shared() {
+        try {
+            return SharedMorphology.FUTURE.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Starts loading the shared bundled morphology in a background thread, unless it's already loaded
+     * or being loaded, and returns a future completing with the same instance as {@link #shared()}.
+     * <p>
+     * Calling this early during startup allows overlapping the loading with other initialization.
+     * If loading fails, the future and all subsequent calls to {@link #shared()} fail with the same exception.
+     */
+    public static @NotNull CompletableFuture<Morphology> sharedAsync() {
+        return SharedMorphology.FUTURE.copy();
+    }
+
+    /**
+     * Loads the morphology rules bundles with the library using given engine.
+     * <p>
+     * With {@link Engine#COMPACT} the morphology is loaded from a precompiled snapshot if the
+     * library was built with one. The snapshot is not bundled by default, because it roughly
+     * doubles the size of the library. Applications that need fast loading can instead create
+     * a snapshot with {@link #writeSnapshot(Path)} and load it with {@link #loadSnapshot(Path)}.
+     */
+    public static @NotNull Morphology loadBundled(@NotNull Engine engine) {
+        if (engine == Engine.COMPACT) {
+            var snapshot = Morphology.class.getResourceAsStream(BUNDLED_SNAPSHOT);
+            if (snapshot != null) {
+                try (snapshot) {
+                    return loadSnapshot(snapshot);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to load bundled morphology snapshot", e);
+                }
+            }
+        }
+
+        var stream = Morphology.class.getResourceAsStream(BUNDLED_MORPHOLOGY);
         if (stream == null)
             throw new IllegalStateException("Failed to find bundled morphology");
 
         try (stream) {
-            return new Morphology(UnweightedVfstLoader.load(stream));
+            return new Morphology(switch (engine) {
+                case OBJECT_GRAPH -> UnweightedVfstLoader.load(stream);
+                case COMPACT -> UnweightedVfstLoader.loadCompact(stream);
+            });
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to load bundled morphology", e);
         }
     }
 
+    /**
+     * Loads the morphology rules from given VFST-file.
+     */
+    public static @NotNull Morphology load(@NotNull Path path) throws IOException {
+        return load(path, Engine.OBJECT_GRAPH);
+    }
+
+    /**
+     * Loads the morphology rules from given VFST-file using given engine.
+     */
+    public static @NotNull Morphology load(@NotNull Path path, @NotNull Engine engine) throws IOException {
+        try (var stream = Files.newInputStream(path)) {
+            return new Morphology(switch (engine) {
+                case OBJECT_GRAPH -> UnweightedVfstLoader.load(stream);
+                case COMPACT -> UnweightedVfstLoader.loadCompact(stream);
+            });
+        }
+    }
+
+    /**
+     * Loads the morphology rules from a snapshot created with {@link #writeSnapshot(Path)}.
+     * The snapshot always uses {@link Engine#COMPACT}.
+     */
+    public static @NotNull Morphology loadSnapshot(@NotNull Path path) throws IOException {
+        return new Morphology(CompactTransducerSnapshot.read(path));
+    }
+
+    /**
+     * Loads the morphology rules from a snapshot created with {@link #writeSnapshot(OutputStream)}.
+     * The snapshot always uses {@link Engine#COMPACT}.
+     */
+    public static @NotNull Morphology loadSnapshot(@NotNull InputStream stream) throws IOException {
+        return new Morphology(CompactTransducerSnapshot.read(stream));
+    }
+
+    /**
+     * Writes the morphology rules to given file as a snapshot that can be loaded with {@link #loadSnapshot(Path)}.
+     *
+     * @throws IllegalStateException if this morphology was not loaded using {@link Engine#COMPACT}
+     */
+    public void writeSnapshot(@NotNull Path path) throws IOException {
+        try (var out = Files.newOutputStream(path)) {
+            writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Writes the morphology rules to given stream as a snapshot that can be loaded with {@link #loadSnapshot(InputStream)}.
+     *
+     * @throws IllegalStateException if this morphology was not loaded using {@link Engine#COMPACT}
+     */
+    public void writeSnapshot(@NotNull OutputStream out) throws IOException {
+        if (!(transducer instanceof CompactTransducer compact))
+            throw new IllegalStateException("Only morphologies loaded using Engine.COMPACT can be written as snapshots");
+
+        CompactTransducerSnapshot.write(compact, out);
+    }
+
+    /**
+     * Maps the morphology rules of given VFST-file to memory.
+     * <p>
+     * Instead of building an in-memory representation, the transitions are read directly from the
+     * mapped file. This makes loading practically instant and allows all processes on the same host
+     * to share the same pages through operating system's page cache. Analysis is somewhat slower
+     * than with morphologies loaded to heap.
+     */
+    public static @NotNull Morphology mapped(@NotNull Path path) throws IOException {
+        return new Morphology(UnweightedVfstLoader.loadMapped(path));
+    }
+
+    /**
+     * Returns the size of this morphology: the number of states, transitions and symbols,
+     * and the estimated heap usage of its structures.
+     * <p>
+     * Counting states and transitions walks through the whole morphology, so this is
+     * meant for diagnostics rather than frequent use.
+     */
+    public @NotNull MorphologyStatistics statistics() {
+        var heapUsage = new LinkedHashMap<String, Long>();
+        transducer.estimateHeapUsage(heapUsage);
+
+        return new MorphologyStatistics(
+            transducer.getStateCount(),
+            transducer.getTransitionCount(),
+            transducer.getSymbolCount(),
+            transducer.flagDiacriticFeatureCount,
+            heapUsage,
+            transducer.getMappedBytes());
+    }
+
     /**
      * Create a new {@link Analyzer} for this morphology.
      * <p>
@@ -85,4 +258,188 @@ public final class Morphology {
     public @NotNull Analyzer newAnalyzer(@NotNull AnalyzerConfiguration configuration) {
         return new FinnishVfstAnalyzer(transducer, configuration);
     }
+
+    /**
+     * Create a new thread-safe {@link Analyzer} for this morphology.
+     * <p>
+     * The returned analyzer can be shared by any number of threads. It keeps a small pool of
+     * analyzers internally and borrows one for each call, so it does not use thread-locals and
+     * works well with virtual threads.
+     */
+    public @NotNull Analyzer newConcurrentAnalyzer() {
+        return newConcurrentAnalyzer(new AnalyzerConfiguration());
+    }
+
+    /**
+     * Create a new thread-safe {@link Analyzer} for this morphology.
+     *
+     * @see #newConcurrentAnalyzer()
+     */
+    public @NotNull Analyzer newConcurrentAnalyzer(@NotNull AnalyzerConfiguration configuration) {
+        return new ConcurrentAnalyzer(transducer, configuration, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new thread-safe {@link Analyzer} that caches its results in given cache.
+     * <p>
+     * Returned analyses are read-only (see {@link Analysis#isReadOnly()}), since the same instances
+     * are returned for all lookups of the same word.
+     */
+    public @NotNull Analyzer newCachingAnalyzer(@NotNull AnalysisCache cache) {
+        return newCachingAnalyzer(new AnalyzerConfiguration(), cache);
+    }
+
+    /**
+     * Create a new thread-safe {@link Analyzer} that caches its results in given cache.
+     * <p>
+     * The analyzer uses a copy of given configuration, so modifying the configuration afterwards
+     * does not affect the analyzer.
+     *
+     * @see #newCachingAnalyzer(AnalysisCache)
+     */
+    public @NotNull Analyzer newCachingAnalyzer(@NotNull AnalyzerConfiguration configuration, @NotNull AnalysisCache cache) {
+        // The cache key and the analyzers must agree on the configuration, so neither may see later changes
+        var copy = new AnalyzerConfiguration(configuration);
+        return new CachingAnalyzer(newConcurrentAnalyzer(copy), copy, cache);
+    }
+
+    /**
+     * Create a new {@link SpellChecker} for this morphology.
+     * <p>
+     * The spell checker is a mutable object that can be used repeatedly, but may not be
+     * shared between threads.
+     */
+    public @NotNull SpellChecker newSpellChecker() {
+        return new FinnishSpellChecker(transducer);
+    }
+
+    /**
+     * Create a new {@link Suggester} for this morphology.
+     * <p>
+     * The suggester is a mutable object that can be used repeatedly, but may not be
+     * shared between threads. Suggestions are supported only by {@link Engine#OBJECT_GRAPH}.
+     *
+     * @throws UnsupportedOperationException if the morphology uses another engine
+     */
+    public @NotNull Suggester newSuggester() {
+        return newSuggester(new SuggesterConfiguration());
+    }
+
+    /**
+     * Create a new {@link Suggester} for this morphology.
+     *
+     * @see #newSuggester()
+     */
+    public @NotNull Suggester newSuggester(@NotNull SuggesterConfiguration configuration) {
+        if (!(transducer instanceof UnweightedTransducer unweightedTransducer))
+            throw new UnsupportedOperationException("suggestions are only supported by the object graph engine");
+
+        return new FinnishSuggester(unweightedTransducer, configuration);
+    }
+
+    /**
+     * Create a new {@link Generator} for this morphology.
+     * <p>
+     * The generator is a mutable object that can be used repeatedly, but may not be shared between threads.
+     * Generation is supported only by {@link Engine#OBJECT_GRAPH}.
+     * <p>
+     * Creating the first generator builds an index of the base forms of the morphology, which takes
+     * a while and some memory. The index is shared by all generators of this morphology.
+     *
+     * @throws UnsupportedOperationException if the morphology uses another engine
+     */
+    public @NotNull Generator newGenerator() {
+        if (!(transducer instanceof UnweightedTransducer unweightedTransducer))
+            throw new UnsupportedOperationException("generation is only supported by the object graph engine");
+
+        var index = baseFormIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = baseFormIndex;
+                if (index == null)
+                    baseFormIndex = index = BaseFormIndex.build(unweightedTransducer);
+            }
+        }
+
+        return new FinnishGenerator(index);
+    }
+
+    /**
+     * Create a new thread-safe {@link Hyphenator} for this morphology, caching the results
+     * of the 10 000 most used words.
+     */
+    public @NotNull Hyphenator newHyphenator() {
+        return newHyphenator(10_000);
+    }
+
+    /**
+     * Create a new thread-safe {@link Hyphenator} for this morphology, caching the results
+     * of at most given number of words. If {@code cacheCapacity} is zero, nothing is cached.
+     */
+    public @NotNull Hyphenator newHyphenator(int cacheCapacity) {
+        var configuration = new AnalyzerConfiguration();
+        configuration.setIncludeBaseForm(false);
+        configuration.setIncludeBasicAttributes(false);
+        configuration.setIncludeOrganizationNameAnalysis(false);
+        configuration.setIncludeFstOutput(false);
+        configuration.setIncludeBaseFormParts(false);
+
+        return new Hyphenator(newConcurrentAnalyzer(configuration), cacheCapacity);
+    }
+
+    /**
+     * Create a new {@link CorpusAnalyzer} that analyzes words in parallel using the common {@link ForkJoinPool}.
+     */
+    public @NotNull CorpusAnalyzer newCorpusAnalyzer() {
+        var pool = ForkJoinPool.commonPool();
+        return newCorpusAnalyzer(new AnalyzerConfiguration(), pool, pool.getParallelism());
+    }
+
+    /**
+     * Create a new {@link CorpusAnalyzer} that analyzes words in parallel using given executor.
+     *
+     * @param parallelism number of threads of the executor that are expected to be used for analysis
+     */
+    public @NotNull CorpusAnalyzer newCorpusAnalyzer(@NotNull AnalyzerConfiguration configuration, @NotNull Executor executor, int parallelism) {
+        return new CorpusAnalyzer(new ConcurrentAnalyzer(transducer, configuration, parallelism), executor, parallelism);
+    }
+
+    /**
+     * In-memory representation used for the morphology. All engines produce identical
+     * results, but differ in their memory usage and performance.
+     */
+    public enum Engine {
+
+        /**
+         * Represents states and transitions as individual objects.
+         */
+        OBJECT_GRAPH,
+
+        /**
+         * Stores states and transitions in flat primitive arrays. Uses considerably less
+         * memory than {@link #OBJECT_GRAPH} and has better memory locality.
+         */
+        COMPACT
+    }
+
+    /**
+     * Holder for the shared morphology: the loading starts when the class is initialized,
+     * which happens once, on first use.
+     */
+    private static final class SharedMorphology {
+
+        static final @NotNull CompletableFuture<Morphology> FUTURE = new CompletableFuture<>();
+
+        static {
+            var thread = new Thread(() -> {
+                try {
+                    FUTURE.complete(loadBundled());
+                } catch (Throwable e) {
+                    FUTURE.completeExceptionally(e);
+                }
+            }, "raudikko-morphology-loader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
 }
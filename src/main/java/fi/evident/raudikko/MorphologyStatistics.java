@@ -0,0 +1,126 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Size of a loaded {@link Morphology}, returned by {@link Morphology#statistics()}.
+ * <p>
+ * Heap usage is estimated from the sizes of the structures assuming a 64-bit JVM with
+ * compressed references, which is the default for heaps smaller than 32 GB. The estimates
+ * are meant for sizing containers and for comparing the different {@link Morphology.Engine engines},
+ * so they don't account for JVM-specific details.
+ */
+public final class MorphologyStatistics {
+
+    private final int stateCount;
+    private final int transitionCount;
+    private final int symbolCount;
+    private final int flagDiacriticFeatureCount;
+    private final @NotNull Map<String, Long> heapUsage;
+    private final long mappedBytes;
+
+    MorphologyStatistics(int stateCount,
+                         int transitionCount,
+                         int symbolCount,
+                         int flagDiacriticFeatureCount,
+                         @NotNull Map<String, Long> heapUsage,
+                         long mappedBytes) {
+        this.stateCount = stateCount;
+        this.transitionCount = transitionCount;
+        this.symbolCount = symbolCount;
+        this.flagDiacriticFeatureCount = flagDiacriticFeatureCount;
+        this.heapUsage = Collections.unmodifiableMap(heapUsage);
+        this.mappedBytes = mappedBytes;
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public int getFlagDiacriticFeatureCount() {
+        return flagDiacriticFeatureCount;
+    }
+
+    /**
+     * Returns the estimated heap usage of each structure of the morphology in bytes, keyed by
+     * the name of the structure. The structures depend on the engine.
+     */
+    public @NotNull Map<String, Long> getHeapUsage() {
+        return heapUsage;
+    }
+
+    /**
+     * Returns the estimated total heap usage of the morphology in bytes.
+     */
+    public long getTotalHeapUsage() {
+        long total = 0;
+        for (long bytes : heapUsage.values())
+            total += bytes;
+        return total;
+    }
+
+    /**
+     * Returns the number of bytes mapped from a file outside the heap. Non-zero only for
+     * morphologies created with {@link Morphology#mapped(java.nio.file.Path)}.
+     */
+    public long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder();
+        sb.append("states: ").append(stateCount).append('\n');
+        sb.append("transitions: ").append(transitionCount).append('\n');
+        sb.append("symbols: ").append(symbolCount).append('\n');
+        sb.append("flag diacritic features: ").append(flagDiacriticFeatureCount).append('\n');
+        sb.append("estimated heap usage: ").append(getTotalHeapUsage()).append(" bytes\n");
+        heapUsage.forEach((structure, bytes) -> sb.append("  ").append(structure).append(": ").append(bytes).append(" bytes\n"));
+        if (mappedBytes != 0)
+            sb.append("mapped: ").append(mappedBytes).append(" bytes\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Checks the spelling of words.
+ * <p>
+ * The implementations of this instance are <em>not thread-safe</em> unless explicitly noted
+ * by the implementation.
+ */
+public interface SpellChecker {
+
+    /**
+     * Returns true if given word is correctly spelled.
+     * <p>
+     * The word is correct if it has at least one valid analysis whose capitalization agrees with the
+     * word, using the same rules as Voikko:
+     * <ul>
+     *     <li>words written in lower case must be written in lower case in the standard form,
+     *     so that {@code "helsinki"} is incorrect</li>
+     *     <li>words starting with a capital letter are always accepted if the rest of the word agrees,
+     *     so that words at the start of a sentence are correct</li>
+     *     <li>words written in all caps are accepted regardless of their standard form</li>
+     *     <li>words without any letters, such as numbers, only need a valid analysis, but punctuation
+     *     like {@code "%%%"} and the empty string are incorrect</li>
+     * </ul>
+     * This is considerably faster than checking whether {@link Analyzer#analyze(CharSequence)}
+     * returns any results, since the checking stops at the first acceptable analysis and
+     * no analysis objects are created.
+     */
+    boolean isCorrect(@NotNull CharSequence word);
+}
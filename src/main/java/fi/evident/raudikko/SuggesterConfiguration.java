@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration for {@link Suggester}. The search for suggestions is bounded both by the number of steps and by
+ * time, so that misspellings that are far from any word don't take disproportionately long. Suggesters use a copy
+ * of the configuration, so modifying it afterwards does not affect suggesters that have already been created.
+ */
+public final class SuggesterConfiguration {
+
+    private int maxSuggestions = 5;
+    private int maxEdits = 2;
+    private long searchBudget = 500_000;
+    private @NotNull Duration timeLimit = Duration.ofMillis(50);
+    private @NotNull Executor executor = ForkJoinPool.commonPool();
+    private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+    private int parallelMinWordLength = 12;
+
+    public SuggesterConfiguration() {
+    }
+
+    /**
+     * Creates a copy of given configuration.
+     */
+    public SuggesterConfiguration(@NotNull SuggesterConfiguration configuration) {
+        this.maxSuggestions = configuration.maxSuggestions;
+        this.maxEdits = configuration.maxEdits;
+        this.searchBudget = configuration.searchBudget;
+        this.timeLimit = configuration.timeLimit;
+        this.executor = configuration.executor;
+        this.parallelism = configuration.parallelism;
+        this.parallelMinWordLength = configuration.parallelMinWordLength;
+    }
+
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    public void setMaxSuggestions(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    public int getMaxEdits() {
+        return maxEdits;
+    }
+
+    /**
+     * Sets the maximum number of edits between the word and the suggestions. Edits corresponding to
+     * typical typing errors, like hitting an adjacent key, count as less than a full edit.
+     */
+    public void setMaxEdits(int maxEdits) {
+        this.maxEdits = maxEdits;
+    }
+
+    public long getSearchBudget() {
+        return searchBudget;
+    }
+
+    /**
+     * Sets the maximum number of steps taken when searching suggestions for a single word. When the
+     * budget runs out, the suggestions found so far are returned.
+     */
+    public void setSearchBudget(long searchBudget) {
+        this.searchBudget = searchBudget;
+    }
+
+    public @NotNull Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Sets the maximum time used for searching suggestions for a single word. When the time runs out,
+     * the suggestions found so far are returned.
+     */
+    public void setTimeLimit(@NotNull Duration timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public @NotNull Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used for searching suggestions for long words in parallel.
+     */
+    public void setExecutor(@NotNull Executor executor) {
+        this.executor = executor;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of parallel tasks the search for a long word is split into. If 1, suggestions
+     * are always searched in the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("invalid parallelism: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelMinWordLength() {
+        return parallelMinWordLength;
+    }
+
+    /**
+     * Sets the length of the shortest word whose suggestions are searched in parallel. For short
+     * words, the overhead of parallel tasks is larger than the search itself.
+     */
+    public void setParallelMinWordLength(int parallelMinWordLength) {
+        this.parallelMinWordLength = parallelMinWordLength;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggesterConfiguration{" +
+                "maxSuggestions=" + maxSuggestions +
+                ", maxEdits=" + maxEdits +
+                ", searchBudget=" + searchBudget +
+                ", timeLimit=" + timeLimit +
+                ", parallelism=" + parallelism +
+                ", parallelMinWordLength=" + parallelMinWordLength +
+                '}';
+    }
+}
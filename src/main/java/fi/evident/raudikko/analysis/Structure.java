@@ -35,6 +35,7 @@ package fi.evident.raudikko.analysis;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -106,6 +107,13 @@ public final class Structure {
         return new Structure(copy);
     }
 
+    /**
+     * Returns all the symbols of this structure, including morpheme starts.
+     */
+    public @NotNull List<StructureSymbol> getSymbols() {
+        return Collections.unmodifiableList(structure);
+    }
+
     /**
      * Returns al the token symbols of this structure (i.e. excludes morpheme start).
      */
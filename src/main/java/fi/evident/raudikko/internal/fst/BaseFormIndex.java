@@ -0,0 +1,572 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.morphology.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Index from the base forms of a transducer to the states where the paths producing them continue,
+ * which allows generating the inflected forms of a word without searching through the whole transducer.
+ * <p>
+ * The output of each word starts with its class tag and base form, e.g. {@code [Ln][Xp]kissa[X]kisso[Sall][Nm]ille},
+ * before the inflection. The index is built by following all paths from the root up to the end of the first
+ * base form, recording for each base form the state reached along with the flag diacritics, the input and
+ * the output produced so far. Generation continues from the recorded states, running the transducer in
+ * reverse: the output is constrained by an {@link OutputFilter} and the inputs of the accepted paths are
+ * produced along with their outputs.
+ * <p>
+ * Paths starting with a compound boundary or a derivation, and paths visiting the same state twice before
+ * the base form has ended, are not indexed. Base forms are compared ignoring case.
+ * <p>
+ * The index is immutable and can be used by any number of threads.
+ */
+public final class BaseFormIndex {
+
+    private final @NotNull Map<String, Entry[]> entries;
+    private final int entryCount;
+
+    /** Maximum number of transitions before the end of the first base form */
+    private static final int MAX_PREFIX_DEPTH = 1000;
+
+    /** Steps taken from the budget at a time */
+    private static final int BUDGET_CHUNK = 256;
+
+    private BaseFormIndex(@NotNull Map<String, Entry[]> entries, int entryCount) {
+        this.entries = entries;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Builds the index by walking through all the base forms of given transducer.
+     */
+    public static @NotNull BaseFormIndex build(@NotNull UnweightedTransducer transducer) {
+        var builder = new Builder(transducer.flagDiacriticFeatureCount);
+        builder.run(transducer.rootState());
+
+        var entries = new HashMap<String, Entry[]>(builder.entries.size() * 4 / 3 + 1);
+        int count = 0;
+        for (var e : builder.entries.entrySet()) {
+            entries.put(e.getKey(), e.getValue().toArray(new Entry[0]));
+            count += e.getValue().size();
+        }
+
+        return new BaseFormIndex(entries, count);
+    }
+
+    /**
+     * Returns the number of distinct base forms in the index.
+     */
+    public int getBaseFormCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of states recorded for all base forms.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public boolean contains(@NotNull CharSequence baseForm) {
+        return entries.containsKey(lowerCase(baseForm));
+    }
+
+    /**
+     * Calls given callback with each path producing given base form whose output is accepted by the filter.
+     * The filter is first given the class tag preceding the base form, if there is one, and then the output
+     * following the base form. The whole output of the path, including the part before the end of the base
+     * form, is stored in the output stack like in {@link Transducer#transduce}.
+     *
+     * @return false if the generation was stopped by the callback or ran out of budget before completing
+     */
+    public boolean generate(@NotNull CharSequence baseForm,
+                            @NotNull OutputFilter filter,
+                            @NotNull Symbol[] outputStack,
+                            @NotNull SearchBudget budget,
+                            @NotNull Callback callback) {
+        var baseFormEntries = entries.get(lowerCase(baseForm));
+        if (baseFormEntries == null)
+            return true;
+
+        var walk = new Walk(filter, outputStack, budget, callback);
+        for (var entry : baseFormEntries) {
+            long state = entry.classTag != null ? filter.next(0, entry.classTag) : 0;
+            if (state != OutputFilter.REJECTED && !walk.start(entry, state))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static @NotNull String lowerCase(@NotNull CharSequence s) {
+        var chars = new char[s.length()];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = toLowerCase(s.charAt(i));
+        return new String(chars);
+    }
+
+    /**
+     * Receives the paths found by {@link #generate}.
+     */
+    @FunctionalInterface
+    public interface Callback {
+
+        /**
+         * Called for each path with its input. The input is valid only during the call. Symbols of the
+         * output are at indices {@code [0, depth)} of the output stack passed to the generation.
+         *
+         * @return {@code true} to continue generation, {@code false} to stop it
+         */
+        boolean accept(@NotNull CharSequence input, int depth);
+    }
+
+    /**
+     * State where the paths producing a base form continue after the end of the base form,
+     * with the non-epsilon output produced before it.
+     */
+    private record Entry(@NotNull State state, @Nullable Symbol classTag, @NotNull Symbol[] output, short[] flags, @NotNull String input) {
+    }
+
+    /**
+     * Position of the index builder in the output.
+     */
+    private enum Mode {
+        BEFORE_BASE_FORM,
+        INSIDE_PARAMETER,
+        INSIDE_BASE_FORM
+    }
+
+    /**
+     * Walks through the paths from the root to the ends of the base forms, collecting the entries.
+     * <p>
+     * The walk is depth-first, driven by an explicit stack of frames like {@link TraversalStack},
+     * so that long paths don't consume thread stack. Each frame records what to undo when it's popped.
+     */
+    private static final class Builder {
+
+        private final @NotNull Map<String, List<Entry>> entries = new HashMap<>();
+        private final @NotNull Set<State> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final @NotNull StringBuilder input = new StringBuilder();
+        private final @NotNull StringBuilder baseForm = new StringBuilder();
+        private final @NotNull Symbol[] output = new Symbol[MAX_PREFIX_DEPTH];
+        private int outputLength;
+        private final short[] flags;
+
+        // Frames of the stack, the frame at index d representing a state entered at depth d
+        private final @NotNull State[] states = new State[MAX_PREFIX_DEPTH + 1];
+        private final @NotNull Mode[] modes = new Mode[MAX_PREFIX_DEPTH + 1];
+        private final @NotNull Symbol[] classTags = new Symbol[MAX_PREFIX_DEPTH + 1];
+
+        /** Next transition to follow: diacritic transitions first, then character transitions */
+        private final int[] cursors = new int[MAX_PREFIX_DEPTH + 1];
+
+        /** Feature whose value to restore when frame is popped, or -1 */
+        private final int[] savedFeatures = new int[MAX_PREFIX_DEPTH + 1];
+        private final short[] savedValues = new short[MAX_PREFIX_DEPTH + 1];
+
+        // Lengths of input, output and base form to restore when frame is popped
+        private final int[] savedInputLengths = new int[MAX_PREFIX_DEPTH + 1];
+        private final int[] savedOutputLengths = new int[MAX_PREFIX_DEPTH + 1];
+        private final int[] savedBaseFormLengths = new int[MAX_PREFIX_DEPTH + 1];
+
+        // Most entries have the same flags and input, so they are shared between the entries
+        private final @NotNull Map<FlagsKey, short[]> sharedFlags = new HashMap<>();
+        private final @NotNull Map<String, String> sharedInputs = new HashMap<>();
+
+        Builder(int flagDiacriticFeatureCount) {
+            this.flags = new short[flagDiacriticFeatureCount];
+        }
+
+        void run(@NotNull State root) {
+            int depth = 0;
+            save(depth, -1, (short) 0);
+            enter(depth, root, Mode.BEFORE_BASE_FORM, null);
+
+            while (depth >= 0) {
+                if (advance(depth))
+                    depth++;
+                else
+                    pop(depth--);
+            }
+        }
+
+        /**
+         * Follows the next transition of the frame at given depth that enters a new frame.
+         *
+         * @return false if the frame has no more transitions
+         */
+        private boolean advance(int d) {
+            var st = states[d];
+            var diacriticTransitions = st.diacriticTransitions;
+            var charTransitions = st.charTransitions;
+
+            while (cursors[d] < diacriticTransitions.length + charTransitions.length) {
+                int i = cursors[d]++;
+
+                if (i < diacriticTransitions.length) {
+                    var transition = diacriticTransitions[i];
+                    var diacritic = transition.in;
+
+                    if (diacritic.isEpsilon()) {
+                        save(d + 1, -1, (short) 0);
+                    } else {
+                        short oldValue = flags[diacritic.feature];
+                        save(d + 1, diacritic.feature, oldValue);
+                        if (!Transducer.flagDiacriticCheck(flags, diacritic, oldValue)) {
+                            restore(d + 1);
+                            continue;
+                        }
+                    }
+
+                    if (follow(d, transition.symOut, transition.target))
+                        return true;
+
+                } else {
+                    var transition = charTransitions[i - diacriticTransitions.length];
+                    save(d + 1, -1, (short) 0);
+                    input.append(transition.in);
+
+                    if (follow(d, transition.symOut, transition.target))
+                        return true;
+                }
+
+                restore(d + 1);
+            }
+
+            return false;
+        }
+
+        /**
+         * Produces the output of a transition from the frame at given depth.
+         *
+         * @return true if a new frame was entered
+         */
+        private boolean follow(int d, @NotNull Symbol out, @NotNull State target) {
+            var mode = modes[d];
+            var classTag = classTags[d];
+
+            if (out.isEpsilon())
+                return enter(d + 1, target, mode, classTag);
+
+            output[outputLength++] = out;
+
+            switch (mode) {
+                case BEFORE_BASE_FORM -> {
+                    if (out.isClassTag())
+                        return enter(d + 1, target, mode, out);
+
+                    if (out.matches(Tag.XP))
+                        return enter(d + 1, target, Mode.INSIDE_BASE_FORM, classTag);
+
+                    // Derivations are indexed by the base form of the word they are derived from
+                    if (out.isXParameter())
+                        return !out.matches(Tag.XJ) && !out.matches(Tag.X) && enter(d + 1, target, Mode.INSIDE_PARAMETER, classTag);
+
+                    return !out.isBoundary() && enter(d + 1, target, mode, classTag);
+                }
+                case INSIDE_PARAMETER -> {
+                    return enter(d + 1, target, out.matches(Tag.X) ? Mode.BEFORE_BASE_FORM : mode, classTag);
+                }
+                case INSIDE_BASE_FORM -> {
+                    if (out.matches(Tag.X)) {
+                        addEntry(target, classTag);
+                    } else if (out.isChar()) {
+                        baseForm.append(toLowerCase(out.charValue()));
+                        return enter(d + 1, target, mode, classTag);
+                    }
+                    return false;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Enters given state at given depth, unless the depth is too large or the state is already on the path.
+         *
+         * @return true if the state was entered
+         */
+        private boolean enter(int depth, @NotNull State st, @NotNull Mode mode, @Nullable Symbol classTag) {
+            if (depth >= MAX_PREFIX_DEPTH || !path.add(st))
+                return false;
+
+            states[depth] = st;
+            modes[depth] = mode;
+            classTags[depth] = classTag;
+            cursors[depth] = 0;
+            return true;
+        }
+
+        /**
+         * Records the state to restore when frame at given depth is popped.
+         */
+        private void save(int depth, int feature, short value) {
+            savedFeatures[depth] = feature;
+            savedValues[depth] = value;
+            savedInputLengths[depth] = input.length();
+            savedOutputLengths[depth] = outputLength;
+            savedBaseFormLengths[depth] = baseForm.length();
+        }
+
+        private void restore(int depth) {
+            int feature = savedFeatures[depth];
+            if (feature >= 0)
+                flags[feature] = savedValues[depth];
+            input.setLength(savedInputLengths[depth]);
+            outputLength = savedOutputLengths[depth];
+            baseForm.setLength(savedBaseFormLengths[depth]);
+        }
+
+        private void pop(int depth) {
+            path.remove(states[depth]);
+            restore(depth);
+        }
+
+        private void addEntry(@NotNull State target, @Nullable Symbol classTag) {
+            var entryFlags = sharedFlags.computeIfAbsent(new FlagsKey(flags.clone()), FlagsKey::flags);
+            var entryInput = sharedInputs.computeIfAbsent(input.toString(), s -> s);
+            var entryOutput = Arrays.copyOf(output, outputLength);
+            var entry = new Entry(target, classTag, entryOutput, entryFlags, entryInput);
+
+            var list = entries.computeIfAbsent(baseForm.toString(), key -> new ArrayList<>(1));
+            for (var existing : list)
+                if (existing.state == target && existing.flags == entryFlags && existing.input.equals(entryInput) && Arrays.equals(existing.output, entryOutput))
+                    return;
+            list.add(entry);
+        }
+    }
+
+    /**
+     * Flag values compared by their contents.
+     */
+    private record FlagsKey(short[] flags) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FlagsKey key && Arrays.equals(flags, key.flags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(flags);
+        }
+    }
+
+    /**
+     * State of a single generation. Like {@link Builder}, the walk is driven by an explicit stack of frames.
+     */
+    private static final class Walk {
+
+        private final @NotNull OutputFilter filter;
+        private final @NotNull Symbol[] output;
+        private final @NotNull SearchBudget budget;
+        private final @NotNull Callback callback;
+        private final @NotNull StringBuilder input = new StringBuilder();
+        private short[] flags = new short[0];
+        private int steps;
+
+        // Frames of the stack, the frame at index d representing a state entered having produced d symbols of output
+        private State[] states = new State[INITIAL_CAPACITY];
+        private long[] filterStates = new long[INITIAL_CAPACITY];
+
+        /** Next transition to try: diacritic transitions first, then character transitions, or {@link #UNVISITED} */
+        private int[] cursors = new int[INITIAL_CAPACITY];
+
+        /** Feature whose value to restore when frame is popped, or -1 */
+        private int[] savedFeatures = new int[INITIAL_CAPACITY];
+        private short[] savedValues = new short[INITIAL_CAPACITY];
+        private int[] savedInputLengths = new int[INITIAL_CAPACITY];
+
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int UNVISITED = -1;
+
+        Walk(@NotNull OutputFilter filter, @NotNull Symbol[] output, @NotNull SearchBudget budget, @NotNull Callback callback) {
+            this.filter = filter;
+            this.output = output;
+            this.budget = budget;
+            this.callback = callback;
+        }
+
+        /**
+         * Generates the paths continuing from given entry.
+         *
+         * @return false if the generation should stop
+         */
+        boolean start(@NotNull Entry entry, long filterState) {
+            int start = entry.output.length;
+            if (start >= output.length)
+                return true;
+
+            System.arraycopy(entry.output, 0, output, 0, start);
+            input.setLength(0);
+            input.append(entry.input);
+            flags = entry.flags.clone();
+
+            int depth = start;
+            push(depth, entry.state, filterState, -1, (short) 0, input.length());
+
+            while (depth >= start) {
+                if (cursors[depth] == UNVISITED) {
+                    if (steps == 0 && (steps = budget.take(BUDGET_CHUNK)) == 0)
+                        return false;
+                    steps--;
+
+                    if (states[depth].isFinal()) {
+                        if (!input.isEmpty() && !callback.accept(input, depth))
+                            return false;
+                        pop(depth--);
+                        continue;
+                    }
+
+                    cursors[depth] = 0;
+                }
+
+                if (advance(depth))
+                    depth++;
+                else
+                    pop(depth--);
+            }
+
+            return true;
+        }
+
+        /**
+         * Pushes the next frame accepted by the filter from the frame at given depth.
+         *
+         * @return false if the frame has no more transitions
+         */
+        private boolean advance(int d) {
+            var st = states[d];
+            var diacriticTransitions = st.diacriticTransitions;
+            var charTransitions = st.charTransitions;
+
+            while (cursors[d] < diacriticTransitions.length + charTransitions.length) {
+                int i = cursors[d]++;
+
+                if (i < diacriticTransitions.length) {
+                    var transition = diacriticTransitions[i];
+                    long next = filter.next(filterStates[d], transition.symOut);
+                    if (next == OutputFilter.REJECTED)
+                        continue;
+
+                    var diacritic = transition.in;
+                    output[d] = transition.symOut;
+
+                    if (diacritic.isEpsilon()) {
+                        if (push(d + 1, transition.target, next, -1, (short) 0, input.length()))
+                            return true;
+
+                    } else {
+                        short oldValue = flags[diacritic.feature];
+                        if (Transducer.flagDiacriticCheck(flags, diacritic, oldValue)
+                            && push(d + 1, transition.target, next, diacritic.feature, oldValue, input.length()))
+                            return true;
+                    }
+
+                } else {
+                    var transition = charTransitions[i - diacriticTransitions.length];
+                    long next = filter.next(filterStates[d], transition.symOut);
+                    if (next == OutputFilter.REJECTED)
+                        continue;
+
+                    output[d] = transition.symOut;
+                    int inputLength = input.length();
+                    input.append(transition.in);
+                    if (push(d + 1, transition.target, next, -1, (short) 0, inputLength))
+                        return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Initializes frame at given depth to be started on next iteration, unless the output stack
+         * is full, in which case the flag and input modified for entering the frame are restored.
+         *
+         * @return true if the frame was pushed
+         */
+        private boolean push(int depth, @NotNull State st, long filterState, int savedFeature, short savedValue, int savedInputLength) {
+            if (depth >= output.length) {
+                if (savedFeature >= 0)
+                    flags[savedFeature] = savedValue;
+                input.setLength(savedInputLength);
+                return false;
+            }
+
+            if (depth >= states.length)
+                grow(depth + 1);
+
+            states[depth] = st;
+            filterStates[depth] = filterState;
+            cursors[depth] = UNVISITED;
+            savedFeatures[depth] = savedFeature;
+            savedValues[depth] = savedValue;
+            savedInputLengths[depth] = savedInputLength;
+            return true;
+        }
+
+        /**
+         * Restores the flag and input modified when entering the frame at given depth.
+         */
+        private void pop(int depth) {
+            int feature = savedFeatures[depth];
+            if (feature >= 0)
+                flags[feature] = savedValues[depth];
+            input.setLength(savedInputLengths[depth]);
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = Math.min(Math.max(2 * states.length, minCapacity), output.length);
+            states = Arrays.copyOf(states, capacity);
+            filterStates = Arrays.copyOf(filterStates, capacity);
+            cursors = Arrays.copyOf(cursors, capacity);
+            savedFeatures = Arrays.copyOf(savedFeatures, capacity);
+            savedValues = Arrays.copyOf(savedValues, capacity);
+            savedInputLengths = Arrays.copyOf(savedInputLengths, capacity);
+        }
+    }
+}
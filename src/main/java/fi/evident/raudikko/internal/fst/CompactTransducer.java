@@ -0,0 +1,316 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.utils.HeapSize;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transducer that stores all states and transitions in a handful of parallel primitive arrays
+ * instead of an object graph. This takes a fraction of the memory of {@link UnweightedTransducer}
+ * and keeps the transitions of a state next to each other in memory.
+ * <p>
+ * States are identified by their index, root state being 0. Transitions of state {@code s} are
+ * stored in two consecutive ranges: diacritic transitions in range
+ * {@code [offsets[2s], offsets[2s+1])} and character transitions, sorted by character,
+ * in range {@code [offsets[2s+1], offsets[2s+2])}.
+ * <p>
+ * States with many character transitions additionally have a table, directly indexed by the
+ * input alphabet, containing the first transition of each character. The tables are derived
+ * from the transitions when the transducer is created.
+ */
+public final class CompactTransducer extends Transducer {
+
+    final @NotNull Symbol[] symbols;
+    final int[] offsets;
+
+    /**
+     * Input of each transition. For character transitions this is the character itself and for
+     * diacritic transitions the index of the diacritic symbol.
+     */
+    final char[] inputs;
+    final short[] outputs;
+    final int[] targets;
+
+    /** Offset of the transition table of each state in {@link #transitionTables}, or -1 if the state has no table */
+    private final int[] transitionTableOffsets;
+    private final int[] transitionTables;
+
+    CompactTransducer(@NotNull List<Symbol> symbols,
+                      int flagDiacriticFeatureCount,
+                      int[] offsets,
+                      char[] inputs,
+                      short[] outputs,
+                      int[] targets) {
+        super(symbols, flagDiacriticFeatureCount);
+
+        if (inputs.length != outputs.length || inputs.length != targets.length)
+            throw new IllegalArgumentException("transition arrays differ in length");
+
+        this.symbols = symbols.toArray(new Symbol[0]);
+        this.offsets = offsets;
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.targets = targets;
+        this.transitionTableOffsets = new int[getStateCount()];
+        this.transitionTables = buildTransitionTables(TRANSITION_TABLE_MIN_TRANSITIONS);
+    }
+
+    private CompactTransducer(@NotNull CompactTransducer transducer, int minTransitions) {
+        super(transducer);
+        this.symbols = transducer.symbols;
+        this.offsets = transducer.offsets;
+        this.inputs = transducer.inputs;
+        this.outputs = transducer.outputs;
+        this.targets = transducer.targets;
+        this.transitionTableOffsets = new int[getStateCount()];
+        this.transitionTables = buildTransitionTables(minTransitions);
+    }
+
+    /**
+     * Returns a transducer sharing the transitions of this one, but building transition tables for
+     * states having at least given number of character transitions.
+     */
+    @NotNull CompactTransducer withTransitionTables(int minTransitions) {
+        return new CompactTransducer(this, minTransitions);
+    }
+
+    private int[] buildTransitionTables(int minTransitions) {
+        int alphabetSize = alphabet.size();
+        int tableCount = 0;
+        for (int state = 0; state < transitionTableOffsets.length; state++) {
+            int charStart = offsets[2 * state + 1];
+            int end = offsets[2 * state + 2];
+
+            if (end - charStart >= minTransitions && allInAlphabet(charStart, end)) {
+                transitionTableOffsets[state] = tableCount * alphabetSize;
+                tableCount++;
+            } else {
+                transitionTableOffsets[state] = -1;
+            }
+        }
+
+        var tables = new int[tableCount * alphabetSize];
+        for (int state = 0; state < transitionTableOffsets.length; state++) {
+            int tableOffset = transitionTableOffsets[state];
+            if (tableOffset == -1) continue;
+
+            int charStart = offsets[2 * state + 1];
+            int end = offsets[2 * state + 2];
+            Arrays.fill(tables, tableOffset, tableOffset + alphabetSize, end);
+
+            // Walk backwards so that the first transition of each character is the one left in the table
+            for (int t = end - 1; t >= charStart; t--)
+                tables[tableOffset + alphabet.symbolIndexOf(inputs[t])] = t;
+        }
+        return tables;
+    }
+
+    private boolean allInAlphabet(int start, int end) {
+        for (int t = start; t < end; t++)
+            if (alphabet.symbolIndexOf(inputs[t]) < 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the number of states having a transition table.
+     */
+    public int getTransitionTableCount() {
+        int alphabetSize = alphabet.size();
+        return alphabetSize == 0 ? 0 : transitionTables.length / alphabetSize;
+    }
+
+    /**
+     * Returns the number of states by the number of their character transitions: the element {@code i}
+     * of the result tells how many states have {@code i} character transitions.
+     */
+    public int[] getCharacterTransitionHistogram() {
+        int max = 0;
+        for (int state = 0; state < transitionTableOffsets.length; state++)
+            max = Math.max(max, offsets[2 * state + 2] - offsets[2 * state + 1]);
+
+        var histogram = new int[max + 1];
+        for (int state = 0; state < transitionTableOffsets.length; state++)
+            histogram[offsets[2 * state + 2] - offsets[2 * state + 1]]++;
+        return histogram;
+    }
+
+    @Override
+    public int getStateCount() {
+        return offsets.length / 2;
+    }
+
+    @Override
+    public int getTransitionCount() {
+        return targets.length;
+    }
+
+    @Override
+    public void estimateHeapUsage(@NotNull Map<String, Long> sizes) {
+        super.estimateHeapUsage(sizes);
+        sizes.merge("symbols", HeapSize.array(symbols.length, HeapSize.REFERENCE), Long::sum);
+        sizes.merge("states", HeapSize.array(offsets.length, 4), Long::sum);
+        sizes.merge("transitions", HeapSize.array(inputs.length, 2) + HeapSize.array(outputs.length, 2) + HeapSize.array(targets.length, 4), Long::sum);
+        sizes.merge("transition tables", HeapSize.array(transitionTableOffsets.length, 4) + HeapSize.array(transitionTables.length, 4), Long::sum);
+    }
+
+    @Override
+    void traverse(@NotNull List<Symbol> input,
+                  short[] flags,
+                  @NotNull Symbol[] output,
+                  @NotNull TraversalStack stack,
+                  @Nullable OutputFilter filter,
+                  @NotNull TransducerCallback callback) {
+        int inputSize = input.size();
+        int depth = 0;
+        stack.push(depth, 0, 0, -1, (short) 0);
+
+        frames:
+        while (depth >= 0) {
+            int state = stack.states[depth];
+            int inputPos = stack.inputPositions[depth];
+            int charStart = offsets[2 * state + 1];
+            int end = offsets[2 * state + 2];
+            int t = stack.diacriticCursors[depth];
+
+            if (t == TraversalStack.UNVISITED) {
+                t = offsets[2 * state];
+
+                if (t == end && inputPos == inputSize) {
+                    if (!callback.accept(depth)) {
+                        stack.unwind(depth, flags);
+                        return;
+                    }
+                    stack.pop(depth--, flags);
+                    continue;
+                }
+
+                stack.charCursors[depth] = inputPos < inputSize
+                    ? firstCharacterTransitionFor(state, charStart, end, input.get(inputPos).charValue())
+                    : end;
+            }
+
+            // Frames at the maximum depth would not produce anything, so don't bother entering them
+            if (depth + 1 < output.length) {
+                while (t < charStart) {
+                    int current = t++;
+                    var diacritic = (Diacritic) symbols[inputs[current]];
+                    int feature = -1;
+                    short oldValue = 0;
+
+                    if (diacritic != Diacritic.EPSILON) {
+                        feature = diacritic.feature;
+                        oldValue = flags[feature];
+                        if (!flagDiacriticCheck(flags, diacritic, oldValue))
+                            continue;
+                    }
+
+                    long filterState = filter(filter, stack, depth, symbols[outputs[current]]);
+                    if (filterState == OutputFilter.REJECTED) {
+                        if (feature != -1)
+                            flags[feature] = oldValue;
+                        continue;
+                    }
+
+                    stack.diacriticCursors[depth] = t;
+                    output[depth] = symbols[outputs[current]];
+                    stack.push(++depth, targets[current], inputPos, feature, oldValue);
+                    stack.filterStates[depth] = filterState;
+                    continue frames;
+                }
+                stack.diacriticCursors[depth] = t;
+
+                int c = stack.charCursors[depth];
+                if (c < end && inputs[c] == input.get(inputPos).charValue()) {
+                    stack.charCursors[depth] = c + 1;
+                    long filterState = filter(filter, stack, depth, symbols[outputs[c]]);
+                    if (filterState == OutputFilter.REJECTED)
+                        continue;
+
+                    output[depth] = symbols[outputs[c]];
+                    stack.push(++depth, targets[c], inputPos + 1, -1, (short) 0);
+                    stack.filterStates[depth] = filterState;
+                    continue;
+                }
+            }
+
+            stack.pop(depth--, flags);
+        }
+    }
+
+    /**
+     * Returns index of first transition of given character in range {@code [start, end)}
+     * or {@code end} if there is no such transition.
+     */
+    private int firstCharacterTransitionFor(int state, int start, int end, char ch) {
+        int tableOffset = transitionTableOffsets[state];
+        if (tableOffset != -1) {
+            int index = alphabet.symbolIndexOf(ch);
+            return index >= 0 ? transitionTables[tableOffset + index] : end;
+        }
+
+        if (end - start < 8) {
+            // If the range is small enough, just loop through transitions linearly
+            for (int i = start; i < end; i++)
+                if (inputs[i] == ch)
+                    return i;
+        } else {
+            // Otherwise use binary search
+            int low = start;
+            int high = end - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midVal = inputs[mid];
+
+                if (midVal < ch)
+                    low = mid + 1;
+                else if (midVal > ch)
+                    high = mid - 1;
+                else {
+                    while (mid > start && inputs[mid - 1] == ch)
+                        mid--;
+                    return mid;
+                }
+            }
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads and writes {@link CompactTransducer} in Raudikko's own snapshot format.
+ * <p>
+ * The snapshot contains the arrays of the transducer as they are laid out in memory, so loading
+ * it is just a matter of bulk-copying the arrays, compared to parsing the VFST-file and building
+ * the arrays from the transitions.
+ * <p>
+ * All values are little-endian. The file starts with a magic number and a version, followed by
+ * the symbol names (count followed by length-prefixed UTF-8 strings), array lengths and finally
+ * the contents of offset, target, input and output arrays.
+ */
+public final class CompactTransducerSnapshot {
+
+    private static final int MAGIC = 0x52415544; // "RAUD"
+    private static final int VERSION = 1;
+
+    private CompactTransducerSnapshot() {
+    }
+
+    public static void write(@NotNull CompactTransducer transducer, @NotNull OutputStream out) throws IOException {
+        var names = new ArrayList<byte[]>(transducer.symbols.length);
+        int size = 4 * 5;
+        for (var symbol : transducer.symbols) {
+            var name = symbol.toString().getBytes(UTF_8);
+            names.add(name);
+            size += 4 + name.length;
+        }
+        size += 4 * transducer.offsets.length + 4 * transducer.targets.length + 2 * transducer.inputs.length + 2 * transducer.outputs.length;
+
+        var buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+
+        buffer.putInt(names.size());
+        for (var name : names) {
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+
+        buffer.putInt(transducer.offsets.length);
+        buffer.putInt(transducer.targets.length);
+
+        buffer.asIntBuffer().put(transducer.offsets);
+        buffer.position(buffer.position() + 4 * transducer.offsets.length);
+        buffer.asIntBuffer().put(transducer.targets);
+        buffer.position(buffer.position() + 4 * transducer.targets.length);
+        buffer.asCharBuffer().put(transducer.inputs);
+        buffer.position(buffer.position() + 2 * transducer.inputs.length);
+        buffer.asShortBuffer().put(transducer.outputs);
+
+        out.write(buffer.array());
+    }
+
+    public static @NotNull CompactTransducer read(@NotNull InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    public static @NotNull CompactTransducer read(@NotNull Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static @NotNull CompactTransducer read(@NotNull ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a Raudikko snapshot");
+
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+
+        try {
+            // Each symbol name has at least its length
+            int symbolCount = readCount(buffer, 4, "symbol");
+            var names = new ArrayList<String>(symbolCount);
+            for (int i = 0; i < symbolCount; i++) {
+                var name = new byte[readCount(buffer, 1, "symbol name byte")];
+                buffer.get(name);
+                names.add(new String(name, UTF_8));
+            }
+
+            int countsOffset = buffer.position();
+            int offsetCount = readCount(buffer, 4, "offset");
+            int transitionCount = readCount(buffer, 4 + 2 + 2, "transition");
+            if (4L * offsetCount + (4 + 2 + 2) * (long) transitionCount > buffer.remaining())
+                throw new IOException("Snapshot is too short for " + offsetCount + " offsets and " + transitionCount + " transitions declared at offset " + countsOffset);
+
+            var offsets = new int[offsetCount];
+            var targets = new int[transitionCount];
+            var inputs = new char[transitionCount];
+            var outputs = new short[transitionCount];
+
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + 4 * offsets.length);
+            buffer.asIntBuffer().get(targets);
+            buffer.position(buffer.position() + 4 * targets.length);
+            buffer.asCharBuffer().get(inputs);
+            buffer.position(buffer.position() + 2 * inputs.length);
+            buffer.asShortBuffer().get(outputs);
+
+            var symbols = parseSymbols(names);
+            validate(symbols.symbols(), offsets, inputs, outputs, targets);
+            return new CompactTransducer(symbols.symbols(), symbols.flagDiacriticFeatureCount(), offsets, inputs, outputs, targets);
+
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of snapshot at offset " + buffer.position(), e);
+        }
+    }
+
+    private static @NotNull UnweightedVfstLoader.SymbolTable parseSymbols(@NotNull List<String> names) throws IOException {
+        try {
+            return UnweightedVfstLoader.parseSymbols(names);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid symbol in snapshot", e);
+        }
+    }
+
+    /**
+     * Checks that the arrays describe a well-formed transducer, so that a corrupt snapshot is
+     * rejected when it is loaded instead of failing in the middle of a traversal.
+     */
+    private static void validate(@NotNull List<Symbol> symbols, int[] offsets, char[] inputs, short[] outputs, int[] targets) throws IOException {
+        if (offsets.length < 3 || offsets.length % 2 == 0)
+            throw new IOException("Invalid offset count " + offsets.length + " in snapshot");
+
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != targets.length)
+            throw new IOException("Offsets of snapshot do not cover the " + targets.length + " transitions");
+
+        for (int i = 1; i < offsets.length; i++)
+            if (offsets[i] < offsets[i - 1])
+                throw new IOException("Decreasing offset " + offsets[i] + " at index " + i + " of snapshot");
+
+        int stateCount = offsets.length / 2;
+        for (int t = 0; t < targets.length; t++) {
+            if (targets[t] < 0 || targets[t] >= stateCount)
+                throw new IOException("Invalid target state " + targets[t] + " of transition " + t + " in snapshot");
+            if (outputs[t] < 0 || outputs[t] >= symbols.size())
+                throw new IOException("Invalid output symbol " + outputs[t] + " of transition " + t + " in snapshot");
+        }
+
+        for (int state = 0; state < stateCount; state++)
+            for (int t = offsets[2 * state]; t < offsets[2 * state + 1]; t++)
+                if (inputs[t] >= symbols.size() || !symbols.get(inputs[t]).isDiacritic())
+                    throw new IOException("Input " + (int) inputs[t] + " of diacritic transition " + t + " in snapshot is not a diacritic");
+    }
+
+    /**
+     * Reads a count of elements taking at least given number of bytes each, checking that
+     * the count is not negative and that the rest of the buffer can hold that many elements.
+     */
+    private static int readCount(@NotNull ByteBuffer buffer, int minElementSize, @NotNull String element) throws IOException {
+        int offset = buffer.position();
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minElementSize > buffer.remaining())
+            throw new IOException("Invalid " + element + " count " + count + " at offset " + offset + " of snapshot");
+        return count;
+    }
+}
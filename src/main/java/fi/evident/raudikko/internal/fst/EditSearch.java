@@ -0,0 +1,385 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Finds the inputs accepted by a transducer that are within a bounded edit distance of given word.
+ * <p>
+ * Instead of generating all edits of the word and looking each of them up, the transducer and the
+ * edit operations are walked in lockstep: at each state, the next character of the word is either
+ * matched, replaced by the character of a transition, swapped with the character following it,
+ * deleted, or a character of a transition is inserted before it. Paths are abandoned as soon as their
+ * total cost exceeds the maximum, so only the parts of the transducer close to the word are visited.
+ * <p>
+ * Only the input side of the transducer is considered, so the candidates must be validated separately.
+ * The search itself is immutable and can be used by any number of threads.
+ */
+public final class EditSearch {
+
+    private final @NotNull UnweightedTransducer transducer;
+    private final @NotNull EditCosts costs;
+
+    /** Maximum number of transitions on a path, bounding the frame stack like the output stack does in analysis */
+    static final int MAX_DEPTH = 1000;
+
+    /** Steps taken from the budget at a time */
+    private static final int BUDGET_CHUNK = 256;
+
+    public EditSearch(@NotNull UnweightedTransducer transducer, @NotNull EditCosts costs) {
+        this.transducer = transducer;
+        this.costs = costs;
+    }
+
+    /**
+     * Returns the number of characters in the input alphabet. The characters are identified by their
+     * index in the alphabet in the {@code firstCharacters} argument of {@link #search}.
+     */
+    public int getAlphabetSize() {
+        return transducer.alphabet.size();
+    }
+
+    /**
+     * Calls given consumer with each accepted input whose edit cost from the word is at most {@code maxCost},
+     * along with the cost. The same input may be passed several times with different costs, if it can be
+     * reached with different edits.
+     * <p>
+     * If {@code firstCharacters} is given, only inputs starting with a character whose alphabet index is
+     * in the set are produced. Searches with disjoint sets produce disjoint results, which allows splitting
+     * a search into parts that can run in parallel.
+     *
+     * @return false if the search ran out of budget before completing
+     */
+    public boolean search(@NotNull CharSequence word,
+                          int maxCost,
+                          @Nullable BitSet firstCharacters,
+                          @NotNull SearchBudget budget,
+                          @NotNull ObjIntConsumer<String> consumer) {
+        return new Walk(word, maxCost, firstCharacters, budget, consumer).run(transducer.rootState());
+    }
+
+    /**
+     * State of a single search. The search is a depth-first walk driven by an explicit stack of
+     * frames, like {@link TraversalStack} in transduction, so that long paths don't consume thread
+     * stack. Each frame tracks which kind of edit it is trying next and the transition it's at.
+     */
+    private final class Walk {
+
+        private final char[] word;
+        private final char[] candidate;
+        private final short[] flags = new short[transducer.flagDiacriticFeatureCount];
+        private final int maxCost;
+        private final @Nullable BitSet firstCharacters;
+        private final @NotNull SearchBudget budget;
+        private final @NotNull ObjIntConsumer<String> consumer;
+        private final @NotNull InputAlphabet alphabet = transducer.alphabet;
+        private int steps;
+
+        // Frames of the stack, the frame at index d representing a state entered at depth d
+        private State[] states = new State[INITIAL_CAPACITY];
+        private int[] positions = new int[INITIAL_CAPACITY];
+        private int[] frameCosts = new int[INITIAL_CAPACITY];
+        private int[] lengths = new int[INITIAL_CAPACITY];
+
+        /** Second character of a transposition to read next, or -1 */
+        private int[] pendings = new int[INITIAL_CAPACITY];
+
+        /** What the frame is doing, one of the {@code PHASE_*} constants */
+        private int[] phases = new int[INITIAL_CAPACITY];
+
+        /** Next transition to try in the current phase */
+        private int[] cursors = new int[INITIAL_CAPACITY];
+
+        /** Next edit to try with the current transition in {@link #PHASE_EDITS}, one of the {@code EDIT_*} constants */
+        private int[] edits = new int[INITIAL_CAPACITY];
+
+        /** Feature whose value to restore when frame is popped, or -1 */
+        private int[] savedFeatures = new int[INITIAL_CAPACITY];
+        private short[] savedValues = new short[INITIAL_CAPACITY];
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private static final int PHASE_UNVISITED = 0;
+        private static final int PHASE_DIACRITICS = 1;
+        private static final int PHASE_PENDING = 2;
+        private static final int PHASE_WORD = 3;
+        private static final int PHASE_EDITS = 4;
+        private static final int PHASE_DELETION = 5;
+        private static final int PHASE_DONE = 6;
+
+        private static final int EDIT_SUBSTITUTION = 0;
+        private static final int EDIT_TRANSPOSITION = 1;
+        private static final int EDIT_INSERTION = 2;
+
+        Walk(@NotNull CharSequence word,
+             int maxCost,
+             @Nullable BitSet firstCharacters,
+             @NotNull SearchBudget budget,
+             @NotNull ObjIntConsumer<String> consumer) {
+            this.word = new char[word.length()];
+            this.maxCost = maxCost;
+            this.firstCharacters = firstCharacters;
+            this.budget = budget;
+            this.consumer = consumer;
+
+            // Read the word the same way as in transduction, keeping characters outside the
+            // alphabet so that they can be replaced or deleted
+            for (int i = 0; i < this.word.length; i++) {
+                char c = word.charAt(i);
+                var symbol = alphabet.symbolFor(c);
+                this.word[i] = symbol != null ? symbol.charValue() : c;
+            }
+
+            this.candidate = new char[this.word.length + maxCost + 1];
+        }
+
+        /**
+         * Walks the transducer from given state.
+         *
+         * @return false if the search ran out of budget
+         */
+        boolean run(@NotNull State root) {
+            int depth = 0;
+            push(depth, root, 0, 0, 0, -1, -1, (short) 0);
+
+            while (depth >= 0) {
+                if (phases[depth] == PHASE_UNVISITED) {
+                    if (steps == 0 && (steps = budget.take(BUDGET_CHUNK)) == 0)
+                        return false;
+                    steps--;
+
+                    // Final states have no transitions, but the rest of the word may still be deleted
+                    if (states[depth].isFinal() && positions[depth] == word.length) {
+                        if (pendings[depth] < 0 && lengths[depth] > 0)
+                            consumer.accept(new String(candidate, 0, lengths[depth]), frameCosts[depth]);
+                        pop(depth--);
+                        continue;
+                    }
+
+                    phases[depth] = PHASE_DIACRITICS;
+                    cursors[depth] = 0;
+                }
+
+                if (advance(depth))
+                    depth++;
+                else
+                    pop(depth--);
+            }
+
+            return true;
+        }
+
+        /**
+         * Pushes the next child of the frame at given depth to the stack.
+         *
+         * @return false if the frame has no more children
+         */
+        private boolean advance(int d) {
+            var st = states[d];
+            int pos = positions[d];
+            int cost = frameCosts[d];
+            int length = lengths[d];
+            var transitions = st.charTransitions;
+
+            if (phases[d] == PHASE_DIACRITICS) {
+                var diacriticTransitions = st.diacriticTransitions;
+                while (cursors[d] < diacriticTransitions.length) {
+                    var transition = diacriticTransitions[cursors[d]++];
+                    var diacritic = transition.in;
+
+                    if (diacritic == Diacritic.EPSILON) {
+                        if (push(d + 1, transition.target, pos, cost, length, pendings[d], -1, (short) 0))
+                            return true;
+
+                    } else {
+                        short oldValue = flags[diacritic.feature];
+                        if (Transducer.flagDiacriticCheck(flags, diacritic, oldValue)
+                            && push(d + 1, transition.target, pos, cost, length, pendings[d], diacritic.feature, oldValue))
+                            return true;
+                    }
+                }
+
+                // Candidates can't be longer than the word by more edits than the cost allows
+                if (length == candidate.length)
+                    return false;
+
+                if (pendings[d] >= 0) {
+                    phases[d] = PHASE_PENDING;
+                    cursors[d] = st.firstCharacterTransitionFor(alphabet, (char) pendings[d]);
+                } else {
+                    // Follow the word itself first, so that the cheapest candidates are found even if the budget runs out
+                    phases[d] = PHASE_WORD;
+                    cursors[d] = pos < word.length && isAllowedFirst(length, word[pos])
+                        ? st.firstCharacterTransitionFor(alphabet, word[pos])
+                        : transitions.length;
+                }
+            }
+
+            if (phases[d] == PHASE_PENDING) {
+                char ch = (char) pendings[d];
+                candidate[length] = ch;
+                while (cursors[d] < transitions.length && transitions[cursors[d]].in == ch)
+                    if (push(d + 1, transitions[cursors[d]++].target, pos, cost, length + 1, -1, -1, (short) 0))
+                        return true;
+                return false;
+            }
+
+            if (phases[d] == PHASE_WORD) {
+                if (pos < word.length) {
+                    char ch = word[pos];
+                    candidate[length] = ch;
+                    while (cursors[d] < transitions.length && transitions[cursors[d]].in == ch)
+                        if (push(d + 1, transitions[cursors[d]++].target, pos + 1, cost, length + 1, -1, -1, (short) 0))
+                            return true;
+                }
+
+                phases[d] = PHASE_EDITS;
+                cursors[d] = 0;
+                edits[d] = EDIT_SUBSTITUTION;
+            }
+
+            if (phases[d] == PHASE_EDITS) {
+                while (cursors[d] < transitions.length) {
+                    var transition = transitions[cursors[d]];
+                    char ch = transition.in;
+                    if (!isAllowedFirst(length, ch)) {
+                        cursors[d]++;
+                        continue;
+                    }
+
+                    candidate[length] = ch;
+
+                    int edit = edits[d]++;
+                    if (edit == EDIT_SUBSTITUTION) {
+                        if (pos < word.length && ch != word[pos]) {
+                            int substituted = cost + costs.substitution(word[pos], ch);
+                            if (substituted <= maxCost && push(d + 1, transition.target, pos + 1, substituted, length + 1, -1, -1, (short) 0))
+                                return true;
+                        }
+
+                    } else if (edit == EDIT_TRANSPOSITION) {
+                        if (pos + 1 < word.length && ch != word[pos] && ch == word[pos + 1]) {
+                            int transposed = cost + costs.transposition();
+                            if (transposed <= maxCost && push(d + 1, transition.target, pos + 2, transposed, length + 1, word[pos], -1, (short) 0))
+                                return true;
+                        }
+
+                    } else {
+                        cursors[d]++;
+                        edits[d] = EDIT_SUBSTITUTION;
+
+                        int inserted = cost + costs.insertion(length > 0 ? candidate[length - 1] : 0, ch);
+                        if (inserted <= maxCost && push(d + 1, transition.target, pos, inserted, length + 1, -1, -1, (short) 0))
+                            return true;
+                    }
+                }
+
+                phases[d] = PHASE_DELETION;
+            }
+
+            if (phases[d] == PHASE_DELETION) {
+                phases[d] = PHASE_DONE;
+                if (pos < word.length) {
+                    int deleted = cost + costs.deletion(pos > 0 ? word[pos - 1] : 0, word[pos]);
+                    return deleted <= maxCost && push(d + 1, st, pos + 1, deleted, length, -1, -1, (short) 0);
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Initializes frame at given depth to be started on next iteration, unless the depth is beyond
+         * {@link #MAX_DEPTH}, in which case the flag modified for entering the frame is restored.
+         *
+         * @return true if the frame was pushed
+         */
+        private boolean push(int depth, @NotNull State st, int pos, int cost, int length, int pending, int savedFeature, short savedValue) {
+            if (depth >= MAX_DEPTH) {
+                if (savedFeature >= 0)
+                    flags[savedFeature] = savedValue;
+                return false;
+            }
+
+            if (depth == states.length)
+                grow();
+
+            states[depth] = st;
+            positions[depth] = pos;
+            frameCosts[depth] = cost;
+            lengths[depth] = length;
+            pendings[depth] = pending;
+            phases[depth] = PHASE_UNVISITED;
+            savedFeatures[depth] = savedFeature;
+            savedValues[depth] = savedValue;
+            return true;
+        }
+
+        /**
+         * Restores the flag modified when entering the frame at given depth.
+         */
+        private void pop(int depth) {
+            int feature = savedFeatures[depth];
+            if (feature >= 0)
+                flags[feature] = savedValues[depth];
+        }
+
+        private void grow() {
+            int capacity = Math.min(2 * states.length, MAX_DEPTH);
+            states = Arrays.copyOf(states, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            frameCosts = Arrays.copyOf(frameCosts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            pendings = Arrays.copyOf(pendings, capacity);
+            phases = Arrays.copyOf(phases, capacity);
+            cursors = Arrays.copyOf(cursors, capacity);
+            edits = Arrays.copyOf(edits, capacity);
+            savedFeatures = Arrays.copyOf(savedFeatures, capacity);
+            savedValues = Arrays.copyOf(savedValues, capacity);
+        }
+
+        private boolean isAllowedFirst(int length, char ch) {
+            if (length != 0 || firstCharacters == null)
+                return true;
+
+            int index = alphabet.symbolIndexOf(ch);
+            return index >= 0 && firstCharacters.get(index);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.utils.HeapSize;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Input characters of a transducer, numbered densely from zero.
+ * <p>
+ * Case folding and normalization of typographic variants are resolved when the alphabet is built,
+ * so that mapping an input character to its symbol is a single lookup in a table covering every
+ * character that folds to a character of the alphabet.
+ */
+final class InputAlphabet {
+
+    /** Typographic variants and the characters they are read as, unless the variant is in the alphabet itself */
+    private static final char[][] VARIANTS = {
+        {'‐', '-'}, // hyphen
+        {'‑', '-'}, // non-breaking hyphen
+        {'’', '\''}, // right single quotation mark
+    };
+
+    private final @NotNull Symbol[] symbols;
+
+    /** Index of the symbol plus one for each character, zero for characters outside the alphabet */
+    private final char[] indices;
+
+    /** Like {@link #indices}, but only for the characters of the symbols themselves */
+    private final char[] symbolIndices;
+
+    InputAlphabet(@NotNull List<Symbol> allSymbols) {
+        var chars = new ArrayList<Symbol>();
+        var ownIndices = new char[Character.MAX_VALUE + 1];
+        for (var symbol : allSymbols) {
+            if (!symbol.isChar())
+                continue;
+
+            // If a character has several symbols, the last one is used
+            int index = ownIndices[symbol.charValue()];
+            if (index != 0) {
+                chars.set(index - 1, symbol);
+            } else {
+                chars.add(symbol);
+                ownIndices[symbol.charValue()] = (char) chars.size();
+            }
+        }
+        this.symbols = chars.toArray(new Symbol[0]);
+
+        int maxChar = -1;
+        for (var symbol : symbols)
+            maxChar = Math.max(maxChar, symbol.charValue());
+        this.symbolIndices = new char[maxChar + 1];
+        System.arraycopy(ownIndices, 0, symbolIndices, 0, symbolIndices.length);
+
+        var folded = new char[Character.MAX_VALUE + 1];
+        int length = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            folded[c] = ownIndices[toLowerCase((char) c)];
+            if (folded[c] != 0)
+                length = c + 1;
+        }
+
+        for (var variant : VARIANTS) {
+            if (ownIndices[variant[0]] == 0 && ownIndices[variant[1]] != 0) {
+                folded[variant[0]] = ownIndices[variant[1]];
+                length = Math.max(length, variant[0] + 1);
+            }
+        }
+
+        this.indices = new char[length];
+        System.arraycopy(folded, 0, indices, 0, length);
+    }
+
+    /**
+     * Returns the estimated size of the alphabet in bytes, excluding the symbols themselves.
+     */
+    long heapSize() {
+        return HeapSize.object(3 * HeapSize.REFERENCE)
+            + HeapSize.array(symbols.length, HeapSize.REFERENCE)
+            + HeapSize.array(indices.length, 2)
+            + HeapSize.array(symbolIndices.length, 2);
+    }
+
+    /**
+     * Returns the number of symbols in the alphabet.
+     */
+    int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Returns the index of the symbol that given input character is read as, or -1 if there is none.
+     */
+    int indexOf(char c) {
+        return c < indices.length ? indices[c] - 1 : -1;
+    }
+
+    /**
+     * Returns the index of the symbol of given character, or -1 if there is none. Unlike
+     * {@link #indexOf(char)}, does not fold the character. This is the index to use for the
+     * characters of symbols, be it transition inputs or the symbols returned by {@link #symbolFor(char)}.
+     */
+    int symbolIndexOf(char c) {
+        return c < symbolIndices.length ? symbolIndices[c] - 1 : -1;
+    }
+
+    /**
+     * Returns the symbol that given input character is read as, or null if there is none.
+     */
+    @Nullable Symbol symbolFor(char c) {
+        int index = indexOf(c);
+        return index >= 0 ? symbols[index] : null;
+    }
+}
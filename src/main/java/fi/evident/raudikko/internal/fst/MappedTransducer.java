@@ -0,0 +1,253 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.utils.HeapSize;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Transducer that walks the transition table of a VFST-file directly from a (memory-mapped) buffer
+ * without building any intermediate representation of it.
+ * <p>
+ * States are identified by the index of their first transition in the table, root state being 0.
+ * Since the buffer is only accessed using absolute reads, it can be safely shared between threads.
+ */
+public final class MappedTransducer extends Transducer {
+
+    private static final int TRANSITION_SIZE = 8;
+    private static final short FINAL_SYMBOL = -1;
+    private static final int OVERFLOW = 0xff;
+
+    private final @NotNull ByteBuffer transitions;
+    private final @NotNull Symbol[] symbols;
+
+    /**
+     * Flag diacritic for each symbol, or {@code null} for symbols that are not diacritics.
+     */
+    private final @Nullable Diacritic[] diacritics;
+
+    MappedTransducer(@NotNull List<Symbol> symbols, int flagDiacriticFeatureCount, @NotNull ByteBuffer transitions) {
+        super(symbols, flagDiacriticFeatureCount);
+        this.transitions = transitions.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.symbols = new Symbol[symbols.size()];
+        this.diacritics = new Diacritic[symbols.size()];
+
+        for (int i = 0; i < this.symbols.length; i++) {
+            var symbol = symbols.get(i);
+            this.symbols[i] = symbol.toOutputSymbol();
+            this.diacritics[i] = symbol.getDiacritic();
+        }
+    }
+
+    @Override
+    public int getStateCount() {
+        int[] count = {0};
+        forEachState(state -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public int getTransitionCount() {
+        int[] count = {0};
+        forEachState(state -> {
+            int head = state * TRANSITION_SIZE;
+            if (transitions.getShort(head) != FINAL_SYMBOL) {
+                int more = transitions.get(head + 7) & 0xff;
+                count[0] += 1 + (more == OVERFLOW ? transitions.getInt(head + TRANSITION_SIZE) : more);
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public void estimateHeapUsage(@NotNull Map<String, Long> sizes) {
+        super.estimateHeapUsage(sizes);
+        sizes.merge("symbols", HeapSize.array(symbols.length, HeapSize.REFERENCE) + HeapSize.array(diacritics.length, HeapSize.REFERENCE), Long::sum);
+    }
+
+    @Override
+    public long getMappedBytes() {
+        return transitions.capacity();
+    }
+
+    /**
+     * Calls given action once for each state reachable from the root.
+     */
+    private void forEachState(@NotNull IntConsumer action) {
+        var visited = new BitSet();
+        var pending = new ArrayDeque<Integer>();
+        visited.set(0);
+        pending.add(0);
+
+        while (!pending.isEmpty()) {
+            int state = pending.poll();
+            action.accept(state);
+
+            int head = state * TRANSITION_SIZE;
+            if (transitions.getShort(head) == FINAL_SYMBOL) continue;
+
+            int more = transitions.get(head + 7) & 0xff;
+            int first = state + 1;
+            if (more == OVERFLOW) {
+                more = transitions.getInt(head + TRANSITION_SIZE);
+                first++;
+            }
+            int end = first + more;
+
+            for (int t = state; t < end; t = (t == state) ? first : t + 1) {
+                int target = targetState(t * TRANSITION_SIZE);
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    pending.add(target);
+                }
+            }
+        }
+    }
+
+    @Override
+    void traverse(@NotNull List<Symbol> input,
+                  short[] flags,
+                  @NotNull Symbol[] output,
+                  @NotNull TraversalStack stack,
+                  @Nullable OutputFilter filter,
+                  @NotNull TransducerCallback callback) {
+        int inputSize = input.size();
+        int depth = 0;
+        stack.push(depth, 0, 0, -1, (short) 0);
+
+        frames:
+        while (depth >= 0) {
+            int state = stack.states[depth];
+            int inputPos = stack.inputPositions[depth];
+            int t = stack.diacriticCursors[depth];
+
+            if (t == TraversalStack.UNVISITED) {
+                if (transitions.getShort(state * TRANSITION_SIZE) == FINAL_SYMBOL) {
+                    if (inputPos == inputSize && !callback.accept(depth)) {
+                        stack.unwind(depth, flags);
+                        return;
+                    }
+                    stack.pop(depth--, flags);
+                    continue;
+                }
+
+                t = state;
+                stack.charCursors[depth] = inputPos < inputSize ? state : -1;
+            }
+
+            // Frames at the maximum depth would not produce anything, so don't bother entering them
+            if (depth + 1 < output.length) {
+                int head = state * TRANSITION_SIZE;
+                int more = transitions.get(head + 7) & 0xff;
+                int first = state + 1;
+                if (more == OVERFLOW) {
+                    more = transitions.getInt(head + TRANSITION_SIZE);
+                    first++;
+                }
+                int end = first + more;
+
+                while (t < end) {
+                    int offset = t * TRANSITION_SIZE;
+                    t = (t == state) ? first : t + 1;
+
+                    var diacritic = diacritics[transitions.getShort(offset)];
+                    if (diacritic == null) continue;
+
+                    int feature = -1;
+                    short oldValue = 0;
+
+                    if (diacritic != Diacritic.EPSILON) {
+                        feature = diacritic.feature;
+                        oldValue = flags[feature];
+                        if (!flagDiacriticCheck(flags, diacritic, oldValue))
+                            continue;
+                    }
+
+                    var symOut = symbols[transitions.getShort(offset + 2)];
+                    long filterState = filter(filter, stack, depth, symOut);
+                    if (filterState == OutputFilter.REJECTED) {
+                        if (feature != -1)
+                            flags[feature] = oldValue;
+                        continue;
+                    }
+
+                    stack.diacriticCursors[depth] = t;
+                    output[depth] = symOut;
+                    stack.push(++depth, targetState(offset), inputPos, feature, oldValue);
+                    stack.filterStates[depth] = filterState;
+                    continue frames;
+                }
+                stack.diacriticCursors[depth] = t;
+
+                int c = stack.charCursors[depth];
+                if (c >= 0) {
+                    var symbol = input.get(inputPos);
+
+                    while (c < end) {
+                        int offset = c * TRANSITION_SIZE;
+                        c = (c == state) ? first : c + 1;
+
+                        if (symbols[transitions.getShort(offset)] != symbol) continue;
+
+                        var symOut = symbols[transitions.getShort(offset + 2)];
+                        long filterState = filter(filter, stack, depth, symOut);
+                        if (filterState == OutputFilter.REJECTED)
+                            continue;
+
+                        stack.charCursors[depth] = c;
+                        output[depth] = symOut;
+                        stack.push(++depth, targetState(offset), inputPos + 1, -1, (short) 0);
+                        stack.filterStates[depth] = filterState;
+                        continue frames;
+                    }
+                    stack.charCursors[depth] = c;
+                }
+            }
+
+            stack.pop(depth--, flags);
+        }
+    }
+
+    private int targetState(int offset) {
+        return transitions.getInt(offset + 4) & 0xffffff;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of steps and the time used by a search. A single budget may be shared by
+ * searches running in parallel: they take steps from it in chunks, so that the shared counter
+ * and the clock are consulted only once per chunk.
+ */
+public final class SearchBudget {
+
+    private final @NotNull AtomicLong remainingSteps;
+    private final long startTime = System.nanoTime();
+    private final long timeLimitNanos;
+    private volatile boolean exhausted;
+    private static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    public SearchBudget(long maxSteps, @NotNull Duration timeLimit) {
+        this.remainingSteps = new AtomicLong(maxSteps);
+        this.timeLimitNanos = toNanos(timeLimit);
+    }
+
+    /**
+     * Creates a budget limiting only the number of steps.
+     */
+    public SearchBudget(long maxSteps) {
+        this.remainingSteps = new AtomicLong(maxSteps);
+        this.timeLimitNanos = NO_TIME_LIMIT;
+    }
+
+    /**
+     * Takes at most given number of steps from the budget and returns the number of steps taken,
+     * which is zero if the budget is exhausted or the time limit has passed.
+     */
+    int take(int steps) {
+        if (exhausted)
+            return 0;
+
+        if (timeLimitNanos != NO_TIME_LIMIT && System.nanoTime() - startTime >= timeLimitNanos) {
+            exhausted = true;
+            return 0;
+        }
+
+        long remaining = remainingSteps.getAndAdd(-steps);
+        if (remaining <= 0) {
+            exhausted = true;
+            return 0;
+        }
+
+        return (int) Math.min(steps, remaining);
+    }
+
+    /**
+     * Returns true if a search ran out of steps or time, meaning that its results may be incomplete.
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    private static long toNanos(@NotNull Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return NO_TIME_LIMIT;
+        }
+    }
+}
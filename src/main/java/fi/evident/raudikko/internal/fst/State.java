@@ -33,11 +33,20 @@
 package fi.evident.raudikko.internal.fst;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
 
 final class State {
     @NotNull DiacriticTransition[] diacriticTransitions;
     @NotNull CharTransition[] charTransitions;
 
+    /**
+     * Index of the first character transition for each symbol of the input alphabet, or null
+     * if the state has too few character transitions for a table to pay off.
+     */
+    int @Nullable [] transitionTable;
+
     public boolean isFinal() {
         return diacriticTransitions.length == 0 && charTransitions.length == 0;
     }
@@ -47,7 +56,13 @@ final class State {
      * transitions are sorted by character.
      *
      */
-    public int firstCharacterTransitionFor(char ch) {
+    public int firstCharacterTransitionFor(@NotNull InputAlphabet alphabet, char ch) {
+        var table = transitionTable;
+        if (table != null) {
+            int index = alphabet.symbolIndexOf(ch);
+            return index >= 0 ? table[index] : charTransitions.length;
+        }
+
         if (charTransitions.length < 8) {
             // If the array is small enough, just loop through transitions linearly
             for (int i = 0; i < charTransitions.length; i++)
@@ -77,4 +92,27 @@ final class State {
 
         return charTransitions.length;
     }
+
+    /**
+     * Builds {@link #transitionTable} if the state has at least given number of character transitions,
+     * otherwise removes it.
+     */
+    void buildTransitionTable(@NotNull InputAlphabet alphabet, int minTransitions) {
+        transitionTable = null;
+        if (charTransitions.length < minTransitions)
+            return;
+
+        var table = new int[alphabet.size()];
+        Arrays.fill(table, charTransitions.length);
+
+        // Walk backwards so that the first transition of each character is the one left in the table
+        for (int i = charTransitions.length - 1; i >= 0; i--) {
+            int index = alphabet.symbolIndexOf(charTransitions[i].in);
+            if (index < 0)
+                return;
+            table[index] = i;
+        }
+
+        transitionTable = table;
+    }
 }
@@ -32,19 +32,47 @@
 
 package fi.evident.raudikko.internal.fst;
 
-import fi.evident.raudikko.analysis.AnalysisClass;
-import fi.evident.raudikko.internal.morphology.Tags;
+import fi.evident.raudikko.analysis.*;
+import fi.evident.raudikko.internal.morphology.Tag;
+import fi.evident.raudikko.internal.morphology.TagKind;
+import fi.evident.raudikko.internal.utils.HeapSize;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public sealed class Symbol permits Diacritic {
 
     private final @NotNull String s;
 
+    // Classification of tags is resolved up front, so that post-processing can dispatch on
+    // kinds and compare tags and values by reference instead of comparing strings.
+    private final @NotNull TagKind kind;
+    private final @Nullable Tag tag;
+    private final @Nullable AnalysisClass value;
+    private final boolean nameTag;
+
+    private static final @NotNull Map<String, AnalysisClass> valuesBySymbol = new HashMap<>();
+
+    static {
+        var valueClasses = List.of(WordClass.class, Comparison.class, Locative.class, Mood.class, GrammaticalNumber.class,
+            Negative.class, Participle.class, Person.class, Tense.class, FocusParticle.class, Possessive.class);
+
+        for (var valueClass : valueClasses)
+            for (AnalysisClass value : valueClass.getEnumConstants())
+                valuesBySymbol.put('[' + value.getMorphologyTag() + ']', value);
+    }
+
     static final @NotNull Symbol FINAL = new Symbol("<final>");
 
     public Symbol(@NotNull String s) {
         this.s = s;
+        this.kind = TagKind.forSymbol(s);
+        this.tag = kind != TagKind.NONE ? Tag.forSymbol(s) : null;
+        this.value = kind != TagKind.NONE ? valuesBySymbol.get(s) : null;
+        this.nameTag = s.startsWith("[Le");
     }
 
     public boolean isEpsilon() {
@@ -71,6 +99,14 @@ public sealed class Symbol permits Diacritic {
         return isDiacritic() ? Diacritic.EPSILON : this;
     }
 
+    /**
+     * Returns the estimated size of this symbol in bytes, including its name.
+     */
+    long heapSize() {
+        // s, kind, tag, value and nameTag
+        return HeapSize.object(4 * HeapSize.REFERENCE + 1) + HeapSize.string(s);
+    }
+
     public char charValue() {
         assert s.length() == 1 : "not a char '" + s + "'";
         return s.charAt(0);
@@ -81,37 +117,43 @@ public sealed class Symbol permits Diacritic {
         return s;
     }
 
-    public boolean matches(@NotNull String s) {
-        return this.s.equals(s);
+    public @NotNull TagKind getKind() {
+        return kind;
+    }
+
+    public boolean matches(@NotNull Tag tag) {
+        return this.tag == tag;
     }
 
     public boolean matches(@NotNull AnalysisClass c) {
-        var tag = c.getMorphologyTag();
-        return s.length() == tag.length() + 2 && s.charAt(0) == '[' && s.charAt(s.length() - 1) == ']' && s.indexOf(tag) == 1;
+        return value == c;
+    }
+
+    /**
+     * Returns the value represented by this tag if it's of given type, otherwise null.
+     */
+    public <T extends AnalysisClass> @Nullable T getValue(@NotNull Class<T> type) {
+        return type.isInstance(value) ? type.cast(value) : null;
     }
 
     public boolean isNameTag() {
-        return startsWith(Tags.PREFIX_LE);
+        return nameTag;
     }
 
     public boolean isXParameter() {
-        return startsWith(Tags.PREFIX_X);
+        return kind == TagKind.PARAMETER;
     }
 
     public boolean isClassTag() {
-        return startsWith(Tags.PREFIX_L);
+        return kind == TagKind.CLASS;
     }
 
     public boolean isBaseFormTag() {
-        return matches(Tags.xp) || matches(Tags.xj);
+        return tag == Tag.XP || tag == Tag.XJ;
     }
 
     public boolean isBoundary() {
-        return startsWith(Tags.PREFIX_B);
-    }
-
-    private boolean startsWith(@NotNull String s) {
-        return this.s.startsWith(s);
+        return kind == TagKind.BOUNDARY;
     }
 }
 
@@ -131,6 +173,12 @@ final class Diacritic extends Symbol {
         this.value = value;
     }
 
+    @Override
+    long heapSize() {
+        // Fields of Symbol followed by op, feature and value
+        return HeapSize.object(4 * HeapSize.REFERENCE + 1 + HeapSize.REFERENCE + 2 + 2) + HeapSize.string(toString());
+    }
+
     static @NotNull Diacritic parse(@NotNull String symbol,
                                     @NotNull SymbolMap features,
                                     @NotNull SymbolMap values) {
@@ -0,0 +1,210 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for the different in-memory representations of an unweighted transducer.
+ * <p>
+ * The representations differ only in how states and transitions are stored: all of them
+ * consume the same input and produce the same outputs in the same order.
+ */
+public abstract sealed class Transducer permits UnweightedTransducer, CompactTransducer, MappedTransducer {
+
+    final @NotNull InputAlphabet alphabet;
+    public final int flagDiacriticFeatureCount;
+    private final int symbolCount;
+    private final long symbolBytes;
+
+    /**
+     * States having at least this many character transitions get a table that is directly
+     * indexed by the input alphabet instead of searching the transitions.
+     */
+    static final int TRANSITION_TABLE_MIN_TRANSITIONS = 16;
+
+    Transducer(@NotNull List<Symbol> symbols, int flagDiacriticFeatureCount) {
+        this.flagDiacriticFeatureCount = flagDiacriticFeatureCount;
+        this.alphabet = new InputAlphabet(symbols);
+        this.symbolCount = symbols.size();
+
+        long bytes = 0;
+        for (var symbol : symbols)
+            bytes += symbol.heapSize();
+        this.symbolBytes = bytes;
+    }
+
+    Transducer(@NotNull Transducer transducer) {
+        this.flagDiacriticFeatureCount = transducer.flagDiacriticFeatureCount;
+        this.alphabet = transducer.alphabet;
+        this.symbolCount = transducer.symbolCount;
+        this.symbolBytes = transducer.symbolBytes;
+    }
+
+    public abstract int getStateCount();
+
+    /**
+     * Returns the number of transitions, not counting the markers of final states.
+     */
+    public abstract int getTransitionCount();
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Adds the estimated heap usage of the structures of this transducer to given map,
+     * keyed by the name of the structure.
+     */
+    public void estimateHeapUsage(@NotNull Map<String, Long> sizes) {
+        sizes.merge("symbols", symbolBytes, Long::sum);
+        sizes.merge("input alphabet", alphabet.heapSize(), Long::sum);
+    }
+
+    /**
+     * Returns the number of bytes read from a memory-mapped file instead of the heap.
+     */
+    public long getMappedBytes() {
+        return 0;
+    }
+
+    /**
+     * Transduces given input, calling callback with the depth of the output stack for each output.
+     * Frames of the traversal are kept in given stack instead of the thread stack, so the traversal
+     * itself does not allocate.
+     */
+    public final void transduce(@NotNull CharSequence input,
+                                @NotNull List<Symbol> inputBuffer,
+                                short[] flags,
+                                @NotNull Symbol[] outputStack,
+                                @NotNull TraversalStack stack,
+                                @NotNull TransducerCallback callback) {
+        transduce(input, inputBuffer, flags, outputStack, stack, null, callback);
+    }
+
+    /**
+     * Transduces given input, skipping all paths whose output is rejected by given filter
+     * as soon as the filter rejects it. Outputs that are produced are the same and in the same order
+     * as without the filter, except that outputs rejected by the filter are missing.
+     */
+    public final void transduce(@NotNull CharSequence input,
+                                @NotNull List<Symbol> inputBuffer,
+                                short[] flags,
+                                @NotNull Symbol[] outputStack,
+                                @NotNull TraversalStack stack,
+                                @Nullable OutputFilter filter,
+                                @NotNull TransducerCallback callback) {
+        if (stack.capacity() < outputStack.length)
+            throw new IllegalArgumentException("traversal stack is smaller than output stack");
+
+        if (outputStack.length == 0 || !prepareInput(inputBuffer, input))
+            return;
+
+        stack.filterStates[0] = 0;
+        traverse(inputBuffer, flags, outputStack, stack, filter, callback);
+    }
+
+    abstract void traverse(@NotNull List<Symbol> input,
+                           short[] flags,
+                           @NotNull Symbol[] output,
+                           @NotNull TraversalStack stack,
+                           @Nullable OutputFilter filter,
+                           @NotNull TransducerCallback callback);
+
+    /**
+     * Returns the filter state after appending given symbol to the output of the frame at given depth,
+     * or {@link OutputFilter#REJECTED} if the transition should be skipped. Called only for transitions
+     * that pass the flag diacritic check, so that rejections count only the transitions pruned by the filter.
+     */
+    static long filter(@Nullable OutputFilter filter, @NotNull TraversalStack stack, int depth, @NotNull Symbol symbol) {
+        if (filter == null)
+            return 0;
+
+        long state = filter.next(stack.filterStates[depth], symbol);
+        if (state == OutputFilter.REJECTED)
+            stack.prunedTransitions++;
+        return state;
+    }
+
+    final boolean prepareInput(@NotNull List<Symbol> inputSymbols, @NotNull CharSequence input) {
+        inputSymbols.clear();
+
+        for (int i = 0, len = input.length(); i < len; i++) {
+            var symbol = alphabet.symbolFor(input.charAt(i));
+            if (symbol == null)
+                return false;
+
+            inputSymbols.add(symbol);
+        }
+
+        return true;
+    }
+
+    static boolean flagDiacriticCheck(short[] flags, @NotNull Diacritic ofv, short value) {
+        switch (ofv.op) {
+            case P -> {
+                flags[ofv.feature] = ofv.value;
+                return true;
+            }
+            case C -> {
+                flags[ofv.feature] = Diacritic.Neutral;
+                return true;
+            }
+            case U -> {
+                if (value != Diacritic.Neutral)
+                    return value == ofv.value;
+                else
+                    flags[ofv.feature] = ofv.value;
+                return true;
+            }
+            case R -> {
+                boolean ok = (ofv.value != Diacritic.Any || value != Diacritic.Neutral) && (ofv.value == Diacritic.Any || value == ofv.value);
+                if (ok)
+                    flags[ofv.feature] = value;
+                return ok;
+            }
+            case D -> {
+                boolean ok = (ofv.value != Diacritic.Any || value == Diacritic.Neutral) && value != ofv.value;
+                if (ok)
+                    flags[ofv.feature] = value;
+                return ok;
+            }
+        }
+
+        throw new UnsupportedOperationException("unknown operation: " + ofv.feature);
+    }
+}
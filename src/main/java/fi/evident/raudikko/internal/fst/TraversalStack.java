@@ -0,0 +1,145 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.utils.HeapSize;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Preallocated stack of frames for iterative traversal of a {@link Transducer}.
+ * <p>
+ * Each frame represents a state being visited: the frame at index {@code d} represents
+ * a state entered at output depth {@code d}. The stack is owned by a single
+ * analyzer and reused for every word, so traversal does not allocate or consume thread stack.
+ */
+public final class TraversalStack {
+
+    /** State of each frame: index for array based transducers */
+    final int[] states;
+
+    /** State of each frame for {@link UnweightedTransducer} */
+    final State[] nodes;
+
+    /** Position in input of each frame */
+    final int[] inputPositions;
+
+    /** Next diacritic transition to try, or {@link #UNVISITED} if the frame has not been started */
+    final int[] diacriticCursors;
+
+    /** Next character transition to try */
+    final int[] charCursors;
+
+    /** Feature whose value to restore when frame is popped, or -1 */
+    final int[] savedFeatures;
+
+    /** Value of the feature to restore when frame is popped */
+    final short[] savedValues;
+
+    /** State of the {@link OutputFilter} after the output leading to each frame */
+    final long[] filterStates;
+
+    /** Number of transitions skipped because the filter rejected their output */
+    long prunedTransitions;
+
+    static final int UNVISITED = -1;
+
+    public TraversalStack(int capacity) {
+        this.states = new int[capacity];
+        this.nodes = new State[capacity];
+        this.inputPositions = new int[capacity];
+        this.diacriticCursors = new int[capacity];
+        this.charCursors = new int[capacity];
+        this.savedFeatures = new int[capacity];
+        this.savedValues = new short[capacity];
+        this.filterStates = new long[capacity];
+    }
+
+    public int capacity() {
+        return states.length;
+    }
+
+    /**
+     * Returns the estimated heap usage of this stack in bytes.
+     */
+    public long estimateHeapUsage() {
+        int capacity = capacity();
+        return HeapSize.object(8 * HeapSize.REFERENCE + 8)
+            + HeapSize.array(capacity, 4) // states
+            + HeapSize.array(capacity, HeapSize.REFERENCE) // nodes
+            + 4 * HeapSize.array(capacity, 4) // input positions, cursors and saved features
+            + HeapSize.array(capacity, 2) // saved values
+            + HeapSize.array(capacity, 8); // filter states
+    }
+
+    /**
+     * Returns the number of transitions that traversals using this stack have skipped
+     * because an {@link OutputFilter} rejected their output. Each skipped transition cuts
+     * a whole subtree of paths.
+     */
+    public long getPrunedTransitions() {
+        return prunedTransitions;
+    }
+
+    /**
+     * Initializes frame at given depth to be started on next iteration.
+     */
+    void push(int depth, int state, int inputPos, int savedFeature, short savedValue) {
+        states[depth] = state;
+        inputPositions[depth] = inputPos;
+        diacriticCursors[depth] = UNVISITED;
+        savedFeatures[depth] = savedFeature;
+        savedValues[depth] = savedValue;
+    }
+
+    void push(int depth, @NotNull State state, int inputPos, int savedFeature, short savedValue) {
+        nodes[depth] = state;
+        push(depth, 0, inputPos, savedFeature, savedValue);
+    }
+
+    /**
+     * Restores flags modified when entering frame at given depth.
+     */
+    void pop(int depth, short[] flags) {
+        int feature = savedFeatures[depth];
+        if (feature >= 0)
+            flags[feature] = savedValues[depth];
+    }
+
+    /**
+     * Pops all frames from given depth down to the root, restoring the flags to their original values.
+     */
+    void unwind(int depth, short[] flags) {
+        while (depth >= 0)
+            pop(depth--, flags);
+    }
+}
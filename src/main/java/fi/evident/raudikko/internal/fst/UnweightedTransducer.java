@@ -32,133 +32,184 @@
 
 package fi.evident.raudikko.internal.fst;
 
-import fi.evident.raudikko.internal.utils.CharMap;
+import fi.evident.raudikko.internal.utils.HeapSize;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
-import static java.lang.Character.toLowerCase;
+public final class UnweightedTransducer extends Transducer {
 
-public final class UnweightedTransducer {
-
-    private final @NotNull CharMap<Symbol> charToSymbol = new CharMap<>();
     private final @NotNull State rootState;
-    public final int flagDiacriticFeatureCount;
 
     public UnweightedTransducer(@NotNull List<Symbol> symbols,
                                 @NotNull State rootState,
                                 int flagDiacriticFeatureCount) {
+        super(symbols, flagDiacriticFeatureCount);
         this.rootState = rootState;
-        this.flagDiacriticFeatureCount = flagDiacriticFeatureCount;
-
-        for (var symbol : symbols)
-            if (symbol.isChar())
-                charToSymbol.put(symbol.charValue(), symbol);
+        buildTransitionTables(TRANSITION_TABLE_MIN_TRANSITIONS);
     }
 
-    public void transduce(@NotNull CharSequence input,
-                          @NotNull List<Symbol> inputBuffer,
-                          short[] flags,
-                          @NotNull Symbol[] outputStack,
-                          @NotNull Consumer<Integer> callback) {
-
-        if (!prepareInput(inputBuffer, input))
-            return;
-
-        enterState(rootState, 0, inputBuffer, flags, outputStack, callback, 0);
+    @NotNull State rootState() {
+        return rootState;
     }
 
-    private boolean prepareInput(@NotNull List<Symbol> inputSymbols, @NotNull CharSequence input) {
-        inputSymbols.clear();
+    /**
+     * Builds direct-indexed transition tables for all states having at least given number
+     * of character transitions and removes them from the rest.
+     */
+    void buildTransitionTables(int minTransitions) {
+        forEachState(state -> state.buildTransitionTable(alphabet, minTransitions));
+    }
 
-        for (int i = 0, len = input.length(); i < len; i++) {
-            var symbol = charToSymbol.get(toLowerCase(input.charAt(i)));
-            if (symbol == null)
-                return false;
+    @Override
+    public int getStateCount() {
+        int[] count = {0};
+        forEachState(state -> count[0]++);
+        return count[0];
+    }
 
-            inputSymbols.add(symbol);
-        }
+    @Override
+    public int getTransitionCount() {
+        int[] count = {0};
+        forEachState(state -> count[0] += state.diacriticTransitions.length + state.charTransitions.length);
+        return count[0];
+    }
 
-        return true;
+    @Override
+    public void estimateHeapUsage(@NotNull Map<String, Long> sizes) {
+        super.estimateHeapUsage(sizes);
+
+        long[] states = {0};
+        long[] transitions = {0};
+        long[] tables = {0};
+        forEachState(state -> {
+            // diacriticTransitions, charTransitions and transitionTable
+            states[0] += HeapSize.object(3 * HeapSize.REFERENCE);
+
+            // Each transition has its input, output and target
+            transitions[0] += HeapSize.array(state.diacriticTransitions.length, HeapSize.REFERENCE)
+                + state.diacriticTransitions.length * HeapSize.object(3 * HeapSize.REFERENCE)
+                + HeapSize.array(state.charTransitions.length, HeapSize.REFERENCE)
+                + state.charTransitions.length * HeapSize.object(2 + 2 * HeapSize.REFERENCE);
+
+            if (state.transitionTable != null)
+                tables[0] += HeapSize.array(state.transitionTable.length, 4);
+        });
+
+        sizes.merge("states", states[0], Long::sum);
+        sizes.merge("transitions", transitions[0], Long::sum);
+        sizes.merge("transition tables", tables[0], Long::sum);
     }
 
-    private void enterState(@NotNull State st,
-                            int inputPos,
-                            @NotNull List<Symbol> input,
-                            short[] flags,
-                            @NotNull Symbol[] output,
-                            @NotNull Consumer<Integer> callback,
-                            int depth) {
-        if (depth >= output.length) return;
-
-        if (st.isFinal() && inputPos == input.size()) {
-            callback.accept(depth);
-            return;
+    /**
+     * Calls given action once for each state reachable from the root.
+     */
+    private void forEachState(@NotNull Consumer<State> action) {
+        var visited = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+        var pending = new ArrayDeque<State>();
+        visited.add(rootState);
+        pending.add(rootState);
+
+        while (!pending.isEmpty()) {
+            var state = pending.poll();
+            action.accept(state);
+
+            for (var transition : state.diacriticTransitions)
+                if (visited.add(transition.target))
+                    pending.add(transition.target);
+            for (var transition : state.charTransitions)
+                if (visited.add(transition.target))
+                    pending.add(transition.target);
         }
+    }
 
-        for (DiacriticTransition transition : st.diacriticTransitions) {
-            var diacritic = transition.in;
+    @Override
+    void traverse(@NotNull List<Symbol> input,
+                  short[] flags,
+                  @NotNull Symbol[] output,
+                  @NotNull TraversalStack stack,
+                  @Nullable OutputFilter filter,
+                  @NotNull TransducerCallback callback) {
+        int inputSize = input.size();
+        int depth = 0;
+        stack.push(depth, rootState, 0, -1, (short) 0);
+
+        frames:
+        while (depth >= 0) {
+            var st = stack.nodes[depth];
+            int inputPos = stack.inputPositions[depth];
+            int t = stack.diacriticCursors[depth];
+
+            if (t == TraversalStack.UNVISITED) {
+                if (st.isFinal() && inputPos == inputSize) {
+                    if (!callback.accept(depth)) {
+                        stack.unwind(depth, flags);
+                        return;
+                    }
+                    stack.pop(depth--, flags);
+                    continue;
+                }
 
-            if (diacritic == Diacritic.EPSILON) {
-                output[depth] = transition.symOut;
-                enterState(transition.target, inputPos, input, flags, output, callback, depth + 1);
+                t = 0;
+                stack.charCursors[depth] = inputPos < inputSize
+                    ? st.firstCharacterTransitionFor(alphabet, input.get(inputPos).charValue())
+                    : st.charTransitions.length;
+            }
 
-            } else {
-                short oldValue = flags[diacritic.feature];
-                if (flagDiacriticCheck(flags, diacritic, oldValue)) {
+            // Frames at the maximum depth would not produce anything, so don't bother entering them
+            if (depth + 1 < output.length) {
+                var diacriticTransitions = st.diacriticTransitions;
+                while (t < diacriticTransitions.length) {
+                    var transition = diacriticTransitions[t++];
+                    var diacritic = transition.in;
+                    int feature = -1;
+                    short oldValue = 0;
+
+                    if (diacritic != Diacritic.EPSILON) {
+                        feature = diacritic.feature;
+                        oldValue = flags[feature];
+                        if (!flagDiacriticCheck(flags, diacritic, oldValue))
+                            continue;
+                    }
+
+                    long filterState = filter(filter, stack, depth, transition.symOut);
+                    if (filterState == OutputFilter.REJECTED) {
+                        if (feature != -1)
+                            flags[feature] = oldValue;
+                        continue;
+                    }
+
+                    stack.diacriticCursors[depth] = t;
                     output[depth] = transition.symOut;
-                    enterState(transition.target, inputPos, input, flags, output, callback, depth + 1);
-                    flags[diacritic.feature] = oldValue;
+                    stack.push(++depth, transition.target, inputPos, feature, oldValue);
+                    stack.filterStates[depth] = filterState;
+                    continue frames;
                 }
-            }
-        }
-
-        if (inputPos < input.size()) {
-            char ch  = input.get(inputPos).charValue();
+                stack.diacriticCursors[depth] = t;
 
-            var transitions = st.charTransitions;
-            for (int i = st.firstCharacterTransitionFor(ch); i < transitions.length; i++) {
-                var transition = transitions[i];
-                if (ch != transition.in) break;
+                var charTransitions = st.charTransitions;
+                int c = stack.charCursors[depth];
+                if (c < charTransitions.length && charTransitions[c].in == input.get(inputPos).charValue()) {
+                    var transition = charTransitions[c];
+                    stack.charCursors[depth] = c + 1;
+                    long filterState = filter(filter, stack, depth, transition.symOut);
+                    if (filterState == OutputFilter.REJECTED)
+                        continue;
 
-                output[depth] = transition.symOut;
-                enterState(transition.target, inputPos + 1, input, flags, output, callback, depth + 1);
+                    output[depth] = transition.symOut;
+                    stack.push(++depth, transition.target, inputPos + 1, -1, (short) 0);
+                    stack.filterStates[depth] = filterState;
+                    continue;
+                }
             }
-        }
-    }
 
-    private boolean flagDiacriticCheck(short[] flags, @NotNull Diacritic ofv, short value) {
-        switch (ofv.op) {
-            case P -> {
-                flags[ofv.feature] = ofv.value;
-                return true;
-            }
-            case C -> {
-                flags[ofv.feature] = Diacritic.Neutral;
-                return true;
-            }
-            case U -> {
-                if (value != Diacritic.Neutral)
-                    return value == ofv.value;
-                else
-                    flags[ofv.feature] = ofv.value;
-                return true;
-            }
-            case R -> {
-                boolean ok = (ofv.value != Diacritic.Any || value != Diacritic.Neutral) && (ofv.value == Diacritic.Any || value == ofv.value);
-                if (ok)
-                    flags[ofv.feature] = value;
-                return ok;
-            }
-            case D -> {
-                boolean ok = (ofv.value != Diacritic.Any || value == Diacritic.Neutral) && value != ofv.value;
-                if (ok)
-                    flags[ofv.feature] = value;
-                return ok;
-            }
+            stack.pop(depth--, flags);
         }
-
-        throw new UnsupportedOperationException("unknown operation: " + ofv.feature);
     }
 }
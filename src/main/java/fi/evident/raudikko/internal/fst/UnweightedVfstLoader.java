@@ -37,12 +37,18 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 /**
- * Loads [UnweightedTransducer] from a <a href="https://github.com/voikko/corevoikko/wiki/vfst-fileformat">VFST-file</a>.
+ * Loads [UnweightedTransducer], [CompactTransducer] or [MappedTransducer] from a <a href="https://github.com/voikko/corevoikko/wiki/vfst-fileformat">VFST-file</a>.
  */
 public final class UnweightedVfstLoader {
 
@@ -51,58 +57,9 @@ public final class UnweightedVfstLoader {
 
     @NotNull
     public static UnweightedTransducer load(@NotNull InputStream inputStream) throws IOException {
-        var stream = new MyInputStream(inputStream);
-        stream.skipNBytes(HEADER_SIZE);
-
-        var features = new SymbolMap();
-        var values = new SymbolMap();
-
-        // initialize these to 0 and 1 (Neutral and Any)
-        values.getCode("");
-        values.getCode("@");
-
-        short symbolCount = stream.readShort();
-        var symbols = new ArrayList<Symbol>(symbolCount);
-        for (short i = 0; i < symbolCount; i++) {
-            var s = stream.readUtf8String();
-
-            if (i == 0)
-                symbols.add(Diacritic.EPSILON);
-            else if (s.charAt(0) == '@')
-                symbols.add(Diacritic.parse(s, features, values));
-            else
-                symbols.add(new Symbol(s));
-        }
-
-        int partial = stream.getPosition() % TRANSITION_ALIGNMENT;
-        if (partial != 0)
-            stream.skipNBytes(TRANSITION_ALIGNMENT - partial);
-
-        var transitions = new ArrayList<TransitionData>();
-        while (stream.hasMore()) {
-            short symIn = stream.readShort();
-            short symOut = stream.readShort();
-            int targetState = stream.readInt24();
-            int moreTransitions = stream.readByte();
-
-            assert symIn >= -1;
-            assert symOut >= 0;
-
-            boolean overflow = moreTransitions == 0xff;
-
-            if (overflow) {
-                moreTransitions = stream.readInt();
-                int padding = stream.readInt();
-                assert padding == 0;
-            }
-
-            var in = (symIn == -1) ? Symbol.FINAL : symbols.get(symIn);
-            var out = symbols.get(symOut);
-            transitions.add(new TransitionData(in, out.toOutputSymbol(), targetState, moreTransitions));
-
-            if (overflow)
-                transitions.add(null); // add null to keep indexes correct
-        }
+        var vfst = read(inputStream);
+        var symbols = vfst.symbols;
+        var transitions = vfst.transitions;
 
         var targets = new HashSet<>();
         targets.add(0);
@@ -152,12 +109,206 @@ public final class UnweightedVfstLoader {
             }
         }
 
-        return new UnweightedTransducer(symbols, states.get(0), features.size());
+        return new UnweightedTransducer(symbols, states.get(0), vfst.flagDiacriticFeatureCount);
+    }
+
+    /**
+     * Loads a {@link CompactTransducer} from given stream.
+     */
+    @NotNull
+    public static CompactTransducer loadCompact(@NotNull InputStream inputStream) throws IOException {
+        var vfst = read(inputStream);
+        var transitions = vfst.transitions;
+
+        // Number the states in the order they appear in the file so that the root state gets number 0.
+        var stateNumbers = new int[transitions.size()];
+        Arrays.fill(stateNumbers, -1);
+        stateNumbers[0] = 0;
+        for (var transition : transitions)
+            if (transition != null)
+                stateNumbers[transition.targetState] = 0;
+
+        int stateCount = 0;
+        int transitionCount = 0;
+        for (int i = 0; i < stateNumbers.length; i++) {
+            if (stateNumbers[i] == -1) continue;
+
+            stateNumbers[i] = stateCount++;
+
+            var head = transitions.get(i);
+            if (!head.symIn.isFinal())
+                transitionCount += head.moreTransitions + 1;
+        }
+
+        var offsets = new int[2 * stateCount + 1];
+        var inputs = new char[transitionCount];
+        var outputs = new short[transitionCount];
+        var targets = new int[transitionCount];
+        int next = 0;
+
+        for (int i = 0; i < stateNumbers.length; i++) {
+            int state = stateNumbers[i];
+            if (state == -1) continue;
+
+            var head = transitions.get(i);
+            int count = head.symIn.isFinal() ? 0 : head.moreTransitions + 1;
+            int offset = head.hasOverflow() ? 1 : 0;
+
+            // Diacritic transitions first, then character transitions, both in the original order.
+            offsets[2 * state] = next;
+            for (int j = 0; j < count + offset; j++) {
+                if (j == 1 && head.hasOverflow()) continue;
+
+                var transition = transitions.get(i + j);
+                if (transition.symIn.isDiacritic()) {
+                    inputs[next] = (char) transition.inIndex;
+                    outputs[next] = transition.outIndex;
+                    targets[next] = stateNumbers[transition.targetState];
+                    next++;
+                }
+            }
+
+            offsets[2 * state + 1] = next;
+            for (int j = 0; j < count + offset; j++) {
+                if (j == 1 && head.hasOverflow()) continue;
+
+                var transition = transitions.get(i + j);
+                if (!transition.symIn.isDiacritic()) {
+                    inputs[next] = transition.symIn.charValue();
+                    outputs[next] = transition.outIndex;
+                    targets[next] = stateNumbers[transition.targetState];
+                    next++;
+                }
+            }
+        }
+        offsets[2 * stateCount] = next;
+
+        return new CompactTransducer(vfst.symbols, vfst.flagDiacriticFeatureCount, offsets, inputs, outputs, targets);
+    }
+
+    /**
+     * Maps given VFST-file to memory and returns a {@link MappedTransducer} that reads its transitions
+     * directly from the mapped file. Only the symbol table is read eagerly.
+     */
+    @NotNull
+    public static MappedTransducer loadMapped(@NotNull Path path) throws IOException {
+        VfstHeader header;
+        try (var in = Files.newInputStream(path)) {
+            header = readHeader(new MyInputStream(in));
+        }
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, header.transitionOffset, channel.size() - header.transitionOffset);
+            return new MappedTransducer(header.symbols, header.flagDiacriticFeatureCount, buffer);
+        }
+    }
+
+    private static @NotNull VfstData read(@NotNull InputStream inputStream) throws IOException {
+        var stream = new MyInputStream(inputStream);
+        var header = readHeader(stream);
+        var symbols = header.symbols;
+
+        var transitions = new ArrayList<TransitionData>();
+        while (stream.hasMore()) {
+            short symIn = stream.readShort();
+            short symOut = stream.readShort();
+            int targetState = stream.readInt24();
+            int moreTransitions = stream.readByte();
+
+            assert symIn >= -1;
+            assert symOut >= 0;
+
+            boolean overflow = moreTransitions == 0xff;
+
+            if (overflow) {
+                moreTransitions = stream.readInt();
+                int padding = stream.readInt();
+                assert padding == 0;
+            }
+
+            var in = (symIn == -1) ? Symbol.FINAL : symbols.get(symIn);
+            var out = symbols.get(symOut);
+
+            // Diacritics are output as epsilon, which is always the first symbol
+            short outIndex = out.isDiacritic() ? 0 : symOut;
+
+            transitions.add(new TransitionData(in, out.toOutputSymbol(), symIn, outIndex, targetState, moreTransitions));
+
+            if (overflow)
+                transitions.add(null); // add null to keep indexes correct
+        }
+
+        return new VfstData(symbols, header.flagDiacriticFeatureCount, transitions);
+    }
+
+    private static @NotNull VfstHeader readHeader(@NotNull MyInputStream stream) throws IOException {
+        stream.skipNBytes(HEADER_SIZE);
+
+        short symbolCount = stream.readShort();
+        var names = new ArrayList<String>(symbolCount);
+        for (short i = 0; i < symbolCount; i++)
+            names.add(stream.readUtf8String());
+
+        var symbols = parseSymbols(names);
+
+        int partial = stream.getPosition() % TRANSITION_ALIGNMENT;
+        if (partial != 0)
+            stream.skipNBytes(TRANSITION_ALIGNMENT - partial);
+
+        return new VfstHeader(symbols.symbols, symbols.flagDiacriticFeatureCount, stream.getPosition());
+    }
+
+    /**
+     * Creates symbols for given symbol names, first of which is always epsilon.
+     */
+    static @NotNull SymbolTable parseSymbols(@NotNull List<String> names) {
+        var features = new SymbolMap();
+        var values = new SymbolMap();
+
+        // initialize these to 0 and 1 (Neutral and Any)
+        values.getCode("");
+        values.getCode("@");
+
+        var symbols = new ArrayList<Symbol>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            var s = names.get(i);
+
+            if (i == 0)
+                symbols.add(Diacritic.EPSILON);
+            else if (s.charAt(0) == '@')
+                symbols.add(Diacritic.parse(s, features, values));
+            else
+                symbols.add(new Symbol(s));
+        }
+
+        return new SymbolTable(symbols, features.size());
+    }
+
+    record SymbolTable(
+        @NotNull List<Symbol> symbols,
+        int flagDiacriticFeatureCount
+    ) {
+    }
+
+    private record VfstHeader(
+        @NotNull List<Symbol> symbols,
+        int flagDiacriticFeatureCount,
+        int transitionOffset
+    ) {
+    }
+
+    private record VfstData(
+        @NotNull List<Symbol> symbols,
+        int flagDiacriticFeatureCount,
+        @NotNull List<TransitionData> transitions
+    ) {
     }
 
     private record TransitionData(
         @NotNull Symbol symIn,
         @NotNull Symbol symOut,
+        short inIndex,
+        short outIndex,
         int targetState,
         int moreTransitions
     ) {
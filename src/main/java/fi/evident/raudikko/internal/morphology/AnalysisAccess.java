@@ -0,0 +1,65 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Analysis;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Gives the analyzer access to the parts of {@link Analysis} that are not public API.
+ * <p>
+ * The instance is registered by {@link Analysis} when the class is initialized, so it's
+ * available whenever there's an analysis to operate on.
+ */
+public abstract class AnalysisAccess {
+
+    private static @Nullable AnalysisAccess instance;
+
+    public static void register(@NotNull AnalysisAccess access) {
+        instance = access;
+    }
+
+    static @NotNull AnalysisAccess get() {
+        return requireNonNull(instance, "Analysis is not initialized");
+    }
+
+    /**
+     * Makes given properties of the analysis computed on first access from given fields.
+     *
+     * @param properties bitmask of the properties, see {@link LazyAnalysisFields}
+     */
+    protected abstract void setLazyFields(@NotNull Analysis analysis, @NotNull LazyAnalysisFields fields, int properties);
+}
@@ -0,0 +1,192 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.AnalysisView;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.analysis.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static fi.evident.raudikko.analysis.WordClass.PROPER_NOUN;
+import static fi.evident.raudikko.internal.morphology.BaseForm.buildBaseform;
+import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
+
+/**
+ * {@link AnalysisView} over the current output of {@link FinnishVfstAnalyzer}.
+ * <p>
+ * Basic attributes are parsed to a reusable {@link BasicAttributes} and the raw output is read directly
+ * from the {@link SymbolBuffer}. Structure and base form are computed only when requested, and the base
+ * form is written to a reusable builder. The same instance is used for all analyses.
+ */
+final class AnalysisCursor implements AnalysisView {
+
+    private final @NotNull SymbolBuffer buffer;
+    private final @NotNull BasicAttributes attributes;
+    private final @NotNull AnalyzerConfiguration configuration;
+    private final @NotNull StringBuilder baseForm = new StringBuilder();
+    private int wordLength;
+    private boolean organizationName;
+    private @Nullable Structure structure;
+    private boolean baseFormComputed;
+    private boolean hasBaseForm;
+
+    AnalysisCursor(@NotNull SymbolBuffer buffer, @NotNull BasicAttributes attributes, @NotNull AnalyzerConfiguration configuration) {
+        this.buffer = buffer;
+        this.attributes = attributes;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Prepares the cursor for the analysis currently in the buffer. The basic attributes must already
+     * have been parsed. If {@code organizationName} is set, the cursor presents the organization name
+     * interpretation of the analysis instead.
+     */
+    void reset(int wordLength, boolean organizationName) {
+        this.wordLength = wordLength;
+        this.organizationName = organizationName;
+        this.structure = null;
+        this.baseFormComputed = false;
+    }
+
+    @Override
+    public @Nullable CharSequence getBaseForm() {
+        if (!configuration.isIncludeBaseForm())
+            return null;
+
+        if (!baseFormComputed) {
+            hasBaseForm = buildBaseform(buffer, structure(), baseForm);
+            baseFormComputed = true;
+        }
+
+        return hasBaseForm ? baseForm : null;
+    }
+
+    @Override
+    public @Nullable Structure getStructure() {
+        return configuration.isIncludeStructure() ? structure() : null;
+    }
+
+    private @NotNull Structure structure() {
+        if (structure == null) {
+            var parsed = parseStructure(buffer, wordLength);
+            structure = organizationName ? parsed.capitalized() : parsed;
+        }
+        return structure;
+    }
+
+    @Override
+    public @Nullable CharSequence getFstOutput() {
+        return configuration.isIncludeFstOutput() ? buffer.contents() : null;
+    }
+
+    @Override
+    public @Nullable WordClass getWordClass() {
+        return organizationName ? PROPER_NOUN : attributes.getWordClass();
+    }
+
+    @Override
+    public @Nullable Locative getLocative() {
+        return attributes.getLocative();
+    }
+
+    @Override
+    public @Nullable GrammaticalNumber getNumber() {
+        return attributes.getNumber();
+    }
+
+    @Override
+    public @Nullable Comparison getComparison() {
+        return attributes.getComparison();
+    }
+
+    @Override
+    public @Nullable FocusParticle getFocus() {
+        return attributes.getFocus();
+    }
+
+    @Override
+    public @Nullable Mood getMood() {
+        return attributes.getMood();
+    }
+
+    @Override
+    public @Nullable Participle getParticiple() {
+        return attributes.getParticiple();
+    }
+
+    @Override
+    public @Nullable Negative getNegative() {
+        return attributes.getNegative();
+    }
+
+    @Override
+    public boolean isInterrogative() {
+        return attributes.isInterrogative();
+    }
+
+    @Override
+    public @Nullable Person getPerson() {
+        return attributes.getPerson();
+    }
+
+    @Override
+    public @Nullable Possessive getPossessive() {
+        return attributes.getPossessive();
+    }
+
+    @Override
+    public @Nullable Tense getTense() {
+        return attributes.getTense();
+    }
+
+    @Override
+    public boolean isMalagaVapaaJalkiosa() {
+        return attributes.isMalagaVapaaJalkiosa();
+    }
+
+    @Override
+    public boolean isPossibleGeographicalName() {
+        return attributes.isPossibleGeographicalName();
+    }
+
+    @Override
+    public @Nullable Mood getRequireFollowingVerb() {
+        return attributes.getRequireFollowingVerb();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return buffer.fullContents();
+    }
+}
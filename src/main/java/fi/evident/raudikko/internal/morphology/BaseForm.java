@@ -46,6 +46,16 @@ final class BaseForm {
 
     static @Nullable String parseBaseform(@NotNull SymbolBuffer tokenizer, @NotNull Structure structure) {
         var baseform = new StringBuilder(tokenizer.getTotalLength());
+        return buildBaseform(tokenizer, structure, baseform) ? baseform.toString() : null;
+    }
+
+    /**
+     * Writes the base form to given builder, replacing its previous contents.
+     *
+     * @return {@code false} if the analysis has no base form
+     */
+    static boolean buildBaseform(@NotNull SymbolBuffer tokenizer, @NotNull Structure structure, @NotNull StringBuilder baseform) {
+        baseform.setLength(0);
         @Nullable String latestBaseForm = null;
         var latestXpStartInBaseform = 0;
         var hyphensInLatestXp = 0;
@@ -68,7 +78,7 @@ final class BaseForm {
                 } else if (tag.isXParameter()) {
                     tokenizer.skipXTag();
 
-                } else if (tag.matches(Tags.de)) {
+                } else if (tag.matches(Tag.DE)) {
                     isInsideDe = allowDe;
 
                 } else if (tag.isClassTag()) {
@@ -78,7 +88,7 @@ final class BaseForm {
                         String numeralBaseform = parseNumeralBaseform(tokenizer.copy());
                         if (numeralBaseform != null) {
                             baseform.append(numeralBaseform);
-                            return baseform.toString();
+                            return true;
                         }
                     }
 
@@ -116,7 +126,7 @@ final class BaseForm {
             baseform.append(latestBaseForm);
         }
 
-        return baseform.length() == 0 ? null : baseform.toString();
+        return baseform.length() != 0;
     }
 
     private static @Nullable String parseNumeralBaseform(@NotNull SymbolBuffer tokenizer) {
@@ -145,7 +155,7 @@ final class BaseForm {
                 } else if (tag.isXParameter()) {
                     tokenizer.skipXTag();
 
-                } else if (tag.matches(Tags.bc)) {
+                } else if (tag.matches(Tag.BC)) {
                     if (tokenizer.isAtLastToken())
                         return null; // incomplete numeral is really a prefix
                     xpPassed = false;
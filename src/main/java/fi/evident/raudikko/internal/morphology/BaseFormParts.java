@@ -32,6 +32,7 @@
 
 package fi.evident.raudikko.internal.morphology;
 
+import fi.evident.raudikko.Word;
 import fi.evident.raudikko.WordPart;
 import org.jetbrains.annotations.NotNull;
 
@@ -46,8 +47,10 @@ final class BaseFormParts {
     }
 
     static @NotNull List<String> parseBaseFormParts(@NotNull SymbolBuffer tokenizer, @NotNull WordParser wordParser) {
-        var word = wordParser.parseWord(tokenizer);
+        return parseBaseFormParts(wordParser.parseWord(tokenizer));
+    }
 
+    static @NotNull List<String> parseBaseFormParts(@NotNull Word word) {
         var result = new ArrayList<String>();
         var wordParts = word.getWordParts();
 
@@ -36,6 +36,7 @@ import fi.evident.raudikko.Analysis;
 import fi.evident.raudikko.analysis.*;
 import fi.evident.raudikko.internal.fst.Symbol;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import static fi.evident.raudikko.analysis.Comparison.COMPARATIVE;
 import static fi.evident.raudikko.analysis.Comparison.SUPERLATIVE;
@@ -45,21 +46,34 @@ import static fi.evident.raudikko.analysis.Mood.INFINITIVE3;
 import static fi.evident.raudikko.analysis.Participle.PAST_PASSIVE;
 import static fi.evident.raudikko.analysis.WordClass.*;
 
+/**
+ * Basic attributes of a single analysis, parsed from the symbols of the transducer output.
+ * <p>
+ * The instance is reusable: {@link #parse(SymbolBuffer)} resets all attributes before parsing,
+ * so that an analyzer can keep a single instance and parse any number of analyses without
+ * allocating.
+ */
 final class BasicAttributes {
 
-    private static final @NotNull TaggedValueLookupTable<WordClass> wordClasses = new TaggedValueLookupTable<>(WordClass.class);
-    private static final @NotNull TaggedValueLookupTable<Comparison> comparisons = new TaggedValueLookupTable<>(Comparison.class);
-    private static final @NotNull TaggedValueLookupTable<Locative> locatives = new TaggedValueLookupTable<>(Locative.class);
-    private static final @NotNull TaggedValueLookupTable<Mood> moods = new TaggedValueLookupTable<>(Mood.class);
-    private static final @NotNull TaggedValueLookupTable<GrammaticalNumber> grammaticalNumbers = new TaggedValueLookupTable<>(GrammaticalNumber.class);
-    private static final @NotNull TaggedValueLookupTable<Negative> negatives = new TaggedValueLookupTable<>(Negative.class);
-    private static final @NotNull TaggedValueLookupTable<Participle> participles = new TaggedValueLookupTable<>(Participle.class);
-    private static final @NotNull TaggedValueLookupTable<Person> persons = new TaggedValueLookupTable<>(Person.class);
-    private static final @NotNull TaggedValueLookupTable<Tense> tenses = new TaggedValueLookupTable<>(Tense.class);
-    private static final @NotNull TaggedValueLookupTable<FocusParticle> focusParticles = new TaggedValueLookupTable<>(FocusParticle.class);
-    private static final @NotNull TaggedValueLookupTable<Possessive> possessives = new TaggedValueLookupTable<>(Possessive.class);
-
-    static void parseBasicAttributes(@NotNull Analysis analysis, @NotNull SymbolBuffer tokenizer) {
+    private @Nullable WordClass wordClass;
+    private @Nullable Locative locative;
+    private @Nullable Comparison comparison;
+    private @Nullable FocusParticle focus;
+    private @Nullable GrammaticalNumber number;
+    private @Nullable Negative negative;
+    private @Nullable Mood mood;
+    private @Nullable Participle participle;
+    private @Nullable Person person;
+    private @Nullable Possessive possessive;
+    private @Nullable Tense tense;
+    private boolean interrogative;
+    private boolean malagaVapaaJalkiosa;
+    private boolean possibleGeographicalName;
+    private @Nullable Mood requireFollowingVerb;
+
+    void parse(@NotNull SymbolBuffer tokenizer) {
+        reset();
+
         var convertNimiLaatusanaToLaatusana = false;
         var bcPassed = false;
 
@@ -69,73 +83,73 @@ final class BasicAttributes {
             var tag = tokenizer.getCurrentTag();
             if (tag == null) continue;
 
-            switch (tag.toString().charAt(1)) {
-                case 'L' -> {
-                    if (analysis.getWordClass() == null) {
+            switch (tag.getKind()) {
+                case CLASS -> {
+                    if (wordClass == null) {
                         if (tag.matches(NOUN_ADJECTIVE))
-                            analysis.setWordClass(convertNimiLaatusanaToLaatusana || analysis.getComparison() == COMPARATIVE || analysis.getComparison() == SUPERLATIVE || tokenizer.firstTokenIs(NUMERAL) ? ADJECTIVE : NOUN_ADJECTIVE);
+                            wordClass = convertNimiLaatusanaToLaatusana || comparison == COMPARATIVE || comparison == SUPERLATIVE || tokenizer.firstTokenIs(NUMERAL) ? ADJECTIVE : NOUN_ADJECTIVE;
                         else
-                            analysis.setWordClass(wordClasses.get(tag));
+                            wordClass = tag.getValue(WordClass.class);
                     }
                 }
-                case 'N' -> {
-                    if (analysis.getNumber() == null && analysis.getWordClass() != PREFIX && analysis.getWordClass() != ADVERB)
-                        analysis.setNumber(grammaticalNumbers.get(tag));
+                case NUMBER -> {
+                    if (number == null && wordClass != PREFIX && wordClass != ADVERB)
+                        number = tag.getValue(GrammaticalNumber.class);
                 }
-                case 'P' -> {
-                    if (analysis.getPerson() == null)
-                        analysis.setPerson(persons.get(tag));
+                case PERSON -> {
+                    if (person == null)
+                        person = tag.getValue(Person.class);
                 }
-                case 'S' -> {
-                    if (analysis.getWordClass() != PREFIX && analysis.getWordClass() != ADVERB) {
-                        if (analysis.getLocative() == null)
-                            analysis.setLocative(locatives.get(tag));
+                case LOCATIVE -> {
+                    if (wordClass != PREFIX && wordClass != ADVERB) {
+                        if (locative == null)
+                            locative = tag.getValue(Locative.class);
                         if (tag.matches(INSTRUCTIVE_STI))
                             convertNimiLaatusanaToLaatusana = true;
                     }
                 }
-                case 'T' -> {
-                    if (analysis.getMood() == null && analysis.getWordClass() == null)
-                        analysis.setMood(moods.get(tag));
+                case MOOD -> {
+                    if (mood == null && wordClass == null)
+                        mood = tag.getValue(Mood.class);
                 }
-                case 'A' -> {
-                    if (analysis.getTense() == null)
-                        analysis.setTense(tenses.get(tag));
+                case TENSE -> {
+                    if (tense == null)
+                        tense = tag.getValue(Tense.class);
                 }
-                case 'F' -> {
-                    if (tag.matches(Tags.fko))
-                        analysis.setInterrogative(true);
-                    else if (analysis.getFocus() == null)
-                        analysis.setFocus(focusParticles.get(tag));
+                case FOCUS -> {
+                    if (tag.matches(Tag.FKO))
+                        interrogative = true;
+                    else if (focus == null)
+                        focus = tag.getValue(FocusParticle.class);
                 }
-                case 'O' -> {
-                    if (analysis.getPossessive() == null)
-                        analysis.setPossessive(possessives.get(tag));
+                case POSSESSIVE -> {
+                    if (possessive == null)
+                        possessive = tag.getValue(Possessive.class);
                 }
-                case 'C' -> {
-                    if (analysis.getWordClass() == null && analysis.getComparison() == null)
-                        analysis.setComparison(comparisons.get(tag));
+                case COMPARISON -> {
+                    if (wordClass == null && comparison == null)
+                        comparison = tag.getValue(Comparison.class);
                 }
-                case 'E' -> {
-                    if (analysis.getNegative() == null)
-                        analysis.setNegative(negatives.get(tag));
+                case NEGATIVE -> {
+                    if (negative == null)
+                        negative = tag.getValue(Negative.class);
                 }
-                case 'R' -> {
+                case PARTICIPLE -> {
                     // TODO: Checking the end for [Ln] is done to handle -tUAnne ("kuunneltuanne"). This is for compatibility
                     // with Malaga implementation. See VISK § 543 (temporaalirakenne) for correct analysis.
-                    if (analysis.getParticiple() == null && !bcPassed)
-                        if (analysis.getWordClass() == null || analysis.getWordClass() == ADJECTIVE || tokenizer.lastTokenIs(NOUN))
-                            analysis.setParticiple(participles.get(tag));
+                    if (participle == null && !bcPassed)
+                        if (wordClass == null || wordClass == ADJECTIVE || tokenizer.lastTokenIs(NOUN))
+                            participle = tag.getValue(Participle.class);
                 }
-                case 'I' -> addInfoFlag(tag, analysis, tokenizer);
-                case 'B' -> {
-                    if (tag.matches(Tags.bc) && analysis.getWordClass() == null) {
+                case INFO -> addInfoFlag(tag, tokenizer);
+                case BOUNDARY -> {
+                    if (tag.matches(Tag.BC) && wordClass == null) {
                         // is preceded by "-" or "-[Bh]"?
                         boolean match = tokenizer.relativeTokenEndsWithChar(-1, '-')
-                            || (tokenizer.previousTokenIsTag(Tags.bh) && tokenizer.relativeTokenEndsWithChar(-2, '-'));
+                            || (tokenizer.previousTokenIsTag(Tag.BH) && tokenizer.relativeTokenEndsWithChar(-2, '-'));
 
                         if (match) {
-                            analysis.setWordClass(PREFIX);
+                            wordClass = PREFIX;
                             bcPassed = true;
                         }
                     }
@@ -143,47 +157,137 @@ final class BasicAttributes {
             }
         }
 
-        postProcess(analysis);
+        postProcess();
     }
 
-    private static void postProcess(@NotNull Analysis analysis) {
-        var mood = analysis.getMood();
+    private void postProcess() {
+        if (negative != null && ((wordClass != null && wordClass != VERB) || (mood != null && mood.isSecondThirdOrFourthInfinitive())))
+            negative = null;
 
-        if (analysis.getNegative() != null && ((analysis.getWordClass() != null && analysis.getWordClass() != VERB) || (mood != null && mood.isSecondThirdOrFourthInfinitive())))
-            analysis.setNegative(null);
+        if (participle == PAST_PASSIVE)
+            wordClass = ADJECTIVE;
 
-        if (analysis.getParticiple() == PAST_PASSIVE)
-            analysis.setWordClass(ADJECTIVE);
+        if (number != null && locative == INSTRUCTIVE_STI)
+            number = null;
 
-        if (analysis.getNumber() != null && analysis.getLocative() == INSTRUCTIVE_STI)
-            analysis.setNumber(null);
+        if (comparison == null) {
+            if (wordClass == ADJECTIVE || wordClass == NOUN_ADJECTIVE)
+                comparison = Comparison.POSITIVE;
 
-        if (analysis.getComparison() == null) {
-            if (analysis.getWordClass() == ADJECTIVE || analysis.getWordClass() == NOUN_ADJECTIVE)
-                analysis.setComparison(Comparison.POSITIVE);
-
-        } else if (analysis.getWordClass() == NOUN)
-            analysis.setComparison(null);
+        } else if (wordClass == NOUN)
+            comparison = null;
     }
 
-    private static void addInfoFlag(@NotNull Symbol tag, @NotNull Analysis analysis, @NotNull SymbolBuffer tokenizer) {
-        if (tag.matches(Tags.ivj)) {
+    private void addInfoFlag(@NotNull Symbol tag, @NotNull SymbolBuffer tokenizer) {
+        if (tag.matches(Tag.IVJ)) {
             if (!tokenizer.firstTokenStartsWith('-'))
-                analysis.setMalagaVapaaJalkiosa(true);
-        } else if (tag.matches(Tags.ica)) {
-            var wordClass = analysis.getWordClass();
-            if (!tokenizer.containsTagAfterCurrent(Tags.bc) && !tokenizer.containsTagAfterCurrent(ADJECTIVE) && (wordClass == null || wordClass == NOUN || wordClass == NOUN_ADJECTIVE))
-                analysis.setPossibleGeographicalName(true);
+                malagaVapaaJalkiosa = true;
+        } else if (tag.matches(Tag.ICA)) {
+            if (!tokenizer.containsTagAfterCurrent(Tag.BC) && !tokenizer.containsTagAfterCurrent(ADJECTIVE) && (wordClass == null || wordClass == NOUN || wordClass == NOUN_ADJECTIVE))
+                possibleGeographicalName = true;
         } else {
-            var wordClass = analysis.getWordClass();
-            var mood = analysis.getMood();
-
             if ((mood == null || !mood.isSecondThirdOrFourthInfinitive()) && (wordClass == null || wordClass == VERB)) {
-                if (tag.matches(Tags.ira))
-                    analysis.setRequireFollowingVerb(INFINITIVE1);
-                else if (tag.matches(Tags.irm))
-                    analysis.setRequireFollowingVerb(INFINITIVE3);
+                if (tag.matches(Tag.IRA))
+                    requireFollowingVerb = INFINITIVE1;
+                else if (tag.matches(Tag.IRM))
+                    requireFollowingVerb = INFINITIVE3;
             }
         }
     }
+
+    void reset() {
+        wordClass = null;
+        locative = null;
+        comparison = null;
+        focus = null;
+        number = null;
+        negative = null;
+        mood = null;
+        participle = null;
+        person = null;
+        possessive = null;
+        tense = null;
+        interrogative = false;
+        malagaVapaaJalkiosa = false;
+        possibleGeographicalName = false;
+        requireFollowingVerb = null;
+    }
+
+    void copyTo(@NotNull Analysis analysis) {
+        analysis.setWordClass(wordClass);
+        analysis.setLocative(locative);
+        analysis.setComparison(comparison);
+        analysis.setFocus(focus);
+        analysis.setNumber(number);
+        analysis.setNegative(negative);
+        analysis.setMood(mood);
+        analysis.setParticiple(participle);
+        analysis.setPerson(person);
+        analysis.setPossessive(possessive);
+        analysis.setTense(tense);
+        analysis.setInterrogative(interrogative);
+        analysis.setMalagaVapaaJalkiosa(malagaVapaaJalkiosa);
+        analysis.setPossibleGeographicalName(possibleGeographicalName);
+        analysis.setRequireFollowingVerb(requireFollowingVerb);
+    }
+
+    @Nullable WordClass getWordClass() {
+        return wordClass;
+    }
+
+    @Nullable Locative getLocative() {
+        return locative;
+    }
+
+    @Nullable Comparison getComparison() {
+        return comparison;
+    }
+
+    @Nullable FocusParticle getFocus() {
+        return focus;
+    }
+
+    @Nullable GrammaticalNumber getNumber() {
+        return number;
+    }
+
+    @Nullable Negative getNegative() {
+        return negative;
+    }
+
+    @Nullable Mood getMood() {
+        return mood;
+    }
+
+    @Nullable Participle getParticiple() {
+        return participle;
+    }
+
+    @Nullable Person getPerson() {
+        return person;
+    }
+
+    @Nullable Possessive getPossessive() {
+        return possessive;
+    }
+
+    @Nullable Tense getTense() {
+        return tense;
+    }
+
+    boolean isInterrogative() {
+        return interrogative;
+    }
+
+    boolean isMalagaVapaaJalkiosa() {
+        return malagaVapaaJalkiosa;
+    }
+
+    boolean isPossibleGeographicalName() {
+        return possibleGeographicalName;
+    }
+
+    @Nullable Mood getRequireFollowingVerb() {
+        return requireFollowingVerb;
+    }
 }
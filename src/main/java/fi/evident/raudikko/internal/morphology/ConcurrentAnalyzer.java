@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.AnalysisVisitor;
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.utils.HeapSize;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe {@link Analyzer} that borrows a {@link FinnishVfstAnalyzer} from a pool for each call.
+ * <p>
+ * The pool is a fixed array of slots that is accessed using atomic operations only. A call takes an
+ * analyzer from the first occupied slot, probing from a slot chosen by the calling thread, and returns
+ * it to the first free slot. When the pool is empty a new analyzer is created, and when it's full the
+ * returned analyzer is simply dropped. Therefore callers never block each other and no state is kept
+ * per thread, which keeps the memory usage bounded even with large numbers of (virtual) threads.
+ */
+public final class ConcurrentAnalyzer implements Analyzer {
+
+    private final @NotNull Transducer transducer;
+    private final @NotNull AnalyzerConfiguration configuration;
+    private final @NotNull AtomicReferenceArray<FinnishVfstAnalyzer> pool;
+    private final int mask;
+
+    public ConcurrentAnalyzer(@NotNull Transducer transducer, @NotNull AnalyzerConfiguration configuration, int poolSize) {
+        if (poolSize <= 0)
+            throw new IllegalArgumentException("invalid pool size: " + poolSize);
+
+        this.transducer = transducer;
+        this.configuration = configuration;
+
+        int slots = Integer.highestOneBit(poolSize);
+        if (slots < poolSize)
+            slots <<= 1;
+
+        this.pool = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+    }
+
+    @Override
+    public @NotNull List<Analysis> analyze(@NotNull CharSequence word, int maxResults) {
+        var analyzer = acquire();
+        var result = analyzer.analyze(word, maxResults);
+
+        // If analysis fails, the analyzer might be in inconsistent state so it's returned only on success
+        release(analyzer);
+        return result;
+    }
+
+    @Override
+    public void analyze(@NotNull CharSequence word, @NotNull AnalysisVisitor visitor) {
+        var analyzer = acquire();
+        analyzer.analyze(word, visitor);
+        release(analyzer);
+    }
+
+    @Override
+    public @NotNull List<List<Analysis>> analyzeAll(@NotNull List<? extends CharSequence> words, int maxResults) {
+        // Use a single analyzer for the whole batch instead of borrowing one for each word
+        var analyzer = acquire();
+        var result = analyzer.analyzeAll(words, maxResults);
+        release(analyzer);
+        return result;
+    }
+
+    @Override
+    public @NotNull List<String> baseForms(@NotNull CharSequence word) {
+        var analyzer = acquire();
+        var result = analyzer.baseForms(word);
+        release(analyzer);
+        return result;
+    }
+
+    /**
+     * Returns the total size of the buffers of the analyzers currently in the pool.
+     * Analyzers that are in use by other threads are not included.
+     */
+    @Override
+    public @NotNull Map<String, Long> getScratchBufferSizes() {
+        var sizes = new LinkedHashMap<String, Long>();
+        sizes.put("pool", HeapSize.array(pool.length(), HeapSize.REFERENCE));
+
+        for (int i = 0; i < pool.length(); i++) {
+            var analyzer = pool.get(i);
+            if (analyzer != null)
+                analyzer.getScratchBufferSizes().forEach((buffer, bytes) -> sizes.merge(buffer, bytes, Long::sum));
+        }
+
+        return sizes;
+    }
+
+    private @NotNull FinnishVfstAnalyzer acquire() {
+        int start = probe();
+
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+
+            // Check before writing to avoid needless contention on empty slots
+            if (pool.get(slot) != null) {
+                @Nullable FinnishVfstAnalyzer analyzer = pool.getAndSet(slot, null);
+                if (analyzer != null)
+                    return analyzer;
+            }
+        }
+
+        return new FinnishVfstAnalyzer(transducer, configuration);
+    }
+
+    private void release(@NotNull FinnishVfstAnalyzer analyzer) {
+        int start = probe();
+
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+
+            if (pool.get(slot) == null && pool.compareAndSet(slot, null, analyzer))
+                return;
+        }
+    }
+
+    private static int probe() {
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
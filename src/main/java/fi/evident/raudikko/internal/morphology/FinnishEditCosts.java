@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.internal.fst.EditCosts;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Edit costs for typical typing errors in Finnish. Costs are in units of a third of an ordinary edit,
+ * so that the more likely errors can be made cheaper:
+ * <ul>
+ *     <li>swapping a vowel with its front or back counterpart (a/ä, o/ö, u/y) costs 1, since
+ *     the dots are often left out when they are inconvenient to type</li>
+ *     <li>hitting an adjacent key, doubling or undoubling a letter and swapping two letters costs 2</li>
+ *     <li>other insertions, deletions and substitutions cost 3</li>
+ * </ul>
+ */
+final class FinnishEditCosts implements EditCosts {
+
+    /** Cost of an ordinary edit */
+    static final int EDIT = 3;
+
+    private static final int VOWEL_SWAP = 1;
+    private static final int TYPO = 2;
+
+    private static final @NotNull String[] KEYBOARD_ROWS = {"qwertyuiopå", "asdfghjklöä", "zxcvbnm"};
+    private static final @NotNull String[] VOWEL_PAIRS = {"aä", "oö", "uy"};
+
+    @Override
+    public int insertion(char previous, char inserted) {
+        return previous == inserted ? TYPO : EDIT;
+    }
+
+    @Override
+    public int deletion(char previous, char deleted) {
+        return previous == deleted ? TYPO : EDIT;
+    }
+
+    @Override
+    public int substitution(char original, char replacement) {
+        if (isVowelPair(original, replacement))
+            return VOWEL_SWAP;
+        if (isAdjacentKey(original, replacement))
+            return TYPO;
+        return EDIT;
+    }
+
+    @Override
+    public int transposition() {
+        return TYPO;
+    }
+
+    private static boolean isVowelPair(char a, char b) {
+        for (var pair : VOWEL_PAIRS)
+            if ((pair.charAt(0) == a && pair.charAt(1) == b) || (pair.charAt(0) == b && pair.charAt(1) == a))
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns true if the keys of given characters are next to each other on the Finnish keyboard,
+     * either on the same row or diagonally on the neighbouring rows.
+     */
+    static boolean isAdjacentKey(char a, char b) {
+        for (int row = 0; row < KEYBOARD_ROWS.length; row++) {
+            int i = KEYBOARD_ROWS[row].indexOf(a);
+            if (i < 0)
+                continue;
+
+            // Each row is shifted right from the one above it by less than a key
+            return isKeyAt(row, i - 1, b) || isKeyAt(row, i + 1, b)
+                || isKeyAt(row - 1, i, b) || isKeyAt(row - 1, i + 1, b)
+                || isKeyAt(row + 1, i - 1, b) || isKeyAt(row + 1, i, b);
+        }
+
+        return false;
+    }
+
+    private static boolean isKeyAt(int row, int index, char c) {
+        return row >= 0 && row < KEYBOARD_ROWS.length
+            && index >= 0 && index < KEYBOARD_ROWS[row].length()
+            && KEYBOARD_ROWS[row].charAt(index) == c;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Generator;
+import fi.evident.raudikko.Inflection;
+import fi.evident.raudikko.internal.fst.BaseFormIndex;
+import fi.evident.raudikko.internal.fst.OutputFilter;
+import fi.evident.raudikko.internal.fst.SearchBudget;
+import fi.evident.raudikko.internal.fst.Symbol;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static fi.evident.raudikko.analysis.WordClass.ADJECTIVE;
+import static fi.evident.raudikko.analysis.WordClass.NOUN_ADJECTIVE;
+import static fi.evident.raudikko.internal.morphology.BaseForm.parseBaseform;
+import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator that walks the transducer from the entries of the base form in {@link BaseFormIndex}, pruning
+ * the paths whose tags contradict the requested inflection. The output of each path is an analysis of the
+ * generated word, so it's post-processed like in {@link FinnishVfstAnalyzer} to check the base form and the
+ * attributes, without analyzing the word again. The pruning only needs to be conservative, since the
+ * post-processing decides which words are returned.
+ * <p>
+ * The walk for a single base form is bounded by {@link #MAX_STEPS}, so that a pathological transducer can't
+ * make generation run indefinitely. If the bound is reached, the forms found so far are returned.
+ */
+public final class FinnishGenerator implements Generator {
+
+    private final @NotNull BaseFormIndex index;
+    private final @NotNull Symbol[] output = new Symbol[BUFFER_SIZE];
+    private final @NotNull SymbolBuffer buffer = new SymbolBuffer(BUFFER_SIZE);
+    private final @NotNull BasicAttributes attributes = new BasicAttributes();
+    private static final int MAX_WORD_LENGTH = 255;
+    private static final int BUFFER_SIZE = 2000;
+
+    /** Upper bound for the steps taken for a single word, only reached if the transducer is pathological */
+    private static final long MAX_STEPS = 10_000_000;
+
+    // Filter states
+    private static final long CLASS_PENDING = 0;
+    private static final long CLASS_PASSED = 1;
+
+    // State of the word being generated, used by the callback below
+    private @Nullable String baseForm;
+    private @Nullable Inflection inflection;
+    private @Nullable LinkedHashSet<String> results;
+    private final @NotNull OutputFilter filter = (state, symbol) -> next(requireNonNull(inflection), state, symbol);
+    private final @NotNull BaseFormIndex.Callback collector = this::collect;
+
+    public FinnishGenerator(@NotNull BaseFormIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public @NotNull List<String> generate(@NotNull CharSequence baseForm, @NotNull Inflection inflection) {
+        if (baseForm.isEmpty() || baseForm.length() > MAX_WORD_LENGTH)
+            return new ArrayList<>();
+
+        var results = new LinkedHashSet<String>();
+        this.baseForm = baseForm.toString();
+        this.inflection = inflection;
+        this.results = results;
+        try {
+            // The collector never stops the walk, so it can only end early by reaching MAX_STEPS,
+            // in which case the forms found so far are returned as documented above
+            index.generate(baseForm, filter, output, new SearchBudget(MAX_STEPS), collector);
+        } finally {
+            this.baseForm = null;
+            this.inflection = null;
+            this.results = null;
+        }
+
+        return new ArrayList<>(results);
+    }
+
+    private boolean collect(@NotNull CharSequence word, int depth) {
+        if (!buffer.resetIfValid(output, depth))
+            return true;
+
+        var structure = parseStructure(buffer, word.length());
+        if (!requireNonNull(baseForm).equalsIgnoreCase(parseBaseform(buffer, structure)))
+            return true;
+
+        attributes.parse(buffer);
+        if (matches(requireNonNull(inflection)))
+            requireNonNull(results).add(structure.apply(word));
+
+        return true;
+    }
+
+    private boolean matches(@NotNull Inflection inflection) {
+        return (inflection.getWordClass() == null || inflection.getWordClass() == attributes.getWordClass())
+            && (inflection.getLocative() == null || inflection.getLocative() == attributes.getLocative())
+            && (inflection.getNumber() == null || inflection.getNumber() == attributes.getNumber())
+            && (inflection.getPossessive() == null || inflection.getPossessive() == attributes.getPossessive());
+    }
+
+    /**
+     * Filter accepting the output of the forms of the word itself that may have given inflection.
+     * The first symbol is the class tag of the word, see {@link BaseFormIndex#generate}.
+     */
+    static long next(@NotNull Inflection inflection, long state, @NotNull Symbol symbol) {
+        if (symbol.isEpsilon())
+            return state;
+
+        boolean accepted = switch (symbol.getKind()) {
+            // The class of the word may change by the inflection, e.g. participles of verbs can be
+            // adjectives, so only the class tag of the word itself is compared, and only if the
+            // requested class is not one of those that words of other classes may turn into.
+            case CLASS -> state == CLASS_PASSED || classMayMatch(inflection, symbol);
+            case BOUNDARY -> !symbol.matches(Tag.BC);
+            case PARAMETER -> !symbol.isBaseFormTag();
+            case FOCUS -> false;
+            case LOCATIVE -> inflection.getLocative() == null || symbol.matches(inflection.getLocative());
+            case NUMBER -> inflection.getNumber() == null || symbol.matches(inflection.getNumber());
+            case POSSESSIVE -> inflection.getPossessive() == null || symbol.matches(inflection.getPossessive());
+            default -> true;
+        };
+
+        return accepted ? CLASS_PASSED : OutputFilter.REJECTED;
+    }
+
+    private static boolean classMayMatch(@NotNull Inflection inflection, @NotNull Symbol classTag) {
+        var wordClass = inflection.getWordClass();
+        return wordClass == null || wordClass == ADJECTIVE || wordClass == NOUN_ADJECTIVE || classTag.matches(wordClass);
+    }
+}
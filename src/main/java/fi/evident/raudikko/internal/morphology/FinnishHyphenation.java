@@ -0,0 +1,233 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.analysis.Structure;
+import fi.evident.raudikko.analysis.Structure.StructureSymbol;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static java.lang.Character.isLetter;
+import static java.lang.Character.toLowerCase;
+
+/**
+ * Finnish hyphenation rules. The hyphenation points are represented as patterns compatible with Voikko:
+ * a string as long as the word, containing for each character of the word
+ * <ul>
+ *     <li>{@code ' '} if the word can't be hyphenated before the character</li>
+ *     <li>{@code '-'} if the word can be hyphenated before the character by inserting a hyphen</li>
+ *     <li>{@code '='} if the word can be hyphenated by replacing the character with a hyphen</li>
+ * </ul>
+ * Compound boundaries and characters that must not be separated from the preceding ones are taken
+ * from the structures of the analyses of the word. Within each part of a compound, the word is
+ * divided into syllables.
+ */
+public final class FinnishHyphenation {
+
+    private static final @NotNull String VOWELS = "aeiouyäöå";
+
+    /** Diphthongs, excluding ie, uo and yö that are diphthongs only in the first syllable */
+    private static final @NotNull String[] DIPHTHONGS = {
+        "ai", "ei", "oi", "ui", "yi", "äi", "öi",
+        "au", "eu", "iu", "ou",
+        "ey", "iy", "äy", "öy"
+    };
+
+    private static final @NotNull String[] FIRST_SYLLABLE_DIPHTHONGS = {"ie", "uo", "yö"};
+
+    private FinnishHyphenation() {
+    }
+
+    /**
+     * Returns the hyphenation pattern for given word. If the word has several analyses with different
+     * structures, only the hyphenation points allowed by all of them are returned, since the word can't
+     * be known to be meant in any particular way. Words without analyses are hyphenated by syllables only.
+     */
+    public static @NotNull String hyphenationPattern(@NotNull CharSequence word, @NotNull Collection<Structure> structures) {
+        if (structures.isEmpty())
+            return new String(hyphenationPattern(word, (Structure) null));
+
+        char[] result = null;
+        for (var structure : structures) {
+            var pattern = hyphenationPattern(word, structure);
+            if (result == null) {
+                result = pattern;
+            } else {
+                for (int i = 0; i < result.length; i++)
+                    if (result[i] != pattern[i])
+                        result[i] = ' ';
+            }
+        }
+
+        return new String(result);
+    }
+
+    /**
+     * Inserts hyphenation points of given pattern to the word. If context changes are not allowed,
+     * points where a character would be replaced by the separator are skipped.
+     */
+    public static @NotNull String insertHyphens(@NotNull CharSequence word, @NotNull CharSequence pattern, @NotNull String separator, boolean allowContextChanges) {
+        var sb = new StringBuilder(word.length() + 4 * separator.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            switch (pattern.charAt(i)) {
+                case '-' -> sb.append(separator).append(c);
+                case '=' -> {
+                    if (allowContextChanges)
+                        sb.append(separator);
+                    else
+                        sb.append(c);
+                }
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char[] hyphenationPattern(@NotNull CharSequence word, @Nullable Structure structure) {
+        int length = word.length();
+        var chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = toLowerCase(word.charAt(i));
+
+        var partStarts = new boolean[length];
+        var noHyphenation = new boolean[length];
+        if (structure != null)
+            readStructure(structure, partStarts, noHyphenation);
+
+        var result = new char[length];
+        Arrays.fill(result, ' ');
+
+        // Divide the word to runs of letters not crossing compound boundaries, and hyphenate them separately
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            boolean boundary = i == length || !isLetter(chars[i]) || (partStarts[i] && i > start);
+            if (!boundary)
+                continue;
+
+            if (i > start)
+                hyphenateSyllables(chars, start, i, result);
+
+            if (i < length) {
+                if (isLetter(chars[i])) {
+                    // Compound boundary between two letters
+                    result[i] = '-';
+                    start = i;
+                } else {
+                    if ((chars[i] == '-' || chars[i] == '\'') && i > 0 && i + 1 < length && isLetter(chars[i - 1]) && isLetter(chars[i + 1]))
+                        result[i] = '=';
+                    start = i + 1;
+                }
+            }
+        }
+
+        for (int i = 0; i < length; i++)
+            if (noHyphenation[i])
+                result[i] = ' ';
+
+        return result;
+    }
+
+    private static void readStructure(@NotNull Structure structure, boolean[] partStarts, boolean[] noHyphenation) {
+        int index = 0;
+        for (var symbol : structure.getSymbols()) {
+            if (index == partStarts.length)
+                break;
+
+            if (symbol == StructureSymbol.MORPHEME_START) {
+                partStarts[index] = true;
+            } else {
+                noHyphenation[index] = symbol == StructureSymbol.UPPERCASE_NO_HYPHENATION || symbol == StructureSymbol.LOWERCASE_NO_HYPHENATION;
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Marks the syllable boundaries of the letters of given range.
+     */
+    private static void hyphenateSyllables(char[] chars, int start, int end, char[] result) {
+        // A consonant followed by a vowel starts a new syllable, unless there are no vowels before it
+        boolean vowelSeen = false;
+        for (int i = start; i < end; i++) {
+            if (isVowel(chars[i]))
+                vowelSeen = true;
+            else if (vowelSeen && i + 1 < end && isVowel(chars[i + 1]))
+                result[i] = '-';
+        }
+
+        // Two adjacent vowels belong to different syllables unless they form a long vowel or a diphthong,
+        // and a syllable can't have more than two vowels
+        boolean firstSyllable = true;
+        int vowels = 0;
+        for (int i = start; i < end; i++) {
+            if (i > start && result[i] == '-')
+                firstSyllable = false;
+
+            if (!isVowel(chars[i])) {
+                vowels = 0;
+                continue;
+            }
+
+            if (vowels == 0) {
+                vowels = 1;
+            } else if (vowels == 1 && (chars[i - 1] == chars[i] || isDiphthong(chars[i - 1], chars[i], firstSyllable))) {
+                vowels = 2;
+            } else {
+                result[i] = '-';
+                firstSyllable = false;
+                vowels = 1;
+            }
+        }
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) != -1;
+    }
+
+    private static boolean isDiphthong(char first, char second, boolean firstSyllable) {
+        for (var diphthong : DIPHTHONGS)
+            if (diphthong.charAt(0) == first && diphthong.charAt(1) == second)
+                return true;
+
+        if (firstSyllable)
+            for (var diphthong : FIRST_SYLLABLE_DIPHTHONGS)
+                if (diphthong.charAt(0) == first && diphthong.charAt(1) == second)
+                    return true;
+
+        return false;
+    }
+}
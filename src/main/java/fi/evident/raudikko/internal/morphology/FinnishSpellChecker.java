@@ -0,0 +1,181 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.SpellChecker;
+import fi.evident.raudikko.analysis.Structure;
+import fi.evident.raudikko.internal.fst.Symbol;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TransducerCallback;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
+import static java.lang.Character.isLowerCase;
+import static java.lang.Character.isUpperCase;
+
+/**
+ * Spell checker that accepts a word as soon as the first valid analysis with agreeing capitalization
+ * is found. Analyses are validated during traversal and no {@link fi.evident.raudikko.Analysis}
+ * objects are created. The structure of the analysis is parsed only if the capitalization of the
+ * word needs to be checked against it.
+ */
+public final class FinnishSpellChecker implements SpellChecker {
+
+    private final @NotNull Transducer transducer;
+    private final @NotNull List<Symbol> inputBuffer = new ArrayList<>(BUFFER_SIZE);
+    private final @NotNull Symbol[] output = new Symbol[BUFFER_SIZE];
+    private final @NotNull TraversalStack stack = new TraversalStack(BUFFER_SIZE);
+    private final @NotNull SymbolBuffer buffer = new SymbolBuffer(BUFFER_SIZE);
+    private final @NotNull StringBuilder checkedWord = new StringBuilder();
+    private final short[] flags;
+    private static final int MAX_WORD_LENGTH = 255;
+    private static final int BUFFER_SIZE = 2000;
+
+    // State of the word being checked, used by the callback below
+    private boolean checkCapitalization;
+    private boolean acceptCapitalizedFirst;
+    private boolean accepted;
+    private final @NotNull TransducerCallback acceptor = this::accept;
+
+    public FinnishSpellChecker(@NotNull Transducer transducer) {
+        this.transducer = transducer;
+        this.flags = new short[transducer.flagDiacriticFeatureCount];
+    }
+
+    @Override
+    public boolean isCorrect(@NotNull CharSequence word) {
+        if (word.isEmpty() || word.length() > MAX_WORD_LENGTH)
+            return false;
+
+        var caseType = CaseType.of(word);
+
+        // Following Voikko, the word is compared to the structure with its capitals lowered
+        // according to how much capitalization is allowed for its case type.
+        checkedWord.setLength(0);
+        checkedWord.append(word);
+        switch (caseType) {
+            case FIRST_UPPER -> lowerCase(checkedWord, checkedWord.length());
+            case COMPLEX -> lowerCase(checkedWord, 1);
+            default -> { }
+        }
+
+        // Words without letters have no capitalization to check, but they still need a valid analysis
+        checkCapitalization = caseType != CaseType.ALL_UPPER && caseType != CaseType.NO_LETTERS;
+        acceptCapitalizedFirst = caseType == CaseType.FIRST_UPPER || (caseType == CaseType.COMPLEX && isUpperCase(word.charAt(0)));
+        accepted = false;
+
+        transducer.transduce(word, inputBuffer, flags, output, stack, Validator.FILTER, acceptor);
+
+        return accepted;
+    }
+
+    private boolean accept(int depth) {
+        if (buffer.resetIfValid(output, depth)) {
+            accepted = !checkCapitalization || capitalizationAgrees(parseStructure(buffer, checkedWord.length()));
+
+            // Stop traversing as soon as the word has been accepted
+            return !accepted;
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares the capitalization of the word to given structure, like {@code SpellUtils::matchWordAndAnalysis}
+     * of Voikko does.
+     */
+    private boolean capitalizationAgrees(@NotNull Structure structure) {
+        var it = structure.nonMorphemes();
+
+        for (int i = 0; i < checkedWord.length() && it.hasNext(); i++) {
+            var symbol = it.next();
+            char c = checkedWord.charAt(i);
+
+            if (symbol.isUpperCase() && isLowerCase(c)) {
+                if (i != 0 || !acceptCapitalizedFirst)
+                    return false;
+            } else if (symbol.isLowerCase() && isUpperCase(c)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void lowerCase(@NotNull StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++)
+            sb.setCharAt(i, Character.toLowerCase(sb.charAt(i)));
+    }
+
+    /**
+     * Capitalization of a word, as classified by Voikko.
+     */
+    enum CaseType {
+        NO_LETTERS,
+        ALL_LOWER,
+        FIRST_UPPER,
+        COMPLEX,
+        ALL_UPPER;
+
+        static @NotNull CaseType of(@NotNull CharSequence word) {
+            if (word.isEmpty())
+                return NO_LETTERS;
+
+            char first = word.charAt(0);
+            var firstUpper = isUpperCase(first);
+            var firstLower = isLowerCase(first);
+            var restUpper = 0;
+            var restLower = 0;
+
+            for (int i = 1; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (isUpperCase(c))
+                    restUpper++;
+                else if (isLowerCase(c))
+                    restLower++;
+            }
+
+            if (!firstUpper && !firstLower && restUpper == 0 && restLower == 0)
+                return NO_LETTERS;
+            if (!firstLower && restLower == 0)
+                return ALL_UPPER;
+            if (restUpper == 0)
+                return firstUpper ? FIRST_UPPER : ALL_LOWER;
+            return COMPLEX;
+        }
+    }
+}
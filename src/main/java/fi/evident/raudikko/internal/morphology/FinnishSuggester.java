@@ -0,0 +1,205 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.Suggester;
+import fi.evident.raudikko.SuggesterConfiguration;
+import fi.evident.raudikko.internal.fst.EditSearch;
+import fi.evident.raudikko.internal.fst.SearchBudget;
+import fi.evident.raudikko.internal.fst.UnweightedTransducer;
+import fi.evident.raudikko.internal.morphology.FinnishSpellChecker.CaseType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Suggester that searches the words within bounded edit distance from the transducer using {@link EditSearch}
+ * and then checks the candidates with {@link FinnishSpellChecker}, cheapest candidates first.
+ * <p>
+ * For long words, the search is split by the first character of the candidates into parts that run
+ * in parallel. Each part gets an equal share of the steps of the budget, so the total amount of work is
+ * bounded in either case and the candidates found by a part don't depend on how the parts are scheduled.
+ */
+public final class FinnishSuggester implements Suggester {
+
+    private final @NotNull EditSearch search;
+    private final @NotNull FinnishSpellChecker spellChecker;
+    private final @NotNull FinnishVfstAnalyzer analyzer;
+    private final @NotNull SuggesterConfiguration configuration;
+    private boolean lastSearchComplete = true;
+    private static final int MAX_WORD_LENGTH = 255;
+
+    public FinnishSuggester(@NotNull UnweightedTransducer transducer, @NotNull SuggesterConfiguration configuration) {
+        this.search = new EditSearch(transducer, new FinnishEditCosts());
+        this.spellChecker = new FinnishSpellChecker(transducer);
+        this.analyzer = new FinnishVfstAnalyzer(transducer, structureOnly());
+        this.configuration = new SuggesterConfiguration(configuration);
+    }
+
+    @Override
+    public @NotNull List<String> suggest(@NotNull CharSequence word) {
+        var results = new ArrayList<String>();
+        lastSearchComplete = true;
+        if (word.isEmpty() || word.length() > MAX_WORD_LENGTH || configuration.getMaxSuggestions() <= 0)
+            return results;
+
+        var candidates = new ArrayList<>(findCandidates(word).entrySet());
+        candidates.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        var original = word.toString();
+        var caseType = CaseType.of(word);
+        var capitalization = caseType == CaseType.ALL_UPPER ? Capitalization.ALL
+            : caseType == CaseType.FIRST_UPPER || (caseType == CaseType.COMPLEX && Character.isUpperCase(word.charAt(0))) ? Capitalization.FIRST
+            : Capitalization.NONE;
+
+        for (var candidate : candidates) {
+            var suggestion = checkCandidate(candidate.getKey(), capitalization);
+            if (suggestion != null && !suggestion.equals(original) && !results.contains(suggestion)) {
+                results.add(suggestion);
+                if (results.size() == configuration.getMaxSuggestions())
+                    break;
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public boolean isLastSearchComplete() {
+        return lastSearchComplete;
+    }
+
+    /**
+     * Returns the inputs of the transducer close to given word, with the cheapest cost for each.
+     */
+    private @NotNull Map<String, Integer> findCandidates(@NotNull CharSequence word) {
+        long steps = configuration.getSearchBudget();
+        int maxCost = configuration.getMaxEdits() * FinnishEditCosts.EDIT;
+        int parts = Math.min(configuration.getParallelism(), search.getAlphabetSize());
+
+        if (parts <= 1 || word.length() < configuration.getParallelMinWordLength()) {
+            var candidates = new HashMap<String, Integer>();
+            var budget = new SearchBudget(steps, configuration.getTimeLimit());
+            lastSearchComplete = search.search(word, maxCost, null, budget, (candidate, cost) -> candidates.merge(candidate, cost, Math::min));
+            return candidates;
+        }
+
+        // Sharing a single budget would let the parts that happen to run first use up the steps of the others
+        long stepsPerPart = steps / parts + (steps % parts == 0 ? 0 : 1);
+
+        var futures = new ArrayList<CompletableFuture<Part>>(parts);
+        for (int part = 0; part < parts; part++) {
+            var firstCharacters = new BitSet();
+            for (int i = part; i < search.getAlphabetSize(); i += parts)
+                firstCharacters.set(i);
+
+            var budget = new SearchBudget(stepsPerPart, configuration.getTimeLimit());
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                var candidates = new HashMap<String, Integer>();
+                boolean complete = search.search(word, maxCost, firstCharacters, budget, (candidate, cost) -> candidates.merge(candidate, cost, Math::min));
+                return new Part(candidates, complete);
+            }, configuration.getExecutor()));
+        }
+
+        var candidates = new HashMap<String, Integer>();
+        for (var future : futures) {
+            var part = future.join();
+            candidates.putAll(part.candidates());
+            lastSearchComplete &= part.complete();
+        }
+        return candidates;
+    }
+
+    /**
+     * Candidates found by a part of a parallel search.
+     */
+    private record Part(@NotNull Map<String, Integer> candidates, boolean complete) {
+    }
+
+    /**
+     * Returns the candidate with given capitalization, or in its standard form if that's required for
+     * the candidate to be correct, or null if the candidate is not a correct word either way.
+     */
+    private @Nullable String checkCandidate(@NotNull String candidate, @NotNull Capitalization capitalization) {
+        var suggestion = capitalization.apply(candidate);
+        if (spellChecker.isCorrect(suggestion))
+            return suggestion;
+
+        // The candidate is in lower case, but its standard form might not be
+        for (var analysis : analyzer.analyze(candidate)) {
+            var structure = analysis.getStructure();
+            if (structure != null) {
+                suggestion = capitalization.apply(structure.apply(candidate));
+                if (spellChecker.isCorrect(suggestion))
+                    return suggestion;
+            }
+        }
+
+        return null;
+    }
+
+    private static @NotNull AnalyzerConfiguration structureOnly() {
+        var configuration = new AnalyzerConfiguration();
+        configuration.setIncludeBaseForm(false);
+        configuration.setIncludeBasicAttributes(false);
+        configuration.setIncludeOrganizationNameAnalysis(false);
+        configuration.setIncludeFstOutput(false);
+        configuration.setIncludeBaseFormParts(false);
+        return configuration;
+    }
+
+    /**
+     * Capitalization of the misspelled word that is carried over to the suggestions.
+     */
+    private enum Capitalization {
+        NONE,
+        FIRST,
+        ALL;
+
+        @NotNull String apply(@NotNull String s) {
+            return switch (this) {
+                case NONE -> s;
+                case FIRST -> Character.toUpperCase(s.charAt(0)) + s.substring(1);
+                case ALL -> s.toUpperCase(Locale.ROOT);
+            };
+        }
+    }
+}
@@ -33,56 +33,115 @@
 package fi.evident.raudikko.internal.morphology;
 
 import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.AnalysisVisitor;
 import fi.evident.raudikko.Analyzer;
 import fi.evident.raudikko.AnalyzerConfiguration;
 import fi.evident.raudikko.analysis.Structure;
+import fi.evident.raudikko.internal.fst.OutputFilter;
 import fi.evident.raudikko.internal.fst.Symbol;
-import fi.evident.raudikko.internal.fst.UnweightedTransducer;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TransducerCallback;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import fi.evident.raudikko.internal.utils.HeapSize;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static fi.evident.raudikko.internal.morphology.BaseForm.parseBaseform;
 import static fi.evident.raudikko.internal.morphology.BaseFormParts.parseBaseFormParts;
-import static fi.evident.raudikko.internal.morphology.BasicAttributes.parseBasicAttributes;
+import static fi.evident.raudikko.analysis.WordClass.NOUN;
+import static fi.evident.raudikko.analysis.WordClass.PROPER_NOUN;
+import static fi.evident.raudikko.internal.morphology.Organization.isOrganizationName;
 import static fi.evident.raudikko.internal.morphology.Organization.organizationNameAnalysis;
 import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
-import static fi.evident.raudikko.internal.morphology.Validator.isValidAnalysis;
 import static java.util.Objects.requireNonNull;
 
 public final class FinnishVfstAnalyzer implements Analyzer {
 
-    private final @NotNull UnweightedTransducer transducer;
-    private final @NotNull List<Symbol> inputBuffer = new ArrayList<>(2000);
-    private final @NotNull Symbol[] output = new Symbol[2000];
-    private final @NotNull SymbolBuffer buffer = new SymbolBuffer(2000);
+    private final @NotNull Transducer transducer;
+    private final @NotNull List<Symbol> inputBuffer = new ArrayList<>(BUFFER_SIZE);
+    private final @NotNull Symbol[] output = new Symbol[BUFFER_SIZE];
+    private final @NotNull TraversalStack stack = new TraversalStack(BUFFER_SIZE);
+    private final @NotNull SymbolBuffer buffer = new SymbolBuffer(BUFFER_SIZE);
     private final @NotNull AnalyzerConfiguration configuration;
     private final @NotNull WordParser wordParser = new WordParser();
+    private final @NotNull BasicAttributes attributes = new BasicAttributes();
+    private final @NotNull AnalysisCursor cursor;
+    private final int lazyProperties;
+    private final @Nullable OutputFilter outputFilter;
     private final short[] flags;
     private static final int MAX_WORD_LENGTH = 255;
+    private static final int BUFFER_SIZE = 2000;
 
-    public FinnishVfstAnalyzer(@NotNull UnweightedTransducer transducer, @NotNull AnalyzerConfiguration configuration) {
+    // State of the word being analyzed, used by the callbacks below. The callbacks are created
+    // once per analyzer so that transducing a word does not allocate a capturing lambda.
+    private int wordLength;
+    private int maxResults;
+    private @Nullable List<Analysis> analysisResults;
+    private @Nullable List<String> baseFormResults;
+    private @Nullable AnalysisVisitor visitor;
+    private final @NotNull TransducerCallback analysisCollector = this::collectAnalysis;
+    private final @NotNull TransducerCallback baseFormCollector = this::collectBaseForm;
+    private final @NotNull TransducerCallback cursorVisitor = this::visitCursor;
+
+    public FinnishVfstAnalyzer(@NotNull Transducer transducer, @NotNull AnalyzerConfiguration configuration) {
         this.transducer = transducer;
         this.flags = new short[transducer.flagDiacriticFeatureCount];
         this.configuration = configuration;
+        this.cursor = new AnalysisCursor(buffer, attributes, configuration);
+        this.lazyProperties = lazyProperties(configuration);
+        this.outputFilter = configuration.isValidateDuringTraversal() ? Validator.FILTER : null;
     }
 
     @Override
     public @NotNull List<Analysis> analyze(@NotNull CharSequence word, int maxResults) {
         var results = new ArrayList<Analysis>();
 
-        if (word.length() > MAX_WORD_LENGTH)
+        if (word.length() > MAX_WORD_LENGTH || maxResults <= 0)
             return results;
 
-        transducer.transduce(word, inputBuffer, flags, output, depth -> {
-            buffer.reset(output, depth);
-            createAnalysis(buffer, word.length(), results, configuration, wordParser);
-        });
+        wordLength = word.length();
+        this.maxResults = maxResults;
+        analysisResults = results;
+        try {
+            transducer.transduce(word, inputBuffer, flags, output, stack, outputFilter, analysisCollector);
+        } finally {
+            analysisResults = null;
+        }
 
         return results;
     }
 
+    @Override
+    public void analyze(@NotNull CharSequence word, @NotNull AnalysisVisitor visitor) {
+        if (word.length() > MAX_WORD_LENGTH)
+            return;
+
+        wordLength = word.length();
+        this.visitor = visitor;
+        try {
+            transducer.transduce(word, inputBuffer, flags, output, stack, outputFilter, cursorVisitor);
+        } finally {
+            this.visitor = null;
+        }
+    }
+
+    @Override
+    public @NotNull Map<String, Long> getScratchBufferSizes() {
+        var sizes = new LinkedHashMap<String, Long>();
+        // ArrayList with its size, modCount and elements. Words are shorter than its capacity, so it never grows.
+        sizes.put("input buffer", HeapSize.object(4 + 4 + HeapSize.REFERENCE) + HeapSize.array(BUFFER_SIZE, HeapSize.REFERENCE));
+        sizes.put("output stack", HeapSize.array(output.length, HeapSize.REFERENCE));
+        sizes.put("traversal stack", stack.estimateHeapUsage());
+        sizes.put("symbol buffer", buffer.estimateHeapUsage());
+        sizes.put("flags", HeapSize.array(flags.length, 2));
+        return sizes;
+    }
+
     @Override
     public @NotNull List<String> baseForms(@NotNull CharSequence word) {
         var results = new ArrayList<String>();
@@ -90,29 +149,68 @@ public final class FinnishVfstAnalyzer implements Analyzer {
         if (word.length() > MAX_WORD_LENGTH)
             return results;
 
-        transducer.transduce(word, inputBuffer, flags, output, depth -> {
-            buffer.reset(output, depth);
+        wordLength = word.length();
+        baseFormResults = results;
+        try {
+            transducer.transduce(word, inputBuffer, flags, output, stack, outputFilter, baseFormCollector);
+        } finally {
+            baseFormResults = null;
+        }
 
-            if (isValidAnalysis(buffer)) {
-                Structure structure = parseStructure(buffer, word.length());
+        return results;
+    }
 
-                String baseForm = parseBaseform(buffer, structure);
-                if (baseForm != null && !results.contains(baseForm))
-                    results.add(baseForm);
-            }
-        });
+    private boolean collectAnalysis(int depth) {
+        var results = requireNonNull(analysisResults);
 
-        return results;
+        if (buffer.resetIfValid(output, depth)) {
+            if (configuration.isLazy())
+                createLazyAnalysis(results, depth);
+            else
+                createAnalysis(results);
+        }
+
+        // Stop traversing as soon as we have enough results
+        return results.size() < maxResults;
     }
 
-    private static void createAnalysis(@NotNull SymbolBuffer buffer,
-                                       int wordLength,
-                                       @NotNull List<Analysis> results,
-                                       @NotNull AnalyzerConfiguration configuration,
-                                       @NotNull WordParser wordParser) {
-        if (!isValidAnalysis(buffer))
-            return;
+    private boolean visitCursor(int depth) {
+        if (!buffer.resetIfValid(output, depth))
+            return true;
+
+        if (configuration.isIncludeBasicAttributes())
+            attributes.parse(buffer);
+        else
+            attributes.reset();
+
+        var visitor = requireNonNull(this.visitor);
+
+        cursor.reset(wordLength, false);
+        if (!visitor.visit(cursor))
+            return false;
 
+        if (configuration.isIncludeOrganizationNameAnalysis() && attributes.getWordClass() == NOUN && isOrganizationName(buffer)) {
+            cursor.reset(wordLength, true);
+            return visitor.visit(cursor);
+        }
+
+        return true;
+    }
+
+    private boolean collectBaseForm(int depth) {
+        if (buffer.resetIfValid(output, depth)) {
+            Structure structure = parseStructure(buffer, wordLength);
+
+            String baseForm = parseBaseform(buffer, structure);
+            var results = requireNonNull(baseFormResults);
+            if (baseForm != null && !results.contains(baseForm))
+                results.add(baseForm);
+        }
+
+        return true;
+    }
+
+    private void createAnalysis(@NotNull List<Analysis> results) {
         var analysis = new Analysis();
 
         var dependsOnStructure =
@@ -131,21 +229,58 @@ public final class FinnishVfstAnalyzer implements Analyzer {
         if (configuration.isIncludeFstOutput())
             analysis.setFstOutput(buffer.fullContents());
 
-        if (configuration.isIncludeBaseFormParts())
-            analysis.setBaseFormParts(parseBaseFormParts(buffer, wordParser));
+        // Base form parts are derived from the word, so parse it only once for both
+        if (configuration.isIncludeBaseFormParts() || configuration.isIncludeWord()) {
+            var word = wordParser.parseWord(buffer);
 
-        if (configuration.isIncludeWord())
-            analysis.setWord(wordParser.parseWord(buffer));
+            if (configuration.isIncludeBaseFormParts())
+                analysis.setBaseFormParts(parseBaseFormParts(word));
 
-        if (configuration.isIncludeBasicAttributes())
-            parseBasicAttributes(analysis, buffer);
+            if (configuration.isIncludeWord())
+                analysis.setWord(word);
+        }
+
+        if (configuration.isIncludeBasicAttributes()) {
+            attributes.parse(buffer);
+            attributes.copyTo(analysis);
+        }
 
         results.add(analysis);
 
-        if (configuration.isIncludeOrganizationNameAnalysis()) {
+        if (configuration.isIncludeOrganizationNameAnalysis() && results.size() < maxResults) {
             var organizationNameAnalysis = organizationNameAnalysis(analysis, buffer, requireNonNull(structure));
             if (organizationNameAnalysis != null)
                 results.add(organizationNameAnalysis);
         }
     }
+
+    private void createLazyAnalysis(@NotNull List<Analysis> results, int depth) {
+        var analysis = new Analysis();
+        var fields = new LazyAnalysisFields(output, depth, wordLength);
+        var access = AnalysisAccess.get();
+        access.setLazyFields(analysis, fields, lazyProperties);
+
+        if (configuration.isIncludeBasicAttributes()) {
+            attributes.parse(buffer);
+            attributes.copyTo(analysis);
+        }
+
+        results.add(analysis);
+
+        if (configuration.isIncludeOrganizationNameAnalysis() && results.size() < maxResults
+            && analysis.getWordClass() == NOUN && isOrganizationName(buffer)) {
+            var organizationNameAnalysis = analysis.clone();
+            organizationNameAnalysis.setWordClass(PROPER_NOUN);
+            access.setLazyFields(organizationNameAnalysis, fields.forOrganizationName(), lazyProperties);
+            results.add(organizationNameAnalysis);
+        }
+    }
+
+    private static int lazyProperties(@NotNull AnalyzerConfiguration configuration) {
+        return (configuration.isIncludeStructure() ? LazyAnalysisFields.STRUCTURE : 0)
+            | (configuration.isIncludeBaseForm() ? LazyAnalysisFields.BASE_FORM : 0)
+            | (configuration.isIncludeFstOutput() ? LazyAnalysisFields.FST_OUTPUT : 0)
+            | (configuration.isIncludeBaseFormParts() ? LazyAnalysisFields.BASE_FORM_PARTS : 0)
+            | (configuration.isIncludeWord() ? LazyAnalysisFields.WORD : 0);
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.Word;
+import fi.evident.raudikko.analysis.Structure;
+import fi.evident.raudikko.internal.fst.Symbol;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static fi.evident.raudikko.internal.morphology.BaseForm.parseBaseform;
+import static fi.evident.raudikko.internal.morphology.BaseFormParts.parseBaseFormParts;
+import static fi.evident.raudikko.internal.morphology.StructureParser.parseStructure;
+
+/**
+ * Snapshot of the transducer output of a single analysis, used to compute the expensive
+ * properties of a lazy {@link Analysis} when they are first accessed.
+ * <p>
+ * The snapshot is immutable and may be shared by copies of the analysis, so each computation
+ * parses the symbols to its own buffer.
+ */
+public final class LazyAnalysisFields {
+
+    public static final int STRUCTURE = 1;
+    public static final int BASE_FORM = 1 << 1;
+    public static final int FST_OUTPUT = 1 << 2;
+    public static final int BASE_FORM_PARTS = 1 << 3;
+    public static final int WORD = 1 << 4;
+
+    private final @NotNull Symbol[] symbols;
+    private final int wordLength;
+    private final boolean organizationName;
+
+    // Racy memoization is fine since Structure is immutable
+    private @Nullable Structure structure;
+
+    LazyAnalysisFields(@NotNull Symbol[] symbols, int length, int wordLength) {
+        this(Arrays.copyOf(symbols, length), wordLength, false);
+    }
+
+    private LazyAnalysisFields(@NotNull Symbol[] symbols, int wordLength, boolean organizationName) {
+        this.symbols = symbols;
+        this.wordLength = wordLength;
+        this.organizationName = organizationName;
+    }
+
+    /**
+     * Returns fields for the organization name interpretation of the same output.
+     */
+    @NotNull LazyAnalysisFields forOrganizationName() {
+        return new LazyAnalysisFields(symbols, wordLength, true);
+    }
+
+    public @NotNull Structure structure() {
+        var result = structure;
+        if (result == null) {
+            var parsed = parseStructure(buffer(), wordLength);
+            result = organizationName ? parsed.capitalized() : parsed;
+            structure = result;
+        }
+        return result;
+    }
+
+    public @Nullable String baseForm() {
+        return parseBaseform(buffer(), structure());
+    }
+
+    public @NotNull String fstOutput() {
+        return buffer().fullContents();
+    }
+
+    public @NotNull List<String> baseFormParts() {
+        return parseBaseFormParts(word());
+    }
+
+    public @NotNull Word word() {
+        return new WordParser().parseWord(buffer());
+    }
+
+    private @NotNull SymbolBuffer buffer() {
+        var buffer = new SymbolBuffer(2 * (symbols.length + 1));
+        buffer.reset(symbols, symbols.length);
+        return buffer;
+    }
+}
@@ -64,7 +64,7 @@ final class Organization {
         }
     }
 
-    private static boolean isOrganizationName(@NotNull SymbolBuffer buffer) {
+    static boolean isOrganizationName(@NotNull SymbolBuffer buffer) {
         buffer.moveToStart();
 
         if (!buffer.nextToken() || buffer.currentToken.startsWithChar('-') || buffer.matchesTag(WordClass.ABBREVIATION))
@@ -73,11 +73,11 @@ final class Organization {
         buffer.moveToEnd();
 
         while (buffer.previousToken()) {
-            if (buffer.matchesTag(Tags.bc))
+            if (buffer.matchesTag(Tag.BC))
                 return false;
 
-            if (buffer.matchesTag(Tags.ion))
-                return buffer.containsTagBeforeCurrent(Tags.bc);
+            if (buffer.matchesTag(Tag.ION))
+                return buffer.containsTagBeforeCurrent(Tag.BC);
         }
 
         return false;
@@ -61,7 +61,7 @@ final class StructureParser {
         while (tokenizer.nextToken()) {
             var tag = tokenizer.getCurrentTag();
             if (tag != null) {
-                if (tag.matches(Tags.bc) || tag.matches(Tags.bm)) {
+                if (tag.matches(Tag.BC) || tag.matches(Tag.BM)) {
                     if (tokenizer.getCurrentOffset() == 1)
                         structure.add(MORPHEME_START);
 
@@ -77,7 +77,7 @@ final class StructureParser {
                     charsSeen = 0;
                     charsFromDefault = 0;
 
-                } else if (tag.matches(Tags.xr)) {
+                } else if (tag.matches(Tag.XR)) {
                     defaultTitleCase = false;
 
                     for (StructureSymbol c : tokenizer.readStructure()) {
@@ -179,9 +179,9 @@ final class StructureParser {
         while (tokenizer.nextToken()) {
             var tag = tokenizer.getCurrentTag();
             if (tag != null) {
-                if (tag.matches(Tags.dg))
+                if (tag.matches(Tag.DG))
                     structure.changeToLowerCaseAtHyphenIndex(totalHyphens);
-                else if (tag.matches(Tags.de))
+                else if (tag.matches(Tag.DE))
                     isDe = true;
                 else if (tag.matches(NOUN))
                     isDe = false;
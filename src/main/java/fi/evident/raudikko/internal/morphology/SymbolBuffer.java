@@ -36,6 +36,7 @@ import fi.evident.raudikko.analysis.AnalysisClass;
 import fi.evident.raudikko.analysis.Structure;
 import fi.evident.raudikko.internal.fst.Symbol;
 import fi.evident.raudikko.internal.utils.StringUtils;
+import fi.evident.raudikko.internal.utils.HeapSize;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
@@ -66,8 +67,27 @@ public final class SymbolBuffer {
         this.tokenCount = tokenCount;
     }
 
+    /**
+     * Returns the estimated heap usage of this buffer in bytes.
+     */
+    long estimateHeapUsage() {
+        // textBuffer, tags, index, startIndices and tokenCount
+        return HeapSize.object(3 * HeapSize.REFERENCE + 4 + 4)
+            + HeapSize.stringBuilder(textBuffer.capacity())
+            + HeapSize.array(tags.length, HeapSize.REFERENCE)
+            + HeapSize.array(startIndices.length, 4);
+    }
+
     @TestOnly
     static @NotNull SymbolBuffer parse(@NotNull String cs) {
+        var symbols = parseSymbols(cs);
+        var buffer = new SymbolBuffer(2000);
+        buffer.reset(symbols, symbols.length);
+        return buffer;
+    }
+
+    @TestOnly
+    static @NotNull Symbol[] parseSymbols(@NotNull String cs) {
         var symbols = new ArrayList<Symbol>();
 
         int offset = 0;
@@ -83,19 +103,42 @@ public final class SymbolBuffer {
             }
         }
 
-        var buffer = new SymbolBuffer(2000);
-        buffer.reset(symbols.toArray(new Symbol[0]), symbols.size());
-        return buffer;
+        return symbols.toArray(new Symbol[0]);
     }
 
     public void reset(@NotNull Symbol[] symbols, int length) {
+        fill(symbols, length, false);
+    }
+
+    /**
+     * Resets the buffer to given symbols if they form a valid analysis. Validation is done while
+     * tokenizing, so that an invalid analysis is rejected without reading the rest of the symbols.
+     *
+     * @return {@code false} if the analysis is invalid, in which case the contents of the buffer are undefined
+     */
+    boolean resetIfValid(@NotNull Symbol[] symbols, int length) {
+        return fill(symbols, length, true);
+    }
+
+    private boolean fill(@NotNull Symbol[] symbols, int length, boolean validate) {
         textBuffer.setLength(0);
         int index = 0;
+        long validation = Validator.INITIAL;
 
         var previousChar = false;
         for (int i = 0; i < length; i++) {
             var symbol = symbols[i];
 
+            if (validate) {
+                validation = Validator.next(validation, symbol);
+                if (validation == Validator.REJECTED) {
+                    textBuffer.setLength(0);
+                    tokenCount = 0;
+                    startIndices[0] = 0;
+                    return false;
+                }
+            }
+
             if (symbol.isChar()) {
                 if (!previousChar) {
                     previousChar = true;
@@ -116,12 +159,22 @@ public final class SymbolBuffer {
 
         tokenCount = index;
         startIndices[index] = textBuffer.length();
+
+        return !validate || Validator.isAccepted(validation);
     }
 
     public @NotNull String fullContents() {
         return textBuffer.toString();
     }
 
+    /**
+     * Returns the contents without copying them. The returned sequence is only valid
+     * until the buffer is reset.
+     */
+    @NotNull CharSequence contents() {
+        return textBuffer;
+    }
+
     void moveToStart() {
         index = -1;
     }
@@ -174,7 +227,7 @@ public final class SymbolBuffer {
         return false;
     }
 
-    public boolean nextTokenIsTag(@NotNull String tag) {
+    public boolean nextTokenIsTag(@NotNull Tag tag) {
         int nextIndex = index + 1;
         if (nextIndex < tokenCount) {
             Symbol nextTag = tags[nextIndex];
@@ -183,7 +236,7 @@ public final class SymbolBuffer {
         return false;
     }
 
-    public boolean previousTokenIsTag(@NotNull String tag) {
+    public boolean previousTokenIsTag(@NotNull Tag tag) {
         int previous = index - 1;
         if (previous >= 0) {
             Symbol nextTag = tags[previous];
@@ -224,12 +277,12 @@ public final class SymbolBuffer {
 
     @NotNull String readXTagContents() {
         nextToken();
-        if (matchesTag(Tags.x)) {
+        if (matchesTag(Tag.X)) {
             return "";
         } else {
             String content = currentToken.toString();
             nextToken();
-            assert(matchesTag(Tags.x)) : currentToken + " from " + fullContents();
+            assert(matchesTag(Tag.X)) : currentToken + " from " + fullContents();
             return content;
         }
     }
@@ -239,12 +292,12 @@ public final class SymbolBuffer {
 
         List<Structure.StructureSymbol> result = new ArrayList<>();
 
-        if (!matchesTag(Tags.x)) {
+        if (!matchesTag(Tag.X)) {
             for (int i = 0, len = currentToken.length(); i < len; i++)
                 result.add(Structure.StructureSymbol.forCode(currentToken.charAt(i)));
 
             nextToken();
-            assert (matchesTag(Tags.x)) : currentToken + " from " + fullContents();
+            assert (matchesTag(Tag.X)) : currentToken + " from " + fullContents();
         }
 
         return result;
@@ -252,7 +305,7 @@ public final class SymbolBuffer {
 
     void skipXTag() {
         while (nextToken())
-            if (matchesTag(Tags.x))
+            if (matchesTag(Tag.X))
                 break;
     }
 
@@ -268,7 +321,7 @@ public final class SymbolBuffer {
         return tags[index];
     }
 
-    boolean matchesTag(@NotNull String s) {
+    boolean matchesTag(@NotNull Tag s) {
         Symbol tag = getCurrentTag();
         return tag != null && tag.matches(s);
     }
@@ -287,7 +340,7 @@ public final class SymbolBuffer {
         return false;
     }
 
-    boolean containsTagAfterCurrent(@NotNull String s) {
+    boolean containsTagAfterCurrent(@NotNull Tag s) {
         for (int i = index + 1; i < tokenCount; i++) {
             Symbol tag = tags[i];
             if (tag != null && tag.matches(s))
@@ -296,7 +349,7 @@ public final class SymbolBuffer {
         return false;
     }
 
-    boolean containsTagBeforeCurrent(@NotNull String s) {
+    boolean containsTagBeforeCurrent(@NotNull Tag s) {
         for (int i = index - 1; i >= 0; i--) {
             Symbol tag = tags[i];
             if (tag != null && tag.matches(s))
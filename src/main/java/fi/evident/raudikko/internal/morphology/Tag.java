@@ -33,40 +33,66 @@
 package fi.evident.raudikko.internal.morphology;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tags that post-processing needs to recognize, apart from the ones represented by
+ * {@link fi.evident.raudikko.analysis.AnalysisClass} values.
+ * <p>
+ * Symbols resolve their tag when they are loaded, so comparing tags is a reference comparison.
+ */
 // https://github.com/voikko/corevoikko/blob/master/voikko-fi/vvfst/root.lexc
-public final class Tags {
+public enum Tag {
 
     // Boundaries
-    public static final String PREFIX_B = "[B";
-    static final @NotNull String bc = "[Bc]";
-    static final @NotNull String bh = "[Bh]";
-    static final @NotNull String bm = "[Bm]";
+    BC("[Bc]"),
+    BH("[Bh]"),
+    BM("[Bm]"),
 
     // Comparative
-    static final @NotNull String de = "[De]";
-    static final @NotNull String dg = "[Dg]";
+    DE("[De]"),
+    DG("[Dg]"),
 
     // Clitic
-    static final @NotNull String fko = "[Fko]";
-
-    static final @NotNull String isf = "[Isf]";
-    static final @NotNull String icu = "[Icu]";
-    static final @NotNull String ica = "[Ica]";
-    static final @NotNull String ion = "[Ion]";
-    static final @NotNull String ivj = "[Ivj]";
-    static final @NotNull String ira = "[Ira]";
-    static final @NotNull String irm = "[Irm]";
+    FKO("[Fko]"),
 
-    // Classes
-    public static final String PREFIX_L = "[L";
-    public static final String PREFIX_LE = "[Le";
+    ISF("[Isf]"),
+    ICU("[Icu]"),
+    ICA("[Ica]"),
+    ION("[Ion]"),
+    IVJ("[Ivj]"),
+    IRA("[Ira]"),
+    IRM("[Irm]"),
 
     // Parameters
-    public static final String PREFIX_X = "[X";
-    public static final @NotNull String xp = "[Xp]"; // perusmuoto
-    public static final @NotNull String xj = "[Xj]"; // johtimen perusmuoto
-    static final @NotNull String xr = "[Xr]"; // rakenne
-    static final @NotNull String xs = "[Xs]"; // sourceid
-    public static final @NotNull String x = "[X]"; // end marker
+    XP("[Xp]"), // perusmuoto
+    XJ("[Xj]"), // johtimen perusmuoto
+    XR("[Xr]"), // rakenne
+    XS("[Xs]"), // sourceid
+    X("[X]"); // end marker
+
+    private final @NotNull String symbol;
+
+    private static final @NotNull Map<String, Tag> bySymbol = new HashMap<>();
+
+    static {
+        for (var tag : values())
+            bySymbol.put(tag.symbol, tag);
+    }
+
+    Tag(@NotNull String symbol) {
+        this.symbol = symbol;
+    }
+
+    public static @Nullable Tag forSymbol(@NotNull String symbol) {
+        return bySymbol.get(symbol);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return symbol;
+    }
 }
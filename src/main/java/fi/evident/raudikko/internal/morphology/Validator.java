@@ -33,112 +33,160 @@
 package fi.evident.raudikko.internal.morphology;
 
 import fi.evident.raudikko.analysis.WordClass;
+import fi.evident.raudikko.internal.fst.OutputFilter;
+import fi.evident.raudikko.internal.fst.Symbol;
 import org.jetbrains.annotations.NotNull;
 
 import static java.lang.Character.isDigit;
 import static java.lang.Character.toLowerCase;
 
+/**
+ * Validates compound hyphenation and proper noun usage in transducer outputs.
+ * <p>
+ * The validator is a state machine that consumes the output symbols one at a time, so that an invalid
+ * analysis can be rejected as soon as it's detected without first tokenizing the whole output. The state
+ * is packed in a single {@code long}, which makes it cheap to store for each position of the output.
+ * This also allows running the validator as an {@link OutputFilter} during traversal, see {@link #FILTER}.
+ */
 final class Validator {
 
     private static final @NotNull String VOWELS = "aeiouyäö";
 
-    // TODO: instead of separate validation step, we could just bail out from parsing if analysis is invalid
-    public static boolean isValidAnalysis(@NotNull SymbolBuffer tokenizer) {
-        var beforeLastChar = '\0';
-        var lastChar = '\0';
-        var boundaryPassed = false;
-        var hyphenPresent = false;
-        var hyphenUnconditionallyAllowed = false;
-        var hyphenUnconditionallyAllowedJustSet = false;
-        var hyphenRequired = false;
-        var requiredHyphenMissing = false;
-        var startsWithProperNoun = false;
-        var endsWithNonIcaNoun = false;
-
-        tokenizer.moveToStart();
-        while (tokenizer.nextToken()) {
-            var tag = tokenizer.getCurrentTag();
-            if (tag != null) {
-                if (tag.matches(Tags.isf)) {
-                    hyphenUnconditionallyAllowed = true;
-                    hyphenUnconditionallyAllowedJustSet = true;
-
-                } else if (tag.matches(Tags.icu)) {
-                    boundaryPassed = false;
-                    hyphenUnconditionallyAllowed = true;
-                    hyphenRequired = true;
-
-                } else if (tag.matches(Tags.ica)) {
-                    requiredHyphenMissing = false;
-                    endsWithNonIcaNoun = false;
-
-                } else if (tag.isNameTag()) {
-                    startsWithProperNoun = true; // TODO starts?
-                    endsWithNonIcaNoun = false;
-
-                } else if (tag.matches(WordClass.NOUN) || tag.matches(WordClass.NOUN_ADJECTIVE)) {
-                    endsWithNonIcaNoun = true;
-
-                } else if (tag.matches(Tags.dg)) {
-                    startsWithProperNoun = false;
-
-                } else if (tag.isXParameter()) {
-                    tokenizer.skipXTag();
-
-                } else if (tag.matches(Tags.bh)) {
-                    boundaryPassed = true;
-                    hyphenPresent = false;
-
-                    if (requiredHyphenMissing)
-                        return false;
-
-                    if (hyphenRequired)
-                        requiredHyphenMissing = true;
-                }
-            } else {
-                for (int i = 0, len = tokenizer.currentToken.length(); i < len; i++) {
-                    char current = tokenizer.currentToken.charAt(i);
-                    if (current == '-') {
-                        startsWithProperNoun = false;
-                        endsWithNonIcaNoun = false;
-
-                        if (i == len - 1 && tokenizer.nextTokenIsTag(Tags.bh)) {
-                            tokenizer.nextToken();
-                            boundaryPassed = true;
-                            hyphenPresent = true;
-                        }
-                    } else {
-                        if (boundaryPassed) {
-                            if (lastChar == '\0' || (beforeLastChar == 'i' && lastChar == 's'))
-                                hyphenUnconditionallyAllowed = true;
-
-                            if (hyphenPresent)
-                                hyphenRequired = false;
-
-                            if (!hyphenUnconditionallyAllowed || !hyphenPresent) {
-                                lastChar = toLowerCase(lastChar);
-
-                                boolean needHyphen = (lastChar == toLowerCase(current) && isVowel(lastChar)) || isDigit(lastChar);
-
-                                if (needHyphen != hyphenPresent)
-                                    return false;
-                            }
-
-                            boundaryPassed = false;
-
-                            if (hyphenUnconditionallyAllowedJustSet)
-                                hyphenUnconditionallyAllowedJustSet = false;
-                            else
-                                hyphenUnconditionallyAllowed = false;
-                        }
-                        beforeLastChar = lastChar;
-                        lastChar = current;
-                    }
-                }
+    /** State before any symbols have been consumed */
+    static final long INITIAL = 0;
+
+    /** State after the symbols have been found to be invalid */
+    static final long REJECTED = OutputFilter.REJECTED;
+
+    /** Validator as a filter that prunes invalid paths already during traversal */
+    static final @NotNull OutputFilter FILTER = Validator::next;
+
+    // The two latest characters are stored in the low 32 bits and the flags above them
+    private static final int BEFORE_LAST_CHAR_SHIFT = 16;
+    private static final long CHAR_MASK = 0xFFFF;
+    private static final long BOUNDARY_PASSED = 1L << 32;
+    private static final long HYPHEN_PRESENT = 1L << 33;
+    private static final long HYPHEN_UNCONDITIONALLY_ALLOWED = 1L << 34;
+    private static final long HYPHEN_UNCONDITIONALLY_ALLOWED_JUST_SET = 1L << 35;
+    private static final long HYPHEN_REQUIRED = 1L << 36;
+    private static final long REQUIRED_HYPHEN_MISSING = 1L << 37;
+    private static final long STARTS_WITH_PROPER_NOUN = 1L << 38;
+    private static final long ENDS_WITH_NON_ICA_NOUN = 1L << 39;
+
+    /** Inside an X-parameter, whose contents are skipped until the end marker */
+    private static final long INSIDE_X_PARAMETER = 1L << 40;
+
+    /** The previous symbol was a hyphen, which combines with a directly following [Bh] */
+    private static final long HYPHEN_PENDING = 1L << 41;
+
+    private Validator() {
+    }
+
+    /**
+     * Returns the state after consuming given symbol, or {@link #REJECTED} if the symbols
+     * consumed so far can't form a valid analysis.
+     */
+    static long next(long state, @NotNull Symbol symbol) {
+        if (state == REJECTED || symbol.isEpsilon())
+            return state;
+
+        if (has(state, INSIDE_X_PARAMETER))
+            return symbol.matches(Tag.X) ? state & ~INSIDE_X_PARAMETER : state;
+
+        if (has(state, HYPHEN_PENDING)) {
+            state &= ~HYPHEN_PENDING;
+
+            // Hyphen followed by [Bh] is a boundary with a hyphen, the tag is consumed by the hyphen
+            if (symbol.matches(Tag.BH))
+                return state | BOUNDARY_PASSED | HYPHEN_PRESENT;
+        }
+
+        return symbol.isChar() ? nextChar(state, symbol.charValue()) : nextTag(state, symbol);
+    }
+
+    /**
+     * Returns true if given state after consuming all symbols is valid.
+     */
+    static boolean isAccepted(long state) {
+        return state != REJECTED
+            && !has(state, REQUIRED_HYPHEN_MISSING)
+            && (!has(state, STARTS_WITH_PROPER_NOUN) || !has(state, ENDS_WITH_NON_ICA_NOUN));
+    }
+
+    private static long nextTag(long state, @NotNull Symbol tag) {
+        if (tag.matches(Tag.ISF)) {
+            return state | HYPHEN_UNCONDITIONALLY_ALLOWED | HYPHEN_UNCONDITIONALLY_ALLOWED_JUST_SET;
+
+        } else if (tag.matches(Tag.ICU)) {
+            return (state & ~BOUNDARY_PASSED) | HYPHEN_UNCONDITIONALLY_ALLOWED | HYPHEN_REQUIRED;
+
+        } else if (tag.matches(Tag.ICA)) {
+            return state & ~(REQUIRED_HYPHEN_MISSING | ENDS_WITH_NON_ICA_NOUN);
+
+        } else if (tag.isNameTag()) {
+            return (state | STARTS_WITH_PROPER_NOUN) & ~ENDS_WITH_NON_ICA_NOUN; // TODO starts?
+
+        } else if (tag.matches(WordClass.NOUN) || tag.matches(WordClass.NOUN_ADJECTIVE)) {
+            return state | ENDS_WITH_NON_ICA_NOUN;
+
+        } else if (tag.matches(Tag.DG)) {
+            return state & ~STARTS_WITH_PROPER_NOUN;
+
+        } else if (tag.isXParameter()) {
+            return state | INSIDE_X_PARAMETER;
+
+        } else if (tag.matches(Tag.BH)) {
+            if (has(state, REQUIRED_HYPHEN_MISSING))
+                return REJECTED;
+
+            state = (state | BOUNDARY_PASSED) & ~HYPHEN_PRESENT;
+
+            return has(state, HYPHEN_REQUIRED) ? state | REQUIRED_HYPHEN_MISSING : state;
+
+        } else {
+            return state;
+        }
+    }
+
+    private static long nextChar(long state, char current) {
+        if (current == '-')
+            return (state & ~(STARTS_WITH_PROPER_NOUN | ENDS_WITH_NON_ICA_NOUN)) | HYPHEN_PENDING;
+
+        var lastChar = (char) (state & CHAR_MASK);
+        var beforeLastChar = (char) ((state >>> BEFORE_LAST_CHAR_SHIFT) & CHAR_MASK);
+
+        if (has(state, BOUNDARY_PASSED)) {
+            if (lastChar == '\0' || (beforeLastChar == 'i' && lastChar == 's'))
+                state |= HYPHEN_UNCONDITIONALLY_ALLOWED;
+
+            var hyphenPresent = has(state, HYPHEN_PRESENT);
+            if (hyphenPresent)
+                state &= ~HYPHEN_REQUIRED;
+
+            if (!has(state, HYPHEN_UNCONDITIONALLY_ALLOWED) || !hyphenPresent) {
+                lastChar = toLowerCase(lastChar);
+
+                boolean needHyphen = (lastChar == toLowerCase(current) && isVowel(lastChar)) || isDigit(lastChar);
+
+                if (needHyphen != hyphenPresent)
+                    return REJECTED;
             }
+
+            state &= ~BOUNDARY_PASSED;
+
+            if (has(state, HYPHEN_UNCONDITIONALLY_ALLOWED_JUST_SET))
+                state &= ~HYPHEN_UNCONDITIONALLY_ALLOWED_JUST_SET;
+            else
+                state &= ~HYPHEN_UNCONDITIONALLY_ALLOWED;
         }
 
-        return !requiredHyphenMissing && (!startsWithProperNoun || !endsWithNonIcaNoun);
+        return (state & ~(CHAR_MASK | CHAR_MASK << BEFORE_LAST_CHAR_SHIFT))
+            | ((long) lastChar << BEFORE_LAST_CHAR_SHIFT)
+            | current;
+    }
+
+    private static boolean has(long state, long flag) {
+        return (state & flag) != 0;
     }
 
     private static boolean isVowel(char ch) {
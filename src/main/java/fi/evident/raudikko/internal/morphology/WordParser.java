@@ -58,7 +58,7 @@ final class WordParser {
             if (tag == null) {
                 word.append(tokenizer.currentToken.toString());
             } else {
-                if (tag.matches(Tags.xp)) {
+                if (tag.matches(Tag.XP)) {
                     var baseForm = tokenizer.readXTagContents();
                     var baseFormParts = equalSignPattern.split(baseForm);
 
@@ -68,10 +68,10 @@ final class WordParser {
                         word.addBaseForm(baseForm);
                 }
 
-                else if (tag.matches(Tags.xj))
+                else if (tag.matches(Tag.XJ))
                     word.addBaseForm(word.getCurrentPart().word + withoutChar(tokenizer.readXTagContents(), '='));
 
-                else if (tag.matches(Tags.xr) || tag.matches(Tags.xs))
+                else if (tag.matches(Tag.XR) || tag.matches(Tag.XS))
                     tokenizer.readXTagContents(); // not used
 
                 else if (tag.isBoundary()) {
@@ -0,0 +1,318 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe cache holding at most given number of entries.
+ * <p>
+ * The entries are divided into segments by their hash, each guarded by its own lock, so that
+ * threads working on different keys rarely contend. Values are never computed while holding a lock.
+ */
+public final class BoundedCache<K, V> {
+
+    private final @NotNull Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final @NotNull LongAdder hits = new LongAdder();
+    private final @NotNull LongAdder misses = new LongAdder();
+    private final @NotNull LongAdder evictions = new LongAdder();
+
+    public enum Policy {
+
+        /**
+         * Evict the least recently used entry.
+         */
+        LRU,
+
+        /**
+         * Admit new entries through a small LRU window to the main LRU area only if they
+         * have been used more often than the entry they would replace (W-TinyLFU).
+         */
+        TINY_LFU
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BoundedCache(int capacity, @NotNull Policy policy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("invalid capacity: " + capacity);
+
+        // Small caches are not worth splitting, since each segment would hold only a few entries
+        int segmentCount = capacity >= 1024 ? 16 : 1;
+        int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = policy == Policy.LRU ? new LruSegment<>(segmentCapacity) : new TinyLfuSegment<>(segmentCapacity);
+    }
+
+    public @Nullable V get(@NotNull K key) {
+        int hash = spread(key.hashCode());
+        var segment = segments[hash & segmentMask];
+
+        V value;
+        synchronized (segment) {
+            value = segment.get(key, hash);
+        }
+
+        if (value != null)
+            hits.increment();
+        else
+            misses.increment();
+
+        return value;
+    }
+
+    public void put(@NotNull K key, @NotNull V value) {
+        int hash = spread(key.hashCode());
+        var segment = segments[hash & segmentMask];
+
+        int evicted;
+        synchronized (segment) {
+            evicted = segment.put(key, value, hash);
+        }
+
+        if (evicted != 0)
+            evictions.add(evicted);
+    }
+
+    public int size() {
+        int size = 0;
+        for (var segment : segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    public void clear() {
+        for (var segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private interface Segment<K, V> {
+        @Nullable V get(@NotNull K key, int hash);
+
+        /**
+         * Stores given entry and returns the number of evicted entries.
+         */
+        int put(@NotNull K key, @NotNull V value, int hash);
+
+        int size();
+
+        void clear();
+    }
+
+    private static final class LruSegment<K, V> implements Segment<K, V> {
+
+        private final @NotNull LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        LruSegment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public @Nullable V get(@NotNull K key, int hash) {
+            return entries.get(key);
+        }
+
+        @Override
+        public int put(@NotNull K key, @NotNull V value, int hash) {
+            entries.put(key, value);
+            return removeEldestIfFull(entries, capacity) != null ? 1 : 0;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+    }
+
+    private static final class TinyLfuSegment<K, V> implements Segment<K, V> {
+
+        /** Recently added entries, about 1% of the capacity, evicted in LRU order to main area */
+        private final @NotNull LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final @NotNull LinkedHashMap<K, V> main = new LinkedHashMap<>(16, 0.75f, true);
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final @NotNull FrequencySketch sketch;
+
+        TinyLfuSegment(int capacity) {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(1, capacity - windowCapacity);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        @Override
+        public @Nullable V get(@NotNull K key, int hash) {
+            sketch.increment(hash);
+
+            var value = window.get(key);
+            return value != null ? value : main.get(key);
+        }
+
+        @Override
+        public int put(@NotNull K key, @NotNull V value, int hash) {
+            if (main.containsKey(key)) {
+                main.put(key, value);
+                return 0;
+            }
+
+            window.put(key, value);
+
+            var candidate = removeEldestIfFull(window, windowCapacity);
+            if (candidate == null)
+                return 0;
+
+            if (main.size() < mainCapacity) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return 0;
+            }
+
+            // Both the candidate and the eldest of main area compete for the place based on their frequency
+            var victim = main.entrySet().iterator().next();
+            if (sketch.frequency(spread(candidate.getKey().hashCode())) > sketch.frequency(spread(victim.getKey().hashCode()))) {
+                main.remove(victim.getKey());
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+
+            return 1;
+        }
+
+        @Override
+        public int size() {
+            return window.size() + main.size();
+        }
+
+        @Override
+        public void clear() {
+            window.clear();
+            main.clear();
+        }
+    }
+
+    private static <K, V> @Nullable Map.Entry<K, V> removeEldestIfFull(@NotNull LinkedHashMap<K, V> map, int capacity) {
+        if (map.size() <= capacity)
+            return null;
+
+        var iterator = map.entrySet().iterator();
+        var eldest = iterator.next();
+        var result = Map.entry(eldest.getKey(), eldest.getValue());
+        iterator.remove();
+        return result;
+    }
+
+    /**
+     * Count-min sketch of the access frequencies of keys. The counters saturate at 15 and are
+     * halved periodically, so that the sketch forgets keys that were popular long ago.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x97cb3127, 0x0b4e0ef3, 0x8ff2b2a1, 0x5e2d58d5};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            this.counters = new byte[DEPTH * width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(16, capacity);
+        }
+
+        void increment(int hash) {
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (counters[index] < MAX_COUNT)
+                    counters[index]++;
+            }
+
+            if (++additions >= sampleSize)
+                reset();
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++)
+                frequency = Math.min(frequency, counters[indexOf(hash, i)]);
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 17;
+            return row * (mask + 1) + (h & mask);
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length; i++)
+                counters[i] >>= 1;
+            additions /= 2;
+        }
+    }
+}
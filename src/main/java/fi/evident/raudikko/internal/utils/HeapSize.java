@@ -0,0 +1,88 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates of heap usage, assuming a 64-bit JVM with compressed references: 12-byte object
+ * headers, 16-byte array headers, 4-byte references and 8-byte alignment. These hold for the
+ * default settings of HotSpot with heaps smaller than 32 GB.
+ */
+public final class HeapSize {
+
+    public static final int REFERENCE = 4;
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+
+    private HeapSize() {
+    }
+
+    /**
+     * Returns the size of an object having fields of given total size.
+     */
+    public static long object(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * Returns the size of an array of given length and element size.
+     */
+    public static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    /**
+     * Returns the size of given string, including its backing array.
+     */
+    public static long string(@NotNull String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++)
+            latin1 = s.charAt(i) <= 0xFF;
+
+        // value, hash, coder and hashIsZero
+        return object(REFERENCE + 4 + 1 + 1) + array(s.length(), latin1 ? 1 : 2);
+    }
+
+    /**
+     * Returns the size of a {@link StringBuilder} with given capacity, including its backing array.
+     */
+    public static long stringBuilder(int capacity) {
+        // value, coder, maybeLatin1 and count; the builder starts out Latin-1
+        return object(REFERENCE + 1 + 1 + 4) + array(capacity, 1);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -34,6 +34,7 @@ package fi.evident.raudikko.internal.utils;
 
 import org.jetbrains.annotations.NotNull;
 
+import static java.lang.Character.isLetterOrDigit;
 import static java.lang.Character.toUpperCase;
 
 public final class StringUtils {
@@ -139,4 +140,19 @@ public final class StringUtils {
 
         return s.substring(startOffset, s.length() - endOffset);
     }
+
+    /**
+     * Returns true if the character at given index belongs to a word. Word characters are letters and digits,
+     * and hyphens, apostrophes and colons between them, so that hyphenated compounds and abbreviations
+     * with inflections (like {@code "EU:n"}) are single words.
+     */
+    public static boolean isWordCharAt(@NotNull CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (isLetterOrDigit(c))
+            return true;
+
+        return (c == '-' || c == '\'' || c == ':')
+            && i > 0 && isLetterOrDigit(text.charAt(i - 1))
+            && i + 1 < text.length() && isLetterOrDigit(text.charAt(i + 1));
+    }
 }
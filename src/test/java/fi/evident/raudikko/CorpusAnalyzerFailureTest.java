@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CorpusAnalyzerFailureTest {
+
+    @Test
+    void workerExceptionsArePropagatedWithOrderedResults() throws Exception {
+        assertWorkerExceptionIsPropagated(true);
+    }
+
+    @Test
+    void workerExceptionsArePropagatedWithUnorderedResults() throws Exception {
+        assertWorkerExceptionIsPropagated(false);
+    }
+
+    private static void assertWorkerExceptionIsPropagated(boolean preserveOrder) throws Exception {
+        var failure = new IllegalStateException("failed");
+        Analyzer analyzer = (word, maxResults) -> {
+            if (word.toString().equals("fail"))
+                throw failure;
+            return Collections.emptyList();
+        };
+
+        // The first batch fails and there is enough words for ten batches
+        var words = new ArrayList<>(Collections.nCopies(10_000, "kissa"));
+        words.set(0, "fail");
+
+        // With a single worker the batches complete in order, so the failing batch is the first one
+        // to complete, when the analyzer has filled its queue of two pending batches
+        var pool = Executors.newSingleThreadExecutor();
+        var submitted = new AtomicInteger();
+        Executor executor = command -> {
+            submitted.incrementAndGet();
+            pool.execute(command);
+        };
+
+        try {
+            var corpusAnalyzer = new CorpusAnalyzer(analyzer, executor, 1);
+            var delivered = new ArrayList<String>();
+
+            var e = assertThrows(IllegalStateException.class, () -> corpusAnalyzer.analyze(words.iterator(), preserveOrder, (word, analyses) -> delivered.add(word)));
+
+            assertSame(failure, e);
+            assertEquals(2, submitted.get());
+            assertEquals(List.of(), delivered);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
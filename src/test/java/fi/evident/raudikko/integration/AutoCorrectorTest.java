@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.AutoCorrector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class AutoCorrectorTest {
+
+    private final AutoCorrector corrector = AutoCorrector.loadBundled();
+
+    @Test
+    void correctsSingleWords() {
+        assertEquals("aiemmin", corrector.correct("aiemin"));
+        assertEquals("Se tehtiin aiemmin.", corrector.correct("Se tehtiin aiemin."));
+    }
+
+    @Test
+    void correctsPhrases() {
+        assertEquals("ajantasainen", corrector.correct("ajan tasainen"));
+        assertEquals("tieto on ajantasainen", corrector.correct("tieto on ajan\n  tasainen"));
+        assertEquals("aika lailla", corrector.correct("aikalailla"));
+        assertEquals("ylöspäin", corrector.correct("ylös päin"));
+    }
+
+    @Test
+    void preservesCapitalization() {
+        assertEquals("Aiemmin", corrector.correct("Aiemin"));
+        assertEquals("AIEMMIN", corrector.correct("AIEMIN"));
+        assertEquals("Ajantasainen", corrector.correct("Ajan tasainen"));
+    }
+
+    @Test
+    void leavesCorrectTextUntouched() {
+        var text = "Tämä teksti on kirjoitettu oikein, eikä siinä ole korjattavaa!";
+        assertEquals(text, corrector.correct(text));
+        assertEquals("", corrector.correct(""));
+        assertTrue(corrector.findCorrections(text).isEmpty());
+    }
+
+    @Test
+    void doesNotCorrectPartsOfWords() {
+        assertEquals("aiemin-sana", corrector.correct("aiemin-sana"));
+        assertEquals("xaiemin", corrector.correct("xaiemin"));
+    }
+
+    @Test
+    void reportsCorrectionPositions() {
+        var corrections = corrector.findCorrections("No, aiemin ajan tasainen.");
+
+        assertEquals(2, corrections.size());
+        assertEquals(4, corrections.get(0).getStartIndex());
+        assertEquals(10, corrections.get(0).getEndIndex());
+        assertEquals("aiemin", corrections.get(0).getOriginal());
+        assertEquals("aiemmin", corrections.get(0).getReplacement());
+        assertEquals("ajan tasainen", corrections.get(1).getOriginal());
+        assertEquals("ajantasainen", corrections.get(1).getReplacement());
+    }
+
+    @Test
+    void streamsCorrectionsToAppendable() throws IOException {
+        var out = new StringWriter();
+        corrector.correct("aiemin ja ajan tasainen", out);
+        assertEquals("aiemmin ja ajantasainen", out.toString());
+    }
+
+    @Test
+    void concurrentUseProducesSameResults() {
+        var text = "Aiemin tieto oli ajan tasainen, ja aikalailla oikein. ".repeat(100);
+        var expected = corrector.correct(text);
+
+        var futures = IntStream.range(0, 8)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> corrector.correct(text)))
+            .toList();
+
+        for (var future : futures)
+            assertEquals(expected, future.join());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.AnalysisCache;
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.Morphology;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.Map;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class CachingAnalyzerTest {
+
+    private final @NotNull Morphology morphology = Morphology.loadBundled();
+    private final @NotNull Analyzer analyzer = morphology.newAnalyzer();
+
+    @Test
+    void sameResultsAsUncachedAnalyzer() throws Exception {
+        var cache = new AnalysisCache(500, AnalysisCache.EvictionPolicy.TINY_LFU);
+        var cachingAnalyzer = morphology.newCachingAnalyzer(cache);
+        var words = readLines("rautatie-unhyphenated.txt").subList(0, 2000);
+
+        for (int round = 0; round < 2; round++)
+            for (var word : words) {
+                assertEquals(toVoikkoFormat(analyzer.analyze(word)), toVoikkoFormat(cachingAnalyzer.analyze(word)), word);
+                assertEquals(analyzer.baseForms(word), cachingAnalyzer.baseForms(word), word);
+            }
+
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.size() <= 500);
+    }
+
+    @Test
+    void cachedAnalysesAreReadOnly() {
+        var cachingAnalyzer = morphology.newCachingAnalyzer(new AnalysisCache(100));
+
+        var analysis = cachingAnalyzer.analyze("kissa").get(0);
+        assertTrue(analysis.isReadOnly());
+        assertThrows(UnsupportedOperationException.class, () -> analysis.setBaseForm("koira"));
+        assertThrows(UnsupportedOperationException.class, () -> cachingAnalyzer.analyze("kissa").add(new Analysis()));
+
+        var copy = analysis.clone();
+        assertFalse(copy.isReadOnly());
+        copy.setBaseForm("koira");
+        assertEquals("kissa", cachingAnalyzer.analyze("kissa").get(0).getBaseForm());
+    }
+
+    @Test
+    void casesAndConfigurationsAreCachedCorrectly() {
+        var cache = new AnalysisCache(100);
+        var cachingAnalyzer = morphology.newCachingAnalyzer(cache);
+
+        var configuration = new AnalyzerConfiguration();
+        configuration.setIncludeBaseForm(false);
+        var otherAnalyzer = morphology.newCachingAnalyzer(configuration, cache);
+
+        assertEquals(toVoikkoFormat(analyzer.analyze("kissa")), toVoikkoFormat(cachingAnalyzer.analyze("kissa")));
+        assertEquals(toVoikkoFormat(analyzer.analyze("KISSA")), toVoikkoFormat(cachingAnalyzer.analyze("KISSA")));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        assertNull(otherAnalyzer.analyze("kissa").get(0).getBaseForm());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void laterChangesToConfigurationAreIgnored() {
+        var cache = new AnalysisCache(100);
+        var configuration = new AnalyzerConfiguration();
+        var cachingAnalyzer = morphology.newCachingAnalyzer(configuration, cache);
+
+        configuration.setIncludeBaseForm(false);
+
+        // Both the cache key and the analysis must still use the original configuration
+        assertEquals("kissa", cachingAnalyzer.analyze("kissa").get(0).getBaseForm());
+        assertEquals("kissa", morphology.newCachingAnalyzer(cache).analyze("kissa").get(0).getBaseForm());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void maxResults() {
+        var cachingAnalyzer = morphology.newCachingAnalyzer(new AnalysisCache(100));
+
+        var all = cachingAnalyzer.analyze("alusta");
+        assertTrue(all.size() > 1);
+        assertEquals(all.subList(0, 1), cachingAnalyzer.analyze("alusta", 1));
+        assertEquals(List.of(), cachingAnalyzer.analyze("alusta", 0));
+    }
+
+    private static @NotNull List<Map<String, String>> toVoikkoFormat(@NotNull List<Analysis> analyses) {
+        return analyses.stream().map(Analysis::toVoikkoFormat).toList();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.Morphology;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class CorpusAnalyzerTest {
+
+    private final @NotNull Morphology morphology = Morphology.loadBundled();
+    private List<String> words;
+    private List<List<Map<String, String>>> expected;
+
+    @BeforeAll
+    void setup() throws Exception {
+        words = new RepeatedList<>(readLines("rautatie-unhyphenated.txt"), 3);
+
+        var analyzer = morphology.newAnalyzer();
+        expected = new ArrayList<>();
+        for (var word : words)
+            expected.add(toVoikkoFormat(analyzer.analyze(word)));
+    }
+
+    @Test
+    void orderedResults() throws Exception {
+        var resultWords = new ArrayList<String>();
+        var results = new ArrayList<List<Map<String, String>>>();
+
+        morphology.newCorpusAnalyzer().analyze(words.stream(), true, (word, analyses) -> {
+            resultWords.add(word);
+            results.add(toVoikkoFormat(analyses));
+        });
+
+        assertEquals(words, resultWords);
+        assertEquals(expected, results);
+    }
+
+    @Test
+    void unorderedResults() throws Exception {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var corpusAnalyzer = morphology.newCorpusAnalyzer(new AnalyzerConfiguration(), executor, 4);
+            var results = new HashMap<String, List<Map<String, String>>>();
+            int[] count = {0};
+
+            corpusAnalyzer.analyze(words.iterator(), false, (word, analyses) -> {
+                results.put(word, toVoikkoFormat(analyses));
+                count[0]++;
+            });
+
+            assertEquals(words.size(), count[0]);
+            for (int i = 0; i < words.size(); i++)
+                assertEquals(expected.get(i), results.get(words.get(i)), words.get(i));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void exceptionsArePropagated() {
+        var failure = new IllegalStateException("failed");
+
+        assertThrows(IllegalStateException.class, () ->
+            morphology.newCorpusAnalyzer().analyze(words.stream(), true, (word, analyses) -> {
+                throw failure;
+            }));
+    }
+
+    private static @NotNull List<Map<String, String>> toVoikkoFormat(@NotNull List<Analysis> analyses) {
+        return analyses.stream().map(Analysis::toVoikkoFormat).toList();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.Generator;
+import fi.evident.raudikko.Inflection;
+import fi.evident.raudikko.Morphology;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+
+import static fi.evident.raudikko.analysis.GrammaticalNumber.PLURAL;
+import static fi.evident.raudikko.analysis.GrammaticalNumber.SINGULAR;
+import static fi.evident.raudikko.analysis.Locative.GENITIVE;
+import static fi.evident.raudikko.analysis.Locative.INESIVE;
+import static fi.evident.raudikko.analysis.Locative.NOMINATIVE;
+import static fi.evident.raudikko.analysis.Possessive.FIRST_SINGULAR;
+import static fi.evident.raudikko.analysis.WordClass.NOUN;
+import static fi.evident.raudikko.analysis.WordClass.VERB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class GeneratorTest {
+
+    private final @NotNull Morphology morphology = Morphology.loadBundled();
+    private final @NotNull Generator generator = morphology.newGenerator();
+    private final @NotNull Analyzer analyzer = morphology.newAnalyzer();
+
+    @Test
+    void generatesRequestedInflection() {
+        var inessives = generator.generate("kissa", new Inflection(INESIVE, PLURAL));
+        assertTrue(inessives.containsAll(List.of("kissoissa", "kissoissani", "kissoissaan")), inessives::toString);
+        assertFalse(inessives.contains("kissassa"));
+
+        var genitives = generator.generate("kissa", new Inflection(GENITIVE, SINGULAR));
+        assertTrue(genitives.contains("kissan"), genitives::toString);
+        assertFalse(genitives.contains("kissojen"));
+    }
+
+    @Test
+    void generatesPossessiveForms() {
+        var inflection = new Inflection(NOMINATIVE, SINGULAR);
+        inflection.setPossessive(FIRST_SINGULAR);
+
+        assertEquals(List.of("kissani"), generator.generate("kissa", inflection));
+    }
+
+    @Test
+    void generatesAllFormsOfWord() {
+        var forms = generator.generate("kissa");
+
+        assertTrue(forms.containsAll(List.of("kissa", "kissan", "kissaa", "kissoille", "kissoissa", "kissansa")), forms::toString);
+        assertFalse(forms.contains("kissakin"), "clitics are not generated");
+        assertFalse(forms.stream().anyMatch(form -> form.startsWith("kissankello")), "compounds are not generated");
+    }
+
+    @Test
+    void usesStandardCapitalization() {
+        assertTrue(generator.generate("helsinki", new Inflection(INESIVE, SINGULAR)).contains("Helsingissä"));
+        assertEquals(generator.generate("helsinki"), generator.generate("Helsinki"));
+    }
+
+    @Test
+    void filtersByWordClass() {
+        var verb = new Inflection();
+        verb.setWordClass(VERB);
+        var noun = new Inflection();
+        noun.setWordClass(NOUN);
+
+        assertTrue(generator.generate("juosta", verb).contains("juoksen"));
+        assertTrue(generator.generate("juosta", noun).isEmpty());
+    }
+
+    @Test
+    void unknownWordsHaveNoForms() {
+        assertTrue(generator.generate("xyzzy").isEmpty());
+        assertTrue(generator.generate("").isEmpty());
+    }
+
+    @Test
+    void generatedFormsAnalyzeBackToBaseForm() {
+        for (var baseForm : List.of("kissa", "koira", "talo", "kaksi", "hyvä", "juosta", "Helsinki")) {
+            var inflection = new Inflection(INESIVE, PLURAL);
+
+            for (var form : generator.generate(baseForm)) {
+                var analyses = analyzer.analyze(form);
+                assertTrue(analyses.stream().anyMatch(a -> baseForm.equalsIgnoreCase(a.getBaseForm())), form);
+            }
+
+            for (var form : generator.generate(baseForm, inflection)) {
+                var analyses = analyzer.analyze(form);
+                assertTrue(analyses.stream().anyMatch(a -> baseForm.equalsIgnoreCase(a.getBaseForm())
+                    && a.getLocative() == INESIVE && a.getNumber() == PLURAL), form);
+            }
+        }
+    }
+
+    @Test
+    void generationRequiresObjectGraphEngine() {
+        var compact = Morphology.loadBundled(Morphology.Engine.COMPACT);
+
+        assertThrows(UnsupportedOperationException.class, compact::newGenerator);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.Hyphenator;
+import fi.evident.raudikko.Morphology;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+public class HyphenatorTest {
+
+    private final @NotNull Morphology morphology = Morphology.loadBundled();
+    private final @NotNull Hyphenator hyphenator = morphology.newHyphenator();
+
+    @Test
+    void hyphenatesWords() {
+        assertEquals("kis-sa", hyphenator.hyphenate("kissa"));
+        assertEquals("Kis-sa", hyphenator.hyphenate("Kissa"));
+        assertEquals("au-to-kaup-pa", hyphenator.hyphenate("autokauppa"));
+        assertEquals("rau-ta-tie-a-se-ma", hyphenator.hyphenate("rautatieasema"));
+        assertEquals("   - ", hyphenator.getHyphenationPattern("kissa"));
+    }
+
+    @Test
+    void abbreviationsAreNotHyphenated() {
+        assertEquals("DNA-näy-te", hyphenator.hyphenate("DNA-näyte", "-", false));
+    }
+
+    @Test
+    void hyphenatesText() {
+        assertEquals("Kis~sa ja koi~ra, kis~sa!", hyphenator.hyphenateText("Kissa ja koira, kissa!", "~"));
+        assertEquals("", hyphenator.hyphenateText("", "~"));
+    }
+
+    @Test
+    void cachedAndUncachedResultsAgree() throws Exception {
+        var uncached = morphology.newHyphenator(0);
+
+        for (int round = 0; round < 2; round++)
+            for (var word : readLines("rautatie-unhyphenated.txt").subList(0, 2000))
+                assertEquals(uncached.getHyphenationPattern(word), hyphenator.getHyphenationPattern(word), word);
+    }
+
+    @Test
+    void concurrentUseProducesSameResults() throws Exception {
+        var words = readLines("rautatie-unhyphenated.txt").subList(0, 1000);
+        var text = String.join(" ", words);
+        var expected = morphology.newHyphenator(0).hyphenateText(text, "-");
+
+        var futures = IntStream.range(0, 8)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> hyphenator.hyphenateText(text, "-")))
+            .toList();
+
+        for (var future : futures)
+            assertEquals(expected, future.join());
+    }
+}
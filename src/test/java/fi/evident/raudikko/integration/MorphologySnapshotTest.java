@@ -0,0 +1,67 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.Morphology;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MorphologySnapshotTest {
+
+    @Test
+    void writtenSnapshotCanBeLoaded() throws Exception {
+        var morphology = Morphology.loadBundled(Morphology.Engine.COMPACT);
+
+        var out = new ByteArrayOutputStream();
+        morphology.writeSnapshot(out);
+        var restored = Morphology.loadSnapshot(new ByteArrayInputStream(out.toByteArray()));
+
+        var analyzer = morphology.newAnalyzer();
+        var restoredAnalyzer = restored.newAnalyzer();
+        for (var word : new String[]{"kissa", "rautatieasema", "juoksentelisivatkohan"})
+            assertEquals(analyzer.analyze(word).toString(), restoredAnalyzer.analyze(word).toString(), word);
+    }
+
+    @Test
+    void onlyCompactMorphologyCanBeWritten() {
+        var morphology = Morphology.loadBundled(Morphology.Engine.OBJECT_GRAPH);
+
+        assertThrows(IllegalStateException.class, () -> morphology.writeSnapshot(OutputStream.nullOutputStream()));
+    }
+}
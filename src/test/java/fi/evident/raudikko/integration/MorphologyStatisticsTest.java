@@ -0,0 +1,95 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.integration;
+
+import fi.evident.raudikko.AnalysisCache;
+import fi.evident.raudikko.Morphology;
+import fi.evident.raudikko.MorphologyStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MorphologyStatisticsTest {
+
+    @Test
+    void enginesHaveSameStructure() throws Exception {
+        var objectGraph = Morphology.loadBundled(Morphology.Engine.OBJECT_GRAPH).statistics();
+        var compact = Morphology.loadBundled(Morphology.Engine.COMPACT).statistics();
+        var mapped = Morphology.mapped(morphologyPath()).statistics();
+
+        for (var statistics : new MorphologyStatistics[]{compact, mapped}) {
+            assertEquals(objectGraph.getStateCount(), statistics.getStateCount());
+            assertEquals(objectGraph.getTransitionCount(), statistics.getTransitionCount());
+            assertEquals(objectGraph.getSymbolCount(), statistics.getSymbolCount());
+            assertEquals(objectGraph.getFlagDiacriticFeatureCount(), statistics.getFlagDiacriticFeatureCount());
+        }
+
+        assertTrue(compact.getTotalHeapUsage() < objectGraph.getTotalHeapUsage());
+        assertTrue(mapped.getTotalHeapUsage() < compact.getTotalHeapUsage());
+        assertEquals(0, objectGraph.getMappedBytes());
+        assertTrue(mapped.getMappedBytes() > 0);
+
+        for (var statistics : new MorphologyStatistics[]{objectGraph, compact, mapped}) {
+            var heapUsage = statistics.getHeapUsage();
+            assertTrue(heapUsage.containsKey("symbols"));
+            assertTrue(heapUsage.containsKey("input alphabet"));
+            assertTrue(heapUsage.values().stream().allMatch(bytes -> bytes >= 0));
+            assertTrue(statistics.toString().contains("states: " + statistics.getStateCount() + "\n"));
+        }
+    }
+
+    @Test
+    void analyzersReportScratchBuffers() {
+        var morphology = Morphology.loadBundled();
+        var sizes = morphology.newAnalyzer().getScratchBufferSizes();
+
+        assertTrue(sizes.containsKey("traversal stack"));
+        assertTrue(sizes.values().stream().allMatch(bytes -> bytes > 0));
+        assertEquals(sizes, morphology.newCachingAnalyzer(new AnalysisCache(10)).getScratchBufferSizes());
+
+        // The pool of a concurrent analyzer is filled lazily
+        var concurrentAnalyzer = morphology.newConcurrentAnalyzer();
+        assertFalse(concurrentAnalyzer.getScratchBufferSizes().containsKey("traversal stack"));
+        concurrentAnalyzer.analyze("kissa");
+        assertEquals(sizes.get("traversal stack"), concurrentAnalyzer.getScratchBufferSizes().get("traversal stack"));
+    }
+
+    private static Path morphologyPath() throws Exception {
+        var url = Morphology.class.getResource("/morpho/5/mor-morpho/mor.vfst");
+        if (url == null) throw new FileNotFoundException("could not load morphology");
+        return Path.of(url.toURI());
+    }
+}
@@ -30,26 +30,29 @@
  * the terms of any one of the MPL, the GPL or the LGPL.
  */
 
-package fi.evident.raudikko.internal.morphology;
+package fi.evident.raudikko.integration;
 
-import fi.evident.raudikko.analysis.AnalysisClass;
-import fi.evident.raudikko.internal.fst.Symbol;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.AbstractList;
+import java.util.List;
 
-final class TaggedValueLookupTable<T extends Enum<T> & AnalysisClass> {
+final class RepeatedList<T> extends AbstractList<T> {
+    private final @NotNull List<T> list;
+    private final int repeats;
 
-    private final @NotNull Map<String, T> map = new HashMap<>();
+    public RepeatedList(@NotNull List<T> items, int repeats) {
+        this.list = items;
+        this.repeats = repeats;
+    }
 
-    TaggedValueLookupTable(@NotNull Class<T> cl) {
-        for (T c : cl.getEnumConstants())
-            map.put('[' + c.getMorphologyTag() + ']', c);
+    @Override
+    public T get(int index) {
+        return list.get(index % list.size());
     }
 
-    @Nullable T get(@NotNull Symbol tag) {
-        return map.get(tag.toString());
+    @Override
+    public int size() {
+        return repeats * list.size();
     }
 }
@@ -43,7 +43,6 @@ import org.junit.jupiter.api.TestInstance;
 import org.puimula.libvoikko.Voikko;
 
 import java.io.File;
-import java.util.AbstractList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -181,24 +180,4 @@ public class VoikkoComparisonTest {
         analysis.remove("WORDBASES");
         return analysis;
     }
-
-    private static final class RepeatedList<T> extends AbstractList<T> {
-        private final @NotNull List<T> list;
-        private final int repeats;
-
-        public RepeatedList(@NotNull List<T> items, int repeats) {
-            this.list = items;
-            this.repeats = repeats;
-        }
-
-        @Override
-        public T get(int index) {
-            return list.get(index % list.size());
-        }
-
-        @Override
-        public int size() {
-            return repeats * list.size();
-        }
-    }
 }
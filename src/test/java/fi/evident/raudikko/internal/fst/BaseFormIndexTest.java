@@ -0,0 +1,186 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.morphology.SymbolBuffer;
+import fi.evident.raudikko.internal.morphology.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class BaseFormIndexTest {
+
+    private BaseFormIndex index;
+
+    /** Accepts the forms of the word itself, without compounds and derivations */
+    private static final OutputFilter SINGLE_WORD = (state, symbol) ->
+        symbol.matches(Tag.BC) || symbol.isBaseFormTag() ? OutputFilter.REJECTED : state;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        try (var stream = UnweightedTransducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (stream == null) throw new FileNotFoundException("could not load morphology");
+
+            index = BaseFormIndex.build(UnweightedVfstLoader.load(stream));
+        }
+    }
+
+    /**
+     * Returns the generated words along with their outputs.
+     */
+    private @NotNull Map<String, String> generate(@NotNull String baseForm) {
+        var output = new Symbol[2000];
+        var buffer = new SymbolBuffer(2000);
+        var result = new HashMap<String, String>();
+
+        index.generate(baseForm, SINGLE_WORD, output, new SearchBudget(10_000_000), (word, depth) -> {
+            buffer.reset(output, depth);
+            result.put(word.toString(), buffer.fullContents());
+            return true;
+        });
+
+        return result;
+    }
+
+    @Test
+    void indexContainsBaseForms() {
+        assertTrue(index.getBaseFormCount() > 10_000);
+        assertTrue(index.getEntryCount() >= index.getBaseFormCount());
+        assertTrue(index.contains("kissa"));
+        assertTrue(index.contains("Kissa"));
+        assertTrue(index.contains("hyppiä"));
+        assertFalse(index.contains("kissakoira"));
+        assertFalse(index.contains("xyzzy"));
+    }
+
+    @Test
+    void generatedOutputsMatchAnalysis() {
+        var forms = generate("kissa");
+
+        assertEquals("[Ln][Xp]kissa[X]kisso[Sall][Nm]ille", forms.get("kissoille"));
+        assertTrue(forms.containsKey("kissa"));
+        assertTrue(forms.containsKey("kissan"));
+        assertFalse(forms.containsKey("kissakoira"));
+    }
+
+    @Test
+    void numeralsHaveInflectedStems() {
+        var forms = generate("kaksi");
+
+        assertEquals("[Lu][Xp]kaksi[X]ka[Sade][Ny]hdella", forms.get("kahdella"));
+    }
+
+    @Test
+    void unknownBaseFormsProduceNothing() {
+        assertTrue(generate("xyzzy").isEmpty());
+        assertTrue(generate("").isEmpty());
+    }
+
+    @Test
+    void generationCanBeStopped() {
+        int[] count = {0};
+        var output = new Symbol[2000];
+        var completed = index.generate("kissa", SINGLE_WORD, output, new SearchBudget(10_000_000), (word, depth) -> ++count[0] < 3);
+
+        assertFalse(completed);
+        assertEquals(3, count[0]);
+    }
+
+    @Test
+    void generationStopsWhenBudgetRunsOut() {
+        var budget = new SearchBudget(10);
+        var completed = index.generate("kissa", SINGLE_WORD, new Symbol[2000], budget, (word, depth) -> true);
+
+        assertFalse(completed);
+        assertTrue(budget.isExhausted());
+    }
+
+    @Test
+    void indexesAndGeneratesLongPathsOnPoolThreads() throws Exception {
+        // Base form as long as the prefix depth allows, followed by an inflection as long as the rest of the output stack
+        var baseForm = "a".repeat(990);
+        var ending = "b".repeat(1000);
+        var output = new Symbol[2000];
+        var words = new ArrayList<String>();
+
+        var completed = ForkJoinPool.commonPool().submit(() -> {
+            var index = BaseFormIndex.build(chain(baseForm, ending));
+            return index.generate(baseForm, (state, symbol) -> state, output, new SearchBudget(10_000), (word, depth) -> words.add(word.toString()));
+        }).get();
+
+        assertTrue(completed);
+        assertEquals(List.of(baseForm + ending), words);
+    }
+
+    /**
+     * Returns a transducer accepting only the base form followed by the ending, with output {@code [Xp]baseForm[X]ending}.
+     */
+    private static @NotNull UnweightedTransducer chain(@NotNull String baseForm, @NotNull String ending) {
+        var xp = new Symbol(Tag.XP.toString());
+        var x = new Symbol(Tag.X.toString());
+        var a = new Symbol("a");
+        var b = new Symbol("b");
+
+        var st = state(null, null);
+        for (int i = 0; i < ending.length(); i++)
+            st = state(null, new CharTransition('b', b, st));
+        st = state(new DiacriticTransition(Diacritic.EPSILON, x, st), null);
+        for (int i = 0; i < baseForm.length(); i++)
+            st = state(null, new CharTransition('a', a, st));
+        st = state(new DiacriticTransition(Diacritic.EPSILON, xp, st), null);
+
+        return new UnweightedTransducer(List.of(Diacritic.EPSILON, xp, x, a, b), st, 0);
+    }
+
+    private static @NotNull State state(@Nullable DiacriticTransition diacriticTransition, @Nullable CharTransition charTransition) {
+        var state = new State();
+        state.diacriticTransitions = diacriticTransition != null ? new DiacriticTransition[]{diacriticTransition} : new DiacriticTransition[0];
+        state.charTransitions = charTransition != null ? new CharTransition[]{charTransition} : new CharTransition[0];
+        return state;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.morphology.SymbolBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class CompactTransducerSnapshotTest {
+
+    private CompactTransducer original;
+    private CompactTransducer restored;
+    private byte[] snapshot;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        try (var stream = UnweightedTransducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (stream == null) throw new FileNotFoundException("could not load morphology");
+
+            original = UnweightedVfstLoader.loadCompact(stream);
+        }
+
+        var out = new ByteArrayOutputStream();
+        CompactTransducerSnapshot.write(original, out);
+        snapshot = out.toByteArray();
+        restored = CompactTransducerSnapshot.read(new ByteArrayInputStream(snapshot));
+    }
+
+    private static @NotNull List<String> transduce(@NotNull Transducer transducer, @NotNull String word) {
+        var output = new Symbol[2000];
+        var buffer = new SymbolBuffer(2000);
+        var inputBuffer = new ArrayList<Symbol>();
+        var result = new ArrayList<String>();
+        var flags = new short[transducer.flagDiacriticFeatureCount];
+
+        transducer.transduce(word, inputBuffer, flags, output, new TraversalStack(output.length), depth -> {
+            buffer.reset(output, depth);
+            result.add(buffer.fullContents());
+            return true;
+        });
+
+        return result;
+    }
+
+    @Test
+    void restoredTransducerHasSameShape() {
+        assertEquals(original.getStateCount(), restored.getStateCount());
+        assertEquals(original.getTransitionCount(), restored.getTransitionCount());
+        assertEquals(original.flagDiacriticFeatureCount, restored.flagDiacriticFeatureCount);
+    }
+
+    @Test
+    void restoredTransducerProducesSameResults() throws Exception {
+        for (var word : readLines("rautatie-unhyphenated.txt"))
+            assertEquals(transduce(original, word), transduce(restored, word), word);
+    }
+
+    @Test
+    void rejectInvalidSnapshot() {
+        assertThrows(IOException.class, () -> CompactTransducerSnapshot.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    @Test
+    void rejectTruncatedSnapshot() {
+        for (int length : new int[]{8, 10, 12, 13, 100, snapshot.length / 2, snapshot.length - 1}) {
+            var truncated = Arrays.copyOf(snapshot, length);
+            assertThrows(IOException.class, () -> CompactTransducerSnapshot.read(new ByteArrayInputStream(truncated)));
+        }
+    }
+
+    @Test
+    void rejectInvalidCounts() {
+        for (int count : new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE, snapshot.length}) {
+            // Symbol count follows the magic number and version
+            var corrupted = snapshot.clone();
+            ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(8, count);
+
+            var e = assertThrows(IOException.class, () -> CompactTransducerSnapshot.read(new ByteArrayInputStream(corrupted)));
+            assertTrue(e.getMessage().contains("offset 8"), e.getMessage());
+        }
+    }
+
+    @Test
+    void rejectCorruptTransitions() {
+        int offsetsStart = 4 * 5 + Arrays.stream(original.symbols).mapToInt(s -> 4 + s.toString().getBytes(UTF_8).length).sum();
+        int targetsStart = offsetsStart + 4 * original.offsets.length;
+        int inputsStart = targetsStart + 4 * original.targets.length;
+        int outputsStart = inputsStart + 2 * original.inputs.length;
+        int lastOffset = targetsStart - 4;
+
+        assertRejected(b -> b.putInt(lastOffset, original.targets.length - 1), "do not cover");
+        assertRejected(b -> b.putInt(offsetsStart + 4, -1), "Decreasing offset");
+        assertRejected(b -> b.putInt(targetsStart, original.getStateCount()), "Invalid target state");
+        assertRejected(b -> b.putInt(targetsStart, -1), "Invalid target state");
+        assertRejected(b -> b.putShort(outputsStart, (short) original.symbols.length), "Invalid output symbol");
+
+        // Point the first diacritic transition at a symbol that is not a diacritic
+        int state = 0;
+        while (original.offsets[2 * state] == original.offsets[2 * state + 1])
+            state++;
+        int transition = original.offsets[2 * state];
+
+        int symbol = 0;
+        while (!original.symbols[symbol].isChar())
+            symbol++;
+        char character = (char) symbol;
+        assertRejected(b -> b.putChar(inputsStart + 2 * transition, character), "is not a diacritic");
+    }
+
+    private void assertRejected(@NotNull Consumer<ByteBuffer> corruption, @NotNull String message) {
+        var corrupted = snapshot.clone();
+        corruption.accept(ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN));
+
+        var e = assertThrows(IOException.class, () -> CompactTransducerSnapshot.read(new ByteArrayInputStream(corrupted)));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.internal.morphology.SymbolBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class CompactTransducerTest {
+
+    private UnweightedTransducer reference;
+    private CompactTransducer transducer;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        try (var stream = UnweightedTransducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (stream == null) throw new FileNotFoundException("could not load morphology");
+
+            reference = UnweightedVfstLoader.load(stream);
+        }
+
+        try (var stream = UnweightedTransducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (stream == null) throw new FileNotFoundException("could not load morphology");
+
+            transducer = UnweightedVfstLoader.loadCompact(stream);
+        }
+    }
+
+    private static @NotNull List<String> transduce(@NotNull Transducer transducer, @NotNull String word) {
+        var output = new Symbol[2000];
+        var buffer = new SymbolBuffer(2000);
+        var inputBuffer = new ArrayList<Symbol>();
+        var result = new ArrayList<String>();
+        var flags = new short[transducer.flagDiacriticFeatureCount];
+
+        transducer.transduce(word, inputBuffer, flags, output, new TraversalStack(output.length), depth -> {
+            buffer.reset(output, depth);
+            result.add(buffer.fullContents());
+            return true;
+        });
+
+        return result;
+    }
+
+    @Test
+    void singleResult() {
+        assertEquals(List.of("[Ln][Xp]kissa[X]kisso[Sall][Nm]ille"), transduce(transducer, "kissoille"));
+    }
+
+    @Test
+    void sameResultsAsObjectGraph() throws Exception {
+        for (var word : readLines("rautatie-unhyphenated.txt"))
+            assertEquals(transduce(reference, word), transduce(transducer, word), word);
+    }
+
+    @Test
+    void sameResultsWithAndWithoutTransitionTables() throws Exception {
+        var everyState = transducer.withTransitionTables(1);
+        var noState = transducer.withTransitionTables(Integer.MAX_VALUE);
+
+        assertEquals(transducer.getStateCount(), everyState.getTransitionTableCount());
+        assertEquals(0, noState.getTransitionTableCount());
+
+        for (var word : readLines("rautatie-unhyphenated.txt").subList(0, 1000)) {
+            var expected = transduce(noState, word);
+            assertEquals(expected, transduce(transducer, word), word);
+            assertEquals(expected, transduce(everyState, word), word);
+        }
+    }
+
+    @Test
+    void characterTransitionDistribution() {
+        var histogram = transducer.getCharacterTransitionHistogram();
+
+        int states = 0;
+        for (int count : histogram)
+            states += count;
+        assertEquals(transducer.getStateCount(), states);
+
+        int characterTransitions = 0;
+        int wideStates = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            characterTransitions += i * histogram[i];
+            if (i >= Transducer.TRANSITION_TABLE_MIN_TRANSITIONS)
+                wideStates += histogram[i];
+        }
+        assertTrue(characterTransitions <= transducer.getTransitionCount());
+
+        // Only wide states get a table, and only if all their characters are in the alphabet
+        assertTrue(transducer.getTransitionTableCount() <= wideStates);
+        assertEquals(0, transducer.withTransitionTables(Integer.MAX_VALUE).getTransitionTableCount());
+    }
+}
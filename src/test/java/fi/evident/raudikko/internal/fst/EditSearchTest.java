@@ -0,0 +1,183 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class EditSearchTest {
+
+    private EditSearch search;
+
+    private static final EditCosts UNIT_COSTS = new EditCosts() {
+        @Override
+        public int insertion(char previous, char inserted) {
+            return 1;
+        }
+
+        @Override
+        public int deletion(char previous, char deleted) {
+            return 1;
+        }
+
+        @Override
+        public int substitution(char original, char replacement) {
+            return 1;
+        }
+
+        @Override
+        public int transposition() {
+            return 1;
+        }
+    };
+
+    @BeforeAll
+    public void setup() throws Exception {
+        // The autocorrection transducer is small, but has flag diacritics and multi-word inputs
+        var url = UnweightedTransducer.class.getResource("/morpho/5/mor-morpho/autocorr.vfst");
+        if (url == null) throw new FileNotFoundException("could not load autocorrection rules");
+
+        try (var stream = url.openStream()) {
+            search = new EditSearch(UnweightedVfstLoader.load(stream), UNIT_COSTS);
+        }
+    }
+
+    @Test
+    void findsExactMatch() {
+        assertEquals(Map.of("aiemin", 0), search("aiemin", 0, null));
+    }
+
+    @Test
+    void findsAllEditOperations() {
+        assertEquals(Integer.valueOf(1), search("aiemn", 1, null).get("aiemin"), "insertion");
+        assertEquals(Integer.valueOf(1), search("aiemiin", 1, null).get("aiemin"), "deletion");
+        assertEquals(Integer.valueOf(1), search("aiemon", 1, null).get("aiemin"), "substitution");
+        assertEquals(Integer.valueOf(1), search("aimein", 1, null).get("aiemin"), "transposition");
+        assertEquals(Integer.valueOf(1), search("jompi kumpia", 1, null).get("jompi kumpi"), "deletion at the end");
+        assertEquals(Integer.valueOf(2), search("aimen", 2, null).get("aiemin"), "transposition and insertion");
+    }
+
+    @Test
+    void respectsMaximumCost() {
+        var results = search("aimen", 1, null);
+        assertFalse(results.containsKey("aiemin"));
+
+        for (var cost : search("aiemon", 2, null).values())
+            assertTrue(cost <= 2);
+    }
+
+    @Test
+    void splittingByFirstCharacterProducesSameResults() {
+        for (var word : new String[]{"aiemmn", "jompia kumpia", "ajan tasainen", "x"}) {
+            var expected = search(word, 2, null);
+
+            var combined = new HashMap<String, Integer>();
+            for (int part = 0; part < 3; part++) {
+                var firstCharacters = new BitSet();
+                for (int i = part; i < search.getAlphabetSize(); i += 3)
+                    firstCharacters.set(i);
+                combined.putAll(search(word, 2, firstCharacters));
+            }
+
+            assertEquals(expected, combined, word);
+        }
+    }
+
+    @Test
+    void stopsWhenBudgetRunsOut() {
+        var budget = new SearchBudget(50);
+        assertFalse(search.search("aiemin", 2, null, budget, (candidate, cost) -> { }));
+        assertTrue(budget.isExhausted());
+
+        var timedOut = new SearchBudget(Long.MAX_VALUE, Duration.ZERO);
+        assertFalse(search.search("aiemin", 2, null, timedOut, (candidate, cost) -> { }));
+        assertTrue(timedOut.isExhausted());
+    }
+
+    @Test
+    void searchesPathsUpToMaximumDepthOnPoolThreads() throws Exception {
+        var deepest = new EditSearch(chain(EditSearch.MAX_DEPTH - 1), UNIT_COSTS);
+        var tooDeep = new EditSearch(chain(EditSearch.MAX_DEPTH), UNIT_COSTS);
+        var word = "a".repeat(EditSearch.MAX_DEPTH - 1);
+
+        assertEquals(Map.of(word, 0), ForkJoinPool.commonPool().submit(() -> search(deepest, word, 0, null)).get());
+        assertEquals(Map.of(), ForkJoinPool.commonPool().submit(() -> search(tooDeep, word + "a", 0, null)).get());
+    }
+
+    /**
+     * Returns a transducer accepting only a word of given number of a's.
+     */
+    private static @NotNull UnweightedTransducer chain(int length) {
+        var symbol = new Symbol("a");
+        var state = state(null);
+        for (int i = 0; i < length; i++)
+            state = state(new CharTransition('a', symbol, state));
+
+        return new UnweightedTransducer(List.of(Diacritic.EPSILON, symbol), state, 0);
+    }
+
+    private static @NotNull State state(@Nullable CharTransition transition) {
+        var state = new State();
+        state.diacriticTransitions = new DiacriticTransition[0];
+        state.charTransitions = transition != null ? new CharTransition[]{transition} : new CharTransition[0];
+        return state;
+    }
+
+    private @NotNull Map<String, Integer> search(@NotNull String word, int maxCost, @Nullable BitSet firstCharacters) {
+        return search(search, word, maxCost, firstCharacters);
+    }
+
+    private static @NotNull Map<String, Integer> search(@NotNull EditSearch search, @NotNull String word, int maxCost, @Nullable BitSet firstCharacters) {
+        var results = new HashMap<String, Integer>();
+        var budget = new SearchBudget(Long.MAX_VALUE);
+        assertTrue(search.search(word, maxCost, firstCharacters, budget, (candidate, cost) -> results.merge(candidate, cost, Math::min)));
+        return results;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputAlphabetTest {
+
+    private final Symbol a = new Symbol("a");
+    private final Symbol a2 = new Symbol("a");
+    private final Symbol ae = new Symbol("ä");
+    private final Symbol hyphen = new Symbol("-");
+    private final InputAlphabet alphabet = new InputAlphabet(List.of(new Symbol("[Ln]"), a, ae, hyphen, a2));
+
+    @Test
+    void charactersAreNumberedDensely() {
+        assertEquals(3, alphabet.size());
+        assertEquals(0, alphabet.indexOf('a'));
+        assertEquals(1, alphabet.indexOf('ä'));
+        assertEquals(2, alphabet.indexOf('-'));
+        assertEquals(-1, alphabet.indexOf('b'));
+        assertEquals(-1, alphabet.indexOf('￿'));
+    }
+
+    @Test
+    void lastSymbolOfCharacterIsUsed() {
+        assertSame(a2, alphabet.symbolFor('a'));
+    }
+
+    @Test
+    void upperCaseIsFolded() {
+        assertSame(a2, alphabet.symbolFor('A'));
+        assertSame(ae, alphabet.symbolFor('Ä'));
+        assertNull(alphabet.symbolFor('B'));
+    }
+
+    @Test
+    void typographicHyphensAreNormalized() {
+        assertSame(hyphen, alphabet.symbolFor('‐'));
+        assertSame(hyphen, alphabet.symbolFor('‑'));
+        assertNull(alphabet.symbolFor('’'));
+    }
+
+    @Test
+    void variantInAlphabetIsNotNormalized() {
+        var ownHyphen = new Symbol("‐");
+        var alphabet = new InputAlphabet(List.of(hyphen, ownHyphen));
+
+        assertSame(ownHyphen, alphabet.symbolFor('‐'));
+    }
+}
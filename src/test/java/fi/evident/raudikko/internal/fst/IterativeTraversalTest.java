@@ -0,0 +1,153 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class IterativeTraversalTest {
+
+    private UnweightedTransducer reference;
+    private List<Transducer> transducers;
+    private List<String> words;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        var url = UnweightedTransducer.class.getResource("/morpho/5/mor-morpho/mor.vfst");
+        if (url == null) throw new FileNotFoundException("could not load morphology");
+
+        try (var stream = url.openStream()) {
+            transducers = new ArrayList<>();
+            reference = UnweightedVfstLoader.load(stream);
+            transducers.add(reference);
+        }
+
+        try (var stream = url.openStream()) {
+            transducers.add(UnweightedVfstLoader.loadCompact(stream));
+        }
+
+        transducers.add(UnweightedVfstLoader.loadMapped(Path.of(url.toURI())));
+        words = readLines("rautatie-unhyphenated.txt");
+    }
+
+    private static @NotNull List<String> transduce(@NotNull Transducer transducer, @NotNull String word, int maxDepth) {
+        var output = new Symbol[maxDepth];
+        var result = new ArrayList<String>();
+        var flags = new short[transducer.flagDiacriticFeatureCount];
+
+        transducer.transduce(word, new ArrayList<>(), flags, output, new TraversalStack(maxDepth), depth -> result.add(toString(output, depth)));
+
+        for (short flag : flags)
+            assertEquals(0, flag, "flags were not restored");
+
+        return result;
+    }
+
+    private @NotNull List<String> transduceRecursively(@NotNull String word, int maxDepth) {
+        var output = new Symbol[maxDepth];
+        var result = new ArrayList<String>();
+        var flags = new short[reference.flagDiacriticFeatureCount];
+
+        RecursiveTraversal.transduce(reference, word, flags, output, depth -> result.add(toString(output, depth)));
+
+        return result;
+    }
+
+    private static @NotNull String toString(@NotNull Symbol[] output, int depth) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            sb.append(output[i]);
+        return sb.toString();
+    }
+
+    @Test
+    void sameResultsAsRecursiveTraversal() {
+        for (var transducer : transducers)
+            for (var word : words)
+                assertEquals(transduceRecursively(word, 2000), transduce(transducer, word, 2000), word);
+    }
+
+    @Test
+    void sameResultsWhenOutputIsTruncated() {
+        for (var transducer : transducers)
+            for (int maxDepth : new int[]{0, 1, 5, 20})
+                for (var word : words.subList(0, 500))
+                    assertEquals(transduceRecursively(word, maxDepth), transduce(transducer, word, maxDepth), word);
+    }
+
+    @Test
+    void filterSkipsOnlyRejectedOutputs() {
+        // Rejects all compounds as soon as the first compound boundary is produced
+        OutputFilter filter = (state, symbol) -> symbol.toString().equals("[Bc]") ? OutputFilter.REJECTED : state;
+
+        for (var transducer : transducers) {
+            var output = new Symbol[2000];
+            var stack = new TraversalStack(2000);
+            var flags = new short[transducer.flagDiacriticFeatureCount];
+
+            for (var word : words.subList(0, 500)) {
+                var expected = transduce(transducer, word, 2000).stream().filter(it -> !it.contains("[Bc]")).toList();
+                var result = new ArrayList<String>();
+                transducer.transduce(word, new ArrayList<>(), flags, output, stack, filter, depth -> result.add(toString(output, depth)));
+
+                assertEquals(expected, result, word);
+                for (short flag : flags)
+                    assertEquals(0, flag, "flags were not restored");
+            }
+
+            assertTrue(stack.getPrunedTransitions() > 0);
+        }
+    }
+
+    @Test
+    void rejectStackSmallerThanOutput() {
+        var transducer = transducers.get(0);
+        assertThrows(IllegalArgumentException.class, () ->
+            transducer.transduce("kissa", new ArrayList<>(), new short[transducer.flagDiacriticFeatureCount], new Symbol[10], new TraversalStack(5), depth -> true));
+    }
+
+}
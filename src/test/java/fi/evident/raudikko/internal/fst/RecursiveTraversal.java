@@ -0,0 +1,110 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.internal.fst.Transducer.flagDiacriticCheck;
+
+/**
+ * Straightforward recursive traversal of an {@link UnweightedTransducer}, used by tests as
+ * a reference for the outputs and their order produced by the iterative traversals of all engines.
+ */
+final class RecursiveTraversal {
+
+    private RecursiveTraversal() {
+    }
+
+    static void transduce(@NotNull UnweightedTransducer transducer,
+                          @NotNull CharSequence input,
+                          short[] flags,
+                          @NotNull Symbol[] output,
+                          @NotNull TransducerCallback callback) {
+        var inputBuffer = new ArrayList<Symbol>();
+        if (!transducer.prepareInput(inputBuffer, input))
+            return;
+
+        enterState(transducer, transducer.rootState(), 0, inputBuffer, flags, output, callback, 0);
+    }
+
+    private static boolean enterState(@NotNull UnweightedTransducer transducer,
+                                      @NotNull State st,
+                                      int inputPos,
+                                      @NotNull List<Symbol> input,
+                                      short[] flags,
+                                      @NotNull Symbol[] output,
+                                      @NotNull TransducerCallback callback,
+                                      int depth) {
+        if (depth >= output.length) return true;
+
+        if (st.isFinal() && inputPos == input.size()) {
+            return callback.accept(depth);
+        }
+
+        for (DiacriticTransition transition : st.diacriticTransitions) {
+            var diacritic = transition.in;
+
+            if (diacritic == Diacritic.EPSILON) {
+                output[depth] = transition.symOut;
+                if (!enterState(transducer, transition.target, inputPos, input, flags, output, callback, depth + 1)) return false;
+
+            } else {
+                short oldValue = flags[diacritic.feature];
+                if (flagDiacriticCheck(flags, diacritic, oldValue)) {
+                    output[depth] = transition.symOut;
+                    boolean proceed = enterState(transducer, transition.target, inputPos, input, flags, output, callback, depth + 1);
+                    flags[diacritic.feature] = oldValue;
+                    if (!proceed) return false;
+                }
+            }
+        }
+
+        if (inputPos < input.size()) {
+            char ch = input.get(inputPos).charValue();
+
+            var transitions = st.charTransitions;
+            for (int i = st.firstCharacterTransitionFor(transducer.alphabet, ch); i < transitions.length; i++) {
+                var transition = transitions[i];
+                if (ch != transition.in) break;
+
+                output[depth] = transition.symOut;
+                if (!enterState(transducer, transition.target, inputPos + 1, input, flags, output, callback, depth + 1)) return false;
+            }
+        }
+
+        return true;
+    }
+}
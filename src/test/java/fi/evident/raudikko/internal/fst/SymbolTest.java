@@ -0,0 +1,79 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import fi.evident.raudikko.analysis.Locative;
+import fi.evident.raudikko.analysis.WordClass;
+import fi.evident.raudikko.internal.morphology.Tag;
+import fi.evident.raudikko.internal.morphology.TagKind;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTest {
+
+    @Test
+    void characters() {
+        var symbol = new Symbol("a");
+
+        assertTrue(symbol.isChar());
+        assertEquals(TagKind.NONE, symbol.getKind());
+        assertNull(symbol.getValue(WordClass.class));
+    }
+
+    @Test
+    void tagsAreClassifiedOnCreation() {
+        assertEquals(TagKind.BOUNDARY, new Symbol("[Bc]").getKind());
+        assertEquals(TagKind.PARAMETER, new Symbol("[Xp]").getKind());
+        assertEquals(TagKind.OTHER, new Symbol("[Dg]").getKind());
+
+        assertTrue(new Symbol("[Bc]").matches(Tag.BC));
+        assertFalse(new Symbol("[Bc]").matches(Tag.BH));
+        assertTrue(new Symbol("[Xj]").isBaseFormTag());
+        assertTrue(new Symbol("[Les]").isNameTag());
+        assertTrue(new Symbol("[Les]").isClassTag());
+        assertFalse(new Symbol("[Ln]").isNameTag());
+    }
+
+    @Test
+    void valuesAreResolvedOnCreation() {
+        var symbol = new Symbol("[Sine]");
+
+        assertEquals(TagKind.LOCATIVE, symbol.getKind());
+        assertTrue(symbol.matches(Locative.INESIVE));
+        assertFalse(symbol.matches(Locative.INSTRUCTIVE));
+        assertEquals(Locative.INESIVE, symbol.getValue(Locative.class));
+        assertNull(symbol.getValue(WordClass.class));
+        assertNull(new Symbol("[Sxyz]").getValue(Locative.class));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.fst;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class TransducerAllocationTest {
+
+    private List<Transducer> transducers;
+    private String[] words;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        var url = UnweightedTransducer.class.getResource("/morpho/5/mor-morpho/mor.vfst");
+        if (url == null) throw new FileNotFoundException("could not load morphology");
+
+        transducers = new ArrayList<>();
+        try (var stream = url.openStream()) {
+            transducers.add(UnweightedVfstLoader.load(stream));
+        }
+
+        try (var stream = url.openStream()) {
+            transducers.add(UnweightedVfstLoader.loadCompact(stream));
+        }
+
+        transducers.add(UnweightedVfstLoader.loadMapped(Path.of(url.toURI())));
+        words = readLines("rautatie-unhyphenated.txt").toArray(new String[0]);
+    }
+
+    @Test
+    void traversalDoesNotAllocate() {
+        var threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+        var output = new Symbol[2000];
+        var stack = new TraversalStack(2000);
+        var inputBuffer = new ArrayList<Symbol>(2000);
+        var counter = new ResultCounter();
+
+        for (var transducer : transducers) {
+            var flags = new short[transducer.flagDiacriticFeatureCount];
+
+            // Warm up so that the measured rounds don't include lazy initialization done by the JVM
+            for (int round = 0; round < 3; round++)
+                for (var word : words)
+                    transducer.transduce(word, inputBuffer, flags, output, stack, counter);
+
+            counter.count = 0;
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+
+            for (var word : words)
+                transducer.transduce(word, inputBuffer, flags, output, stack, counter);
+
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+            assertTrue(counter.count > 0);
+            assertTrue(allocated < words.length, () -> transducer.getClass().getSimpleName() + " allocated " + allocated + " bytes for " + words.length + " words");
+        }
+    }
+
+    @Test
+    void callbackCanStopTraversal() {
+        var output = new Symbol[2000];
+        var stack = new TraversalStack(2000);
+        var inputBuffer = new ArrayList<Symbol>();
+
+        for (var transducer : transducers) {
+            var flags = new short[transducer.flagDiacriticFeatureCount];
+            var all = new ResultCounter();
+            transducer.transduce("kahdennellakymmenennellä", inputBuffer, flags, output, stack, all);
+            assertEquals(2, all.count);
+
+            int[] calls = new int[1];
+            transducer.transduce("kahdennellakymmenennellä", inputBuffer, flags, output, stack, depth -> ++calls[0] < 1);
+            assertEquals(1, calls[0]);
+
+            for (short flag : flags)
+                assertEquals(0, flag, "flags were not restored");
+        }
+    }
+
+    private static final class ResultCounter implements TransducerCallback {
+        int count;
+
+        @Override
+        public boolean accept(int depth) {
+            count++;
+            return true;
+        }
+    }
+}
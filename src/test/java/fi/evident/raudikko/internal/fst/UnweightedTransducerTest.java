@@ -69,9 +69,10 @@ class UnweightedTransducerTest {
         var result = new ArrayList<String>();
         var flags = new short[transducer.flagDiacriticFeatureCount];
 
-        transducer.transduce(word, inputBuffer, flags, output, depth -> {
+        transducer.transduce(word, inputBuffer, flags, output, new TraversalStack(output.length), depth -> {
             buffer.reset(output, depth);
             result.add(buffer.fullContents());
+            return true;
         });
 
         return result;
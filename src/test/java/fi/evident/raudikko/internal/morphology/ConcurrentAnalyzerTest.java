@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.Morphology;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class ConcurrentAnalyzerTest {
+
+    private Morphology morphology;
+    private Transducer transducer;
+    private List<String> words;
+
+    @BeforeAll
+    void setup() throws Exception {
+        morphology = Morphology.loadBundled();
+
+        try (var stream = Transducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            if (stream == null) throw new FileNotFoundException("could not load morphology");
+
+            transducer = UnweightedVfstLoader.loadCompact(stream);
+        }
+
+        words = readLines("rautatie-unhyphenated.txt").subList(0, 2000);
+    }
+
+    @Test
+    void sameResultsAsSingleThreadedAnalyzer() throws Exception {
+        var reference = morphology.newAnalyzer();
+        var expected = new ArrayList<List<Map<String, String>>>();
+        for (var word : words)
+            expected.add(toVoikkoFormat(reference.analyze(word)));
+
+        assertEquals(expected, analyzeConcurrently(morphology.newConcurrentAnalyzer(), 8));
+
+        // Fewer slots than threads, so that the pool is both exhausted and overflown
+        var smallPool = new ConcurrentAnalyzer(transducer, new AnalyzerConfiguration(), 2);
+        assertEquals(expected, analyzeConcurrently(smallPool, 8));
+    }
+
+    @Test
+    void rejectInvalidPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentAnalyzer(transducer, new AnalyzerConfiguration(), 0));
+    }
+
+    private @NotNull List<List<Map<String, String>>> analyzeConcurrently(@NotNull Analyzer analyzer, int threadCount) throws InterruptedException, ExecutionException {
+        var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            var futures = new ArrayList<Future<List<Map<String, String>>>>();
+            for (var word : words)
+                futures.add(executor.submit(() -> toVoikkoFormat(analyzer.analyze(word))));
+
+            var results = new ArrayList<List<Map<String, String>>>();
+            for (var future : futures)
+                results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static @NotNull List<Map<String, String>> toVoikkoFormat(@NotNull List<Analysis> analyses) {
+        return analyses.stream().map(Analysis::toVoikkoFormat).toList();
+    }
+}
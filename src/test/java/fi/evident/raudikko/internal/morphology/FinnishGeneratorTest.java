@@ -0,0 +1,106 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Inflection;
+import fi.evident.raudikko.internal.fst.OutputFilter;
+import fi.evident.raudikko.internal.fst.Symbol;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static fi.evident.raudikko.analysis.GrammaticalNumber.PLURAL;
+import static fi.evident.raudikko.analysis.Locative.INESIVE;
+import static fi.evident.raudikko.analysis.Possessive.THIRD;
+import static fi.evident.raudikko.analysis.WordClass.ADJECTIVE;
+import static fi.evident.raudikko.analysis.WordClass.NOUN;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FinnishGeneratorTest {
+
+    @Test
+    void acceptsAnyInflectionByDefault() {
+        var inflection = new Inflection();
+
+        assertTrue(accepts(inflection, "[Ln]", "k", "i", "s", "s", "o", "[Sall]", "[Nm]", "i", "l", "l", "e"));
+        assertTrue(accepts(inflection, "[Ln]", "k", "i", "s", "s", "a", "[Sg]", "[Ny]", "[O3]"));
+    }
+
+    @Test
+    void rejectsCompoundsDerivationsAndClitics() {
+        var inflection = new Inflection();
+
+        assertFalse(accepts(inflection, "[Ln]", "k", "i", "s", "s", "a", "[Sn]", "[Ny]", "[Bc]", "[Ln]"));
+        assertFalse(accepts(inflection, "[Lt]", "h", "y", "p", "p", "i", "[Ln]", "[Xj]"));
+        assertFalse(accepts(inflection, "[Ln]", "k", "i", "s", "s", "a", "[Sn]", "[Ny]", "k", "i", "n", "[Fkin]"));
+        assertTrue(accepts(inflection, "[Ln]", "k", "i", "s", "s", "a", "[Sn]", "[Ny]", "[Bh]"));
+    }
+
+    @Test
+    void rejectsOtherValuesOfRequestedAttributes() {
+        var inflection = new Inflection(INESIVE, PLURAL);
+        inflection.setPossessive(THIRD);
+
+        assertTrue(accepts(inflection, "[Ln]", "[Sine]", "[Nm]", "[O3]"));
+        assertFalse(accepts(inflection, "[Ln]", "[Sela]"));
+        assertFalse(accepts(inflection, "[Ln]", "[Sine]", "[Ny]"));
+        assertFalse(accepts(inflection, "[Ln]", "[Sine]", "[Nm]", "[O1y]"));
+    }
+
+    @Test
+    void comparesOnlyClassOfWordItself() {
+        var noun = new Inflection();
+        noun.setWordClass(NOUN);
+
+        assertTrue(accepts(noun, "[Ln]", "[Sn]"));
+        assertFalse(accepts(noun, "[Lt]"));
+        assertTrue(accepts(noun, "[Ln]", "[Ll]"));
+
+        // Words of other classes may become adjectives
+        var adjective = new Inflection();
+        adjective.setWordClass(ADJECTIVE);
+
+        assertTrue(accepts(adjective, "[Lt]", "[Ll]"));
+        assertTrue(accepts(adjective, "[Lnl]"));
+    }
+
+    private static boolean accepts(@NotNull Inflection inflection, @NotNull String... symbols) {
+        long state = 0;
+        for (var symbol : symbols) {
+            state = FinnishGenerator.next(inflection, state, new Symbol(symbol));
+            if (state == OutputFilter.REJECTED)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.analysis.Structure;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static fi.evident.raudikko.internal.morphology.FinnishHyphenation.hyphenationPattern;
+import static fi.evident.raudikko.internal.morphology.FinnishHyphenation.insertHyphens;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FinnishHyphenationTest {
+
+    @Test
+    void consonantBeforeVowelStartsSyllable() {
+        assertEquals("kis-sa", hyphenate("kissa"));
+        assertEquals("ta-lo", hyphenate("talo"));
+        assertEquals("ra-ken-taa", hyphenate("rakentaa"));
+        assertEquals("kart-ta", hyphenate("kartta"));
+        assertEquals("stres-si", hyphenate("stressi"));
+    }
+
+    @Test
+    void vowelsOutsideDiphthongsAreSeparated() {
+        assertEquals("ra-di-o", hyphenate("radio"));
+        assertEquals("kor-ke-aa", hyphenate("korkeaa"));
+        assertEquals("au-to", hyphenate("auto"));
+        assertEquals("maa-il-ma", hyphenate("maailma"));
+        assertEquals("kau-an", hyphenate("kauan"));
+        assertEquals("a-si-a", hyphenate("asia"));
+    }
+
+    @Test
+    void someDiphthongsOnlyInFirstSyllable() {
+        assertEquals("tie-tää", hyphenate("tietää"));
+        assertEquals("kuo-le-ma", hyphenate("kuolema"));
+        assertEquals("ka-ni-en", hyphenate("kanien"));
+        assertEquals("te-kee", hyphenate("tekee"));
+    }
+
+    @Test
+    void compoundBoundariesFromStructure() {
+        assertEquals("au-to-kaup-pa", hyphenate("autokauppa", "=pppp=pppppp"));
+        assertEquals("syys-il-ta", hyphenate("syysilta", "=pppp=pppp"));
+        assertEquals("Kis-sa", hyphenate("Kissa", "=ippppp"));
+    }
+
+    @Test
+    void ambiguousCompoundsAreHyphenatedOnlyWhereAllAnalysesAgree() {
+        assertEquals("syysil-ta", hyphenate("syysilta", "=pppp=pppp", "=ppp=ppppp"));
+        assertEquals("au-to-kaup-pa", hyphenate("autokauppa", "=pppp=pppppp", "=pppp=pppppp"));
+    }
+
+    @Test
+    void noHyphenationMarkers() {
+        assertEquals("DNA-näy-te", hyphenate("DNA-näyte", "=jjj-=ppppp"));
+        assertEquals("   =   - ", hyphenationPattern("DNA-näyte", List.of(structure("=jjj-=ppppp"))));
+        assertEquals("EU:n", hyphenate("EU:n", "=jj:q"));
+    }
+
+    @Test
+    void hyphensAndApostrophes() {
+        assertEquals("   =  -  ", hyphenationPattern("rei'ittää", List.of()));
+        assertEquals("   = - ", hyphenationPattern("maa-ala", List.of()));
+        assertEquals("vaa-an", insertHyphens("vaa'an", hyphenationPattern("vaa'an", List.of()), "-", true));
+        assertEquals("vaa'an", insertHyphens("vaa'an", hyphenationPattern("vaa'an", List.of()), "-", false));
+    }
+
+    @Test
+    void patterns() {
+        assertEquals("   - ", hyphenationPattern("kissa", List.of()));
+        assertEquals("", hyphenationPattern("", List.of()));
+        assertEquals("    ", hyphenationPattern("1234", List.of()));
+    }
+
+    private static @NotNull String hyphenate(@NotNull String word, @NotNull String... structures) {
+        var pattern = hyphenationPattern(word, Arrays.stream(structures).map(FinnishHyphenationTest::structure).toList());
+        return insertHyphens(word, pattern, "-", false);
+    }
+
+    private static @NotNull Structure structure(@NotNull String structure) {
+        return new Structure(structure.chars().mapToObj(c -> Structure.StructureSymbol.forCode((char) c)).toList());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.AnalyzerConfiguration;
+import fi.evident.raudikko.Morphology;
+import fi.evident.raudikko.SpellChecker;
+import fi.evident.raudikko.internal.morphology.FinnishSpellChecker.CaseType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.Objects;
+
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class FinnishSpellCheckerTest {
+
+    private Analyzer analyzer;
+    private SpellChecker spellChecker;
+
+    @BeforeAll
+    void setup() {
+        var morphology = Morphology.loadBundled();
+        var configuration = new AnalyzerConfiguration();
+        configuration.setIncludeStructure(true);
+        analyzer = morphology.newAnalyzer(configuration);
+        spellChecker = morphology.newSpellChecker();
+    }
+
+    @Test
+    void acceptsCorrectWords() {
+        assertTrue(spellChecker.isCorrect("kissa"));
+        assertTrue(spellChecker.isCorrect("kissoittansa"));
+        assertTrue(spellChecker.isCorrect("DNA-näyte"));
+        assertFalse(spellChecker.isCorrect("kisssa"));
+        assertFalse(spellChecker.isCorrect("xyzzy"));
+    }
+
+    @Test
+    void capitalizationRules() {
+        // Lower case words may be capitalized, for example at the start of a sentence
+        assertTrue(spellChecker.isCorrect("Kissa"));
+        assertTrue(spellChecker.isCorrect("KISSA"));
+        assertFalse(spellChecker.isCorrect("kiSSa"));
+
+        // Proper nouns must be capitalized
+        assertTrue(spellChecker.isCorrect("Helsinki"));
+        assertTrue(spellChecker.isCorrect("HELSINKI"));
+        assertFalse(spellChecker.isCorrect("helsinki"));
+
+        // Abbreviations can only be written in all caps
+        assertFalse(spellChecker.isCorrect("dna-näyte"));
+        assertFalse(spellChecker.isCorrect("Dna-näyte"));
+    }
+
+    @Test
+    void wordsWithoutLettersNeedValidAnalysis() {
+        assertTrue(spellChecker.isCorrect("123"));
+        assertFalse(spellChecker.isCorrect(""));
+        assertFalse(spellChecker.isCorrect("%%%"));
+        assertFalse(spellChecker.isCorrect("--"));
+        assertFalse(spellChecker.isCorrect("..."));
+    }
+
+    @Test
+    void agreesWithAnalyzer() throws Exception {
+        for (var word : readLines("rautatie-unhyphenated.txt").subList(0, 2000)) {
+            if (word.chars().noneMatch(Character::isLetter))
+                continue;
+
+            var lowerCase = word.toLowerCase();
+            var analyses = analyzer.analyze(lowerCase);
+
+            // Lower case words are correct if there's an analysis without capitals
+            var lowerCaseStandardForm = analyses.stream()
+                .map(it -> Objects.requireNonNull(it.getStructure()).toString())
+                .anyMatch(it -> it.indexOf('i') == -1 && it.indexOf('j') == -1);
+            assertEquals(lowerCaseStandardForm, spellChecker.isCorrect(lowerCase), lowerCase);
+
+            // Any analysis is enough for words written in all caps
+            assertEquals(!analyses.isEmpty(), spellChecker.isCorrect(word.toUpperCase()), word);
+        }
+    }
+
+    @Test
+    void caseTypes() {
+        assertEquals(CaseType.NO_LETTERS, CaseType.of(""));
+        assertEquals(CaseType.NO_LETTERS, CaseType.of("123-"));
+        assertEquals(CaseType.ALL_LOWER, CaseType.of("kissa"));
+        assertEquals(CaseType.FIRST_UPPER, CaseType.of("Kissa"));
+        assertEquals(CaseType.ALL_UPPER, CaseType.of("KISSA"));
+        assertEquals(CaseType.ALL_UPPER, CaseType.of("K"));
+        assertEquals(CaseType.COMPLEX, CaseType.of("DNA-näyte"));
+        assertEquals(CaseType.COMPLEX, CaseType.of("kiSSa"));
+    }
+}
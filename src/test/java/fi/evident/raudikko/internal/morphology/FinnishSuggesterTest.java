@@ -0,0 +1,173 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.morphology;
+
+import fi.evident.raudikko.Morphology;
+import fi.evident.raudikko.SpellChecker;
+import fi.evident.raudikko.Suggester;
+import fi.evident.raudikko.SuggesterConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+@TestInstance(PER_CLASS)
+class FinnishSuggesterTest {
+
+    private Morphology morphology;
+    private Suggester suggester;
+    private SpellChecker spellChecker;
+
+    @BeforeAll
+    void setup() {
+        morphology = Morphology.loadBundled();
+        suggester = morphology.newSuggester();
+        spellChecker = morphology.newSpellChecker();
+    }
+
+    @Test
+    void suggestsCorrections() {
+        assertTrue(suggester.suggest("kisssa").contains("kissa"));
+        assertTrue(suggester.suggest("kisas").contains("kissa"));
+        assertTrue(suggester.suggest("aiemin").contains("aiemmin"));
+        assertTrue(suggester.suggest("paiva").contains("päivä"));
+        assertTrue(suggester.suggest("koora").contains("koira"));
+    }
+
+    @Test
+    void suggestionsAreCorrectWords() {
+        for (var word : new String[]{"kisssa", "Talo0", "ajantasainenn", "ylösalasin"}) {
+            var suggestions = suggester.suggest(word);
+            assertFalse(suggestions.isEmpty(), word);
+            assertTrue(suggestions.size() <= 5, word);
+
+            for (var suggestion : suggestions)
+                assertTrue(spellChecker.isCorrect(suggestion), suggestion);
+        }
+    }
+
+    @Test
+    void capitalizationFollowsWord() {
+        assertTrue(suggester.suggest("Kisssa").contains("Kissa"));
+        assertTrue(suggester.suggest("KISSSA").contains("KISSA"));
+        assertTrue(suggester.suggest("helsinkki").contains("Helsinki"));
+        assertTrue(suggester.suggest("helsinki").contains("Helsinki"));
+    }
+
+    @Test
+    void parallelSearchProducesSameSuggestions() {
+        // Without limits, so that the results don't depend on the order the candidates are found in
+        var sequential = unlimited();
+        sequential.setParallelism(1);
+
+        var parallel = unlimited();
+        parallel.setParallelism(4);
+        parallel.setParallelMinWordLength(1);
+
+        var sequentialSuggester = morphology.newSuggester(sequential);
+        var parallelSuggester = morphology.newSuggester(parallel);
+
+        for (var word : new String[]{"kisssa", "rautatieasemalakin", "Helsingisa"}) {
+            assertEquals(sequentialSuggester.suggest(word), parallelSuggester.suggest(word), word);
+            assertTrue(parallelSuggester.isLastSearchComplete(), word);
+        }
+    }
+
+    @Test
+    void parallelSearchWithLimitedBudgetIsDeterministic() {
+        var configuration = unlimited();
+        configuration.setMaxEdits(2);
+        configuration.setSearchBudget(20_000);
+        configuration.setParallelism(4);
+        configuration.setParallelMinWordLength(1);
+
+        var parallelSuggester = morphology.newSuggester(configuration);
+        var expected = parallelSuggester.suggest("rautatieasemalakin");
+        assertFalse(parallelSuggester.isLastSearchComplete());
+
+        for (int i = 0; i < 20; i++)
+            assertEquals(expected, parallelSuggester.suggest("rautatieasemalakin"));
+    }
+
+    @Test
+    void searchIsBounded() {
+        var configuration = new SuggesterConfiguration();
+        configuration.setSearchBudget(1);
+
+        // The budget runs out before any candidate is reached
+        var boundedSuggester = morphology.newSuggester(configuration);
+        assertTrue(boundedSuggester.suggest("kisssa").isEmpty());
+        assertFalse(boundedSuggester.isLastSearchComplete());
+    }
+
+    @Test
+    void laterChangesToConfigurationAreIgnored() {
+        var configuration = new SuggesterConfiguration();
+        var configuredSuggester = morphology.newSuggester(configuration);
+        configuration.setMaxSuggestions(1);
+
+        assertEquals(suggester.suggest("kisssa"), configuredSuggester.suggest("kisssa"));
+        assertTrue(configuredSuggester.suggest("kisssa").size() > 1);
+    }
+
+    @Test
+    void onlyObjectGraphEngineIsSupported() {
+        var compact = Morphology.loadBundled(Morphology.Engine.COMPACT);
+        assertThrows(UnsupportedOperationException.class, compact::newSuggester);
+    }
+
+    @Test
+    void adjacentKeys() {
+        assertTrue(FinnishEditCosts.isAdjacentKey('s', 'a'));
+        assertTrue(FinnishEditCosts.isAdjacentKey('s', 'w'));
+        assertTrue(FinnishEditCosts.isAdjacentKey('s', 'x'));
+        assertTrue(FinnishEditCosts.isAdjacentKey('ö', 'ä'));
+        assertFalse(FinnishEditCosts.isAdjacentKey('s', 'r'));
+        assertFalse(FinnishEditCosts.isAdjacentKey('s', 's'));
+    }
+
+    private static SuggesterConfiguration unlimited() {
+        var configuration = new SuggesterConfiguration();
+        configuration.setMaxEdits(1);
+        configuration.setSearchBudget(Long.MAX_VALUE);
+        configuration.setTimeLimit(Duration.ofMinutes(10));
+        return configuration;
+    }
+}
@@ -32,16 +32,37 @@
 
 package fi.evident.raudikko.internal.morphology;
 
+import com.sun.management.ThreadMXBean;
+import fi.evident.raudikko.Analysis;
+import fi.evident.raudikko.AnalysisView;
+import fi.evident.raudikko.AnalysisVisitor;
 import fi.evident.raudikko.Analyzer;
+import fi.evident.raudikko.AnalyzerConfiguration;
 import fi.evident.raudikko.Morphology;
+import fi.evident.raudikko.analysis.WordClass;
+import fi.evident.raudikko.internal.fst.Symbol;
+import fi.evident.raudikko.internal.fst.Transducer;
+import fi.evident.raudikko.internal.fst.TraversalStack;
+import fi.evident.raudikko.internal.fst.UnweightedVfstLoader;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import static fi.evident.raudikko.test.ResourceUtils.readLines;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
 
 @TestInstance(PER_CLASS)
@@ -112,6 +133,234 @@ class FinnishVfstAnalyzerTest {
         assertEquals(List.of("pohjois-suomi", "Pohjois-Suomi"), analyzer.baseForms("Pohjois-Suomella"));
     }
 
+    @Test
+    void maxResultsReturnsPrefixOfAllResults() throws Exception {
+        var words = new ArrayList<>(List.of("kuusi", "alusta", "kahdennellakymmenennellä", "Pohjois-Suomella", "Nokia", "kissa"));
+        words.addAll(readLines("rautatie-unhyphenated.txt").subList(0, 1000));
+
+        for (var word : words) {
+            var all = analyzer.analyze(word);
+
+            for (int maxResults = 0; maxResults <= all.size() + 1; maxResults++) {
+                var expected = all.subList(0, Math.min(maxResults, all.size()));
+                assertEquals(toVoikkoFormat(expected), toVoikkoFormat(analyzer.analyze(word, maxResults)), word + " with max " + maxResults);
+            }
+        }
+    }
+
+    @Test
+    void analyzeAllReturnsResultsInInputOrder() throws Exception {
+        var words = new ArrayList<CharSequence>(readLines("rautatie-unhyphenated.txt").subList(0, 500));
+        words.add(new StringBuilder("kissa"));
+        words.add("kissa");
+        words.add("KISSA");
+
+        var results = analyzer.analyzeAll(words);
+
+        assertEquals(words.size(), results.size());
+        for (int i = 0; i < words.size(); i++)
+            assertEquals(toVoikkoFormat(analyzer.analyze(words.get(i))), toVoikkoFormat(results.get(i)), words.get(i).toString());
+
+        // Duplicates are analyzed only once
+        assertSame(results.get(words.size() - 3), results.get(words.size() - 2));
+    }
+
+    @Test
+    void analyzeAllResultsCannotBeModified() {
+        var results = analyzer.analyzeAll(List.of("kissa", "kissa"));
+        var analysis = results.get(0).get(0);
+
+        assertThrows(UnsupportedOperationException.class, () -> results.get(0).clear());
+        assertTrue(analysis.isReadOnly());
+        assertThrows(UnsupportedOperationException.class, () -> analysis.setBaseForm("koira"));
+        assertEquals("kissa", results.get(1).get(0).getBaseForm());
+        assertFalse(analysis.clone().isReadOnly());
+    }
+
+    @Test
+    void analyzeAllWithMaxResults() {
+        var results = analyzer.analyzeAll(List.of("alusta", "kissa", "alusta"), 1);
+
+        assertEquals(List.of(1, 1, 1), results.stream().map(List::size).toList());
+    }
+
+    @Test
+    void lazyAnalysisMatchesEagerAnalysis() throws Exception {
+        var lazyConfiguration = new AnalyzerConfiguration();
+        lazyConfiguration.setLazy(true);
+        var lazyAnalyzer = Morphology.loadBundled().newAnalyzer(lazyConfiguration);
+
+        var words = new ArrayList<>(List.of("kuusi", "alusta", "kahdennellakymmenennellä", "Pohjois-Suomella", "Nokia", "kissa"));
+        words.addAll(readLines("rautatie-unhyphenated.txt").subList(0, 1000));
+
+        for (var word : words) {
+            var expected = analyzer.analyze(word);
+            var actual = lazyAnalyzer.analyze(word);
+
+            assertEquals(toVoikkoFormat(expected), toVoikkoFormat(actual), word);
+            assertEquals(expected.stream().map(Analysis::getBaseFormParts).toList(), actual.stream().map(Analysis::getBaseFormParts).toList(), word);
+        }
+    }
+
+    @Test
+    void lazyPropertiesCanBeOverridden() {
+        var configuration = new AnalyzerConfiguration();
+        configuration.setLazy(true);
+
+        var analysis = Morphology.loadBundled().newAnalyzer(configuration).analyze("kissoille").get(0);
+        analysis.setBaseForm("koira");
+
+        assertEquals("koira", analysis.getBaseForm());
+        assertEquals("=ppppppppp", String.valueOf(analysis.getStructure()));
+    }
+
+    @Test
+    void validationDuringTraversalProducesSameAnalyses() throws Exception {
+        var configuration = new AnalyzerConfiguration();
+        configuration.setValidateDuringTraversal(true);
+        var pruningAnalyzer = Morphology.loadBundled().newAnalyzer(configuration);
+
+        var words = new ArrayList<>(List.of("kuusi", "alusta", "kahdennellakymmenennellä", "Pohjois-Suomella", "Nokia", "kissa"));
+        words.addAll(readLines("rautatie-unhyphenated.txt"));
+
+        for (var word : words) {
+            assertEquals(toVoikkoFormat(analyzer.analyze(word)), toVoikkoFormat(pruningAnalyzer.analyze(word)), word);
+            assertEquals(analyzer.baseForms(word), pruningAnalyzer.baseForms(word), word);
+        }
+    }
+
+    @Test
+    void validationDuringTraversalPrunesPaths() throws Exception {
+        Transducer transducer;
+        try (var in = Transducer.class.getResourceAsStream("/morpho/5/mor-morpho/mor.vfst")) {
+            assertNotNull(in);
+            transducer = UnweightedVfstLoader.loadCompact(in);
+        }
+
+        var words = readLines("rautatie-unhyphenated.txt");
+        var output = new Symbol[2000];
+        var buffer = new SymbolBuffer(2000);
+        var flags = new short[transducer.flagDiacriticFeatureCount];
+        var inputBuffer = new ArrayList<Symbol>();
+        long[] outputs = new long[2];
+        long[] pruned = new long[2];
+        List<List<String>> validOutputs = List.of(new ArrayList<>(), new ArrayList<>());
+
+        for (int i = 0; i < 2; i++) {
+            int mode = i;
+            var stack = new TraversalStack(2000);
+            var filter = mode == 1 ? Validator.FILTER : null;
+
+            for (var word : words)
+                transducer.transduce(word, inputBuffer, flags, output, stack, filter, depth -> {
+                    outputs[mode]++;
+                    if (buffer.resetIfValid(output, depth))
+                        validOutputs.get(mode).add(buffer.fullContents());
+                    return true;
+                });
+
+            pruned[mode] = stack.getPrunedTransitions();
+        }
+
+        // Pruning only skips invalid outputs, and skipping any means that some transitions were pruned
+        assertEquals(validOutputs.get(0), validOutputs.get(1));
+        assertEquals(validOutputs.get(1).size(), outputs[1]);
+        assertTrue(outputs[1] <= outputs[0]);
+        assertTrue(outputs[1] == outputs[0] || pruned[1] > 0);
+        assertEquals(0, pruned[0]);
+    }
+
+    @Test
+    void visitorSeesSameAnalysesAsAnalyze() throws Exception {
+        var configuration = new AnalyzerConfiguration();
+        configuration.setIncludeFstOutput(true);
+        var analyzer = Morphology.loadBundled().newAnalyzer(configuration);
+
+        var words = new ArrayList<>(List.of("kuusi", "alusta", "kahdennellakymmenennellä", "Pohjois-Suomella", "Nokia", "kissa"));
+        words.addAll(readLines("rautatie-unhyphenated.txt").subList(0, 1000));
+
+        for (var word : words) {
+            var visited = new ArrayList<Analysis>();
+            analyzer.analyze(word, view -> visited.add(copyOf(view)));
+
+            assertEquals(toVoikkoFormat(analyzer.analyze(word)), toVoikkoFormat(visited), word);
+        }
+    }
+
+    @Test
+    void visitorCanStopAnalysis() {
+        var visits = new int[1];
+        analyzer.analyze("alusta", view -> {
+            visits[0]++;
+            return false;
+        });
+
+        assertEquals(1, visits[0]);
+    }
+
+    @Test
+    void visitorReadingAttributesDoesNotAllocate() throws Exception {
+        var threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        var words = readLines("rautatie-unhyphenated.txt").toArray(new String[0]);
+        var wordClassCounts = new int[WordClass.values().length];
+        AnalysisVisitor visitor = view -> {
+            var wordClass = view.getWordClass();
+            if (wordClass != null)
+                wordClassCounts[wordClass.ordinal()]++;
+            return true;
+        };
+
+        // Warm up so that the measured round doesn't include lazy initialization done by the JVM
+        for (int round = 0; round < 3; round++)
+            for (var word : words)
+                analyzer.analyze(word, visitor);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+
+        for (var word : words)
+            analyzer.analyze(word, visitor);
+
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(Arrays.stream(wordClassCounts).sum() > 0);
+        assertTrue(allocated < words.length, () -> "allocated " + allocated + " bytes for " + words.length + " words");
+    }
+
+    private static @NotNull Analysis copyOf(@NotNull AnalysisView view) {
+        var analysis = new Analysis();
+        analysis.setBaseForm(toStringOrNull(view.getBaseForm()));
+        analysis.setWordClass(view.getWordClass());
+        analysis.setLocative(view.getLocative());
+        analysis.setNumber(view.getNumber());
+        analysis.setComparison(view.getComparison());
+        analysis.setFocus(view.getFocus());
+        analysis.setFstOutput(toStringOrNull(view.getFstOutput()));
+        analysis.setStructure(view.getStructure());
+        analysis.setMood(view.getMood());
+        analysis.setParticiple(view.getParticiple());
+        analysis.setNegative(view.getNegative());
+        analysis.setInterrogative(view.isInterrogative());
+        analysis.setPerson(view.getPerson());
+        analysis.setPossessive(view.getPossessive());
+        analysis.setTense(view.getTense());
+        analysis.setMalagaVapaaJalkiosa(view.isMalagaVapaaJalkiosa());
+        analysis.setPossibleGeographicalName(view.isPossibleGeographicalName());
+        analysis.setRequireFollowingVerb(view.getRequireFollowingVerb());
+        return analysis;
+    }
+
+    private static @Nullable String toStringOrNull(@Nullable CharSequence cs) {
+        return cs != null ? cs.toString() : null;
+    }
+
+    private static @NotNull List<Map<String, String>> toVoikkoFormat(@NotNull List<Analysis> analyses) {
+        return analyses.stream().map(Analysis::toVoikkoFormat).toList();
+    }
+
     private void assertBaseForm(@NotNull String expected, @NotNull String word) {
         assertEquals(List.of(expected), analyzer.baseForms(word));
     }
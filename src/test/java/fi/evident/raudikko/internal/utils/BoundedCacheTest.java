@@ -0,0 +1,131 @@
+/*
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * https://www.mozilla.org/en-US/MPL/2.0/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Libvoikko: Library of natural language processing tools.
+ * The Initial Developer of the Original Code is Harri Pitkänen <hatapitk@iki.fi>.
+ * Portions created by the Initial Developer are Copyright (C) 2012
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Raudikko, the Java port of the Initial Code is Copyright (C) 2020 by
+ * Evident Solutions Oy. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ */
+
+package fi.evident.raudikko.internal.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void lruEvictsLeastRecentlyUsed() {
+        var cache = new BoundedCache<String, String>(2, BoundedCache.Policy.LRU);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void tinyLfuKeepsFrequentlyUsedEntries() {
+        var cache = new BoundedCache<Integer, Integer>(100, BoundedCache.Policy.TINY_LFU);
+
+        for (int round = 0; round < 10; round++)
+            for (int i = 0; i < 50; i++)
+                if (cache.get(i) == null)
+                    cache.put(i, i);
+
+        // A scan of one-off keys should not flush the frequently used ones
+        for (int i = 1000; i < 2000; i++)
+            if (cache.get(i) == null)
+                cache.put(i, i);
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++)
+            if (cache.get(i) != null)
+                retained++;
+
+        assertTrue(retained >= 45, "retained only " + retained);
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void sizeStaysWithinCapacity() {
+        for (var policy : BoundedCache.Policy.values()) {
+            var cache = new BoundedCache<Integer, Integer>(5000, policy);
+            for (int i = 0; i < 20000; i++)
+                cache.put(i, i);
+
+            assertTrue(cache.size() <= 5000 + 16, policy + ": " + cache.size());
+            assertEquals(20000 - cache.size(), cache.getEvictionCount(), policy.toString());
+        }
+    }
+
+    @Test
+    void concurrentAccess() throws Exception {
+        var cache = new BoundedCache<Integer, Integer>(2000, BoundedCache.Policy.TINY_LFU);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        int key = (i * 31 + seed) % 5000;
+                        var value = cache.get(key);
+                        if (value == null)
+                            cache.put(key, key);
+                        else
+                            assertEquals(key, value);
+                    }
+                }));
+            }
+
+            for (var future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(800_000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    void rejectInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<String, String>(0, BoundedCache.Policy.LRU));
+    }
+}